@@ -19,6 +19,7 @@ package se.jsquad.api;
 import io.swagger.annotations.Api;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -27,10 +28,17 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import se.jsquad.api.client.AccountStatement;
+import se.jsquad.api.client.AccountTransactionHistory;
+import se.jsquad.api.client.AccountTransferRequest;
+import se.jsquad.api.client.AccountTransferResponse;
 import se.jsquad.api.client.ClientApi;
+import se.jsquad.api.client.ClientImportResponse;
 import se.jsquad.api.client.ClientInformationRequest;
 import se.jsquad.api.client.ClientInformationResponse;
 import se.jsquad.api.client.ClientRequest;
@@ -42,6 +50,10 @@ import se.jsquad.validator.ClientRequestBodyConstraint;
 import se.jsquad.validator.PersonIdentificationNumberConstraint;
 import se.jsquad.validator.ValidateJsonSchema;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.io.InputStream;
+
 @Api(value = ApiConstants.OPENBANK_BASE_PATH, authorizations = {})
 @RequestMapping(path = ApiConstants.OPENBANK_BASE_PATH)
 @Validated
@@ -130,6 +142,107 @@ public interface ClientInformation {
                                                                        @ClientRequestBodyConstraint
                                                                        @RequestBody ClientRequest clientRequest);
     
+    @PostMapping(value = "/client/import", consumes = {MediaType.APPLICATION_JSON_VALUE}, produces =
+        {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Import clients in bulk",
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSON array of ClientApi.",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = ClientApi.class))),
+            required = true),
+        description = "Import a JSON array of ClientApi models. The array is read as a stream and persisted in " +
+            "batches, so the payload is never held in memory as a whole.",
+        responses = {
+            @ApiResponse(responseCode = "200",
+                description = "Number of imported clients", content = @Content(mediaType =
+                MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = ClientImportResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad content", content =
+            @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(
+                example = "ClientApi payload contains bad content."))),
+            @ApiResponse(responseCode = "500", description = "Severe system failure has occured!", content =
+            @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(
+                example = "Severe system failure has occured!")))})
+    ResponseEntity<ClientImportResponse> importClients(@Parameter(hidden = true) InputStream clientApiStream);
+    
+    @GetMapping(value = "/account/{accountNumber}/transactions", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Get account transaction history",
+        description = "Get one page of the account transactions, newest first. The next page is requested with the " +
+            "cursor of the previous page, so every page costs the same regardless of its depth.",
+        responses = {
+            @ApiResponse(responseCode = "200",
+                description = "The account transaction page", content = @Content(mediaType =
+                MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = AccountTransactionHistory.class))),
+            @ApiResponse(responseCode = "400",
+                description = "Invalid cursor or page size", content = @Content(mediaType =
+                MediaType.TEXT_PLAIN_VALUE,
+                schema = @Schema(example = "Invalid cursor."))),
+            @ApiResponse(responseCode = "404",
+                description = "Account not found.", content = @Content(mediaType =
+                MediaType.TEXT_PLAIN_VALUE,
+                schema = @Schema(example = "Account not found."))),
+            @ApiResponse(responseCode = "500", description = "Severe system failure has occured!", content =
+            @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(
+                example = "Severe system failure has occured!")))})
+    ResponseEntity<AccountTransactionHistory> getAccountTransactionHistory(@Parameter(description = "The account " +
+        "number", example = "1000", required = true) @PathVariable("accountNumber") String accountNumber,
+        @Parameter(description = "Cursor of the page, omitted for the first page") @RequestParam(value = "cursor",
+            required = false) String cursor,
+        @Parameter(description = "Number of transactions per page", example = "50") @RequestParam(value = "size",
+            defaultValue = "50") @Min(1) @Max(500) int size);
+    
+    @GetMapping(value = "/account/{accountNumber}/statement/{month}", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Get account statement",
+        description = "Get the account transactions of one calendar month in UTC, oldest first.",
+        responses = {
+            @ApiResponse(responseCode = "200",
+                description = "The account statement", content = @Content(mediaType =
+                MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = AccountStatement.class))),
+            @ApiResponse(responseCode = "400",
+                description = "Invalid month", content = @Content(mediaType =
+                MediaType.TEXT_PLAIN_VALUE,
+                schema = @Schema(example = "Invalid month."))),
+            @ApiResponse(responseCode = "404",
+                description = "Account not found.", content = @Content(mediaType =
+                MediaType.TEXT_PLAIN_VALUE,
+                schema = @Schema(example = "Account not found."))),
+            @ApiResponse(responseCode = "500", description = "Severe system failure has occured!", content =
+            @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(
+                example = "Severe system failure has occured!")))})
+    ResponseEntity<AccountStatement> getAccountStatement(@Parameter(description = "The account number", example =
+        "1000", required = true) @PathVariable("accountNumber") String accountNumber,
+        @Parameter(description = "The month of the statement", example = "2021-01", required = true)
+        @PathVariable("month") String month);
+    
+    @PostMapping(value = "/account/transfer", consumes = {MediaType.APPLICATION_JSON_VALUE}, produces =
+        {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Transfer between accounts",
+        requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "AccountTransferRequest " +
+            "body.", content = @Content(schema = @Schema(implementation = AccountTransferRequest.class)),
+            required = true),
+        description = "Withdraw the amount from one account and deposit it to another in one transaction. Both " +
+            "balances are updated and a matched withdrawal and deposit transaction is recorded.",
+        responses = {
+            @ApiResponse(responseCode = "200",
+                description = "The balances after the transfer", content = @Content(mediaType =
+                MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = AccountTransferResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Bad content or insufficient funds", content =
+            @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(
+                example = "Insufficient funds."))),
+            @ApiResponse(responseCode = "404",
+                description = "Account not found.", content = @Content(mediaType =
+                MediaType.TEXT_PLAIN_VALUE,
+                schema = @Schema(example = "Account not found."))),
+            @ApiResponse(responseCode = "409", description = "The accounts were concurrently modified, retry later",
+                content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(
+                example = "Transfer could not be completed due to concurrent updates."))),
+            @ApiResponse(responseCode = "500", description = "Severe system failure has occured!", content =
+            @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(
+                example = "Severe system failure has occured!")))})
+    ResponseEntity<AccountTransferResponse> transfer(
+        @ValidateJsonSchema(xsdClass = AccountTransferRequest.class) AccountTransferRequest accountTransferRequest);
+    
     @GetMapping(value = "/date/time/{dateTime}", produces = {MediaType.APPLICATION_JSON_VALUE})
     @Operation(summary = "Get date time",
         description = "Get the date time RFC3339 string",
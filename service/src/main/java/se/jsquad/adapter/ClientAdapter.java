@@ -16,11 +16,15 @@
 
 package se.jsquad.adapter;
 
+import se.jsquad.api.client.AccountTransactionApi;
 import se.jsquad.api.client.ClientApi;
+import se.jsquad.entity.AccountTransaction;
 import se.jsquad.entity.Client;
 
 public interface ClientAdapter {
     ClientApi translateClientToClientApi(Client client);
 
     Client translateClientApiToClient(ClientApi clientApi);
+
+    AccountTransactionApi translateAccountTransactionToAccountTransactionApi(AccountTransaction accountTransaction);
 }
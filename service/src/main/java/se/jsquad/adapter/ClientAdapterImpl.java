@@ -33,6 +33,7 @@ import se.jsquad.entity.RegularClient;
 import se.jsquad.entity.TransactionType;
 
 import javax.inject.Named;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -68,19 +69,12 @@ public class ClientAdapterImpl implements ClientAdapter {
         for (Account account : client.getAccountSet()) {
             AccountApi accountApi = new AccountApi();
 
+            accountApi.setAccountNumber(account.getAccountNumber());
             accountApi.setBalance(account.getBalance());
 
             for (AccountTransaction accountTransaction : account.getAccountTransactionSet()) {
-                AccountTransactionApi accountTransactionApi = new AccountTransactionApi();
-
-                accountTransactionApi.setMessage(accountTransaction.getMessage());
-
-                TransactionTypeApi transactionTypeApi = TransactionTypeApi.valueOf(accountTransaction
-                        .getTransactionType().name());
-
-                accountTransactionApi.setTransactionType(transactionTypeApi);
-
-                accountApi.getAccountTransactionList().add(accountTransactionApi);
+                accountApi.getAccountTransactionList().add(translateAccountTransactionToAccountTransactionApi(
+                        accountTransaction));
             }
 
             accountApiSet.add(accountApi);
@@ -124,6 +118,7 @@ public class ClientAdapterImpl implements ClientAdapter {
             for (AccountApi accountApi : clientApi.getAccountList()) {
                 Account account = new Account();
 
+                account.setAccountNumber(accountApi.getAccountNumber());
                 account.setBalance(accountApi.getBalance());
                 account.setAccountTransactionSet(new HashSet<>());
 
@@ -135,6 +130,14 @@ public class ClientAdapterImpl implements ClientAdapter {
                         accountTransaction.setTransactionType(TransactionType.valueOf(accountTransactionApi
                                 .getTransactionType().value()));
 
+                        if (accountTransactionApi.getAmount() != null) {
+                            accountTransaction.setAmount(accountTransactionApi.getAmount());
+                        }
+
+                        if (accountTransactionApi.getOccurredAt() != null) {
+                            accountTransaction.setOccurredAt(Instant.parse(accountTransactionApi.getOccurredAt()));
+                        }
+
                         account.getAccountTransactionSet().add(accountTransaction);
                     }
                 }
@@ -149,4 +152,21 @@ public class ClientAdapterImpl implements ClientAdapter {
 
         return client;
     }
+
+    @Override
+    public AccountTransactionApi translateAccountTransactionToAccountTransactionApi(
+            AccountTransaction accountTransaction) {
+        AccountTransactionApi accountTransactionApi = new AccountTransactionApi();
+
+        accountTransactionApi.setMessage(accountTransaction.getMessage());
+        accountTransactionApi.setTransactionType(TransactionTypeApi.valueOf(accountTransaction.getTransactionType()
+                .name()));
+        accountTransactionApi.setAmount(Math.abs(accountTransaction.getAmount()));
+
+        if (accountTransaction.getOccurredAt() != null) {
+            accountTransactionApi.setOccurredAt(accountTransaction.getOccurredAt().toString());
+        }
+
+        return accountTransactionApi;
+    }
 }
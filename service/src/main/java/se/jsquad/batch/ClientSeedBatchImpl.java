@@ -0,0 +1,190 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.batch;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import se.jsquad.component.database.PostgresBulkLoader;
+import se.jsquad.entity.Client;
+import se.jsquad.entity.SystemProperty;
+import se.jsquad.generator.EntityGenerator;
+import se.jsquad.generator.EntityGeneratorImpl;
+import se.jsquad.property.AppPropertyConfiguration;
+import se.jsquad.repository.AccountTransactionPartitionRepository;
+import se.jsquad.repository.ClientFetchPlan;
+import se.jsquad.repository.ClientRepository;
+import se.jsquad.repository.SystemPropertyRepository;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seeds generated clients in chunks on a pool of worker threads. Every chunk is generated lazily and persisted
+ * through the batched {@link ClientRepository#persistClients} in a transaction of its own, so memory is bounded by
+ * the flush size times the number of workers however many clients are seeded. On PostgreSQL the chunks are copied
+ * with the {@link PostgresBulkLoader} instead.
+ */
+@Service
+public class ClientSeedBatchImpl implements ClientSeedBatch {
+    private Logger logger;
+    private AppPropertyConfiguration appPropertyConfiguration;
+    private EntityGenerator entityGenerator;
+    private ClientRepository clientRepository;
+    private AccountTransactionPartitionRepository accountTransactionPartitionRepository;
+    private PostgresBulkLoader postgresBulkLoader;
+    private DataSource dataSource;
+    private SystemPropertyRepository systemPropertyRepository;
+
+    public ClientSeedBatchImpl(Logger logger, AppPropertyConfiguration appPropertyConfiguration,
+                               EntityGenerator entityGenerator, ClientRepository clientRepository,
+                               AccountTransactionPartitionRepository accountTransactionPartitionRepository) {
+        this.logger = logger;
+        this.appPropertyConfiguration = appPropertyConfiguration;
+        this.entityGenerator = entityGenerator;
+        this.clientRepository = clientRepository;
+        this.accountTransactionPartitionRepository = accountTransactionPartitionRepository;
+    }
+
+    @Inject
+    private void setPostgresBulkLoader(PostgresBulkLoader postgresBulkLoader,
+                                       @Qualifier("openBankDataSource") DataSource dataSource) {
+        this.postgresBulkLoader = postgresBulkLoader;
+        this.dataSource = dataSource;
+    }
+
+    @Inject
+    private void setSystemPropertyRepository(SystemPropertyRepository systemPropertyRepository) {
+        this.systemPropertyRepository = systemPropertyRepository;
+    }
+
+    /**
+     * Seeds the fixed set of clients the service is shipped with, unless an earlier start already has.
+     */
+    @Override
+    @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED)
+    public void seedInitialClients() {
+        if (clientRepository.getClientByPersonIdentification("191212121212", ClientFetchPlan.SUMMARY) == null) {
+            for (Client client : entityGenerator.generateClientSet()) {
+                clientRepository.persistClient(client);
+            }
+
+            SystemProperty systemProperty = new SystemProperty();
+            systemProperty.setName(appPropertyConfiguration.getName());
+            systemProperty.setValue(appPropertyConfiguration.getVersion());
+
+            systemPropertyRepository.persistSystemProperty(systemProperty);
+        }
+    }
+
+    @Override
+    public long seedClients(long seed, long numberOfClients) {
+        Instant historyEnd = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        int chunkSize = appPropertyConfiguration.getSeedChunkSize();
+        long numberOfChunks = (numberOfClients + chunkSize - 1) / chunkSize;
+        int numberOfThreads = (int) Math.max(1, Math.min(numberOfChunks, appPropertyConfiguration.getSeedThreads()
+                > 0 ? appPropertyConfiguration.getSeedThreads() : Runtime.getRuntime().availableProcessors()));
+
+        boolean bulkLoad = postgresBulkLoader.isSupported(dataSource);
+
+        createPartitions(historyEnd);
+
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong numberOfSeededClients = new AtomicLong();
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        List<Future<?>> futureList = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < numberOfThreads; i++) {
+            futureList.add(executorService.submit(() -> {
+                long chunk;
+
+                while ((chunk = nextChunk.getAndIncrement()) < numberOfChunks) {
+                    long fromClient = chunk * chunkSize;
+                    long toClient = Math.min(numberOfClients, fromClient + chunkSize);
+
+                    numberOfSeededClients.addAndGet(seedChunk(seed, fromClient, toClient, historyEnd,
+                            bulkLoad));
+                }
+            }));
+        }
+
+        executorService.shutdown();
+
+        try {
+            for (Future<?> future : futureList) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Seeding of clients was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Seeding of clients failed.", e.getCause());
+        } finally {
+            nextChunk.set(numberOfChunks);
+            executorService.shutdownNow();
+        }
+
+        logger.info("Seeded {} of {} clients on {} threads in {} ms.", numberOfSeededClients.get(), numberOfClients,
+                numberOfThreads, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        return numberOfSeededClients.get();
+    }
+
+    private long seedChunk(long seed, long fromClient, long toClient, Instant historyEnd, boolean bulkLoad) {
+        // A chunk is committed as a whole, if its last client exists an earlier run has already seeded it.
+        if (clientRepository.getClientByPersonIdentification(String.format(EntityGeneratorImpl
+                .GENERATED_PERSON_IDENTIFICATION_FORMAT, toClient - 1), ClientFetchPlan.SUMMARY) != null) {
+            return 0;
+        }
+
+        if (bulkLoad) {
+            return postgresBulkLoader.loadClients(dataSource, "seed-" + seed + "-" + fromClient,
+                    entityGenerator.generateClients(seed, fromClient, toClient, historyEnd),
+                    appPropertyConfiguration.getSeedChunkSize());
+        }
+
+        return clientRepository.persistClients(entityGenerator.generateClients(seed, fromClient, toClient,
+                historyEnd));
+    }
+
+    private void createPartitions(Instant historyEnd) {
+        if (!accountTransactionPartitionRepository.isPartitioned()) {
+            return;
+        }
+
+        YearMonth lastMonth = YearMonth.from(historyEnd.atZone(ZoneOffset.UTC));
+
+        for (YearMonth month = lastMonth.minusMonths(12); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            accountTransactionPartitionRepository.createPartition(month);
+        }
+    }
+}
@@ -16,31 +16,91 @@
 
 package se.jsquad.business;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import se.jsquad.adapter.ClientAdapter;
 import se.jsquad.api.batch.BatchStatus;
+import se.jsquad.api.client.AccountStatement;
+import se.jsquad.api.client.AccountTransactionHistory;
+import se.jsquad.api.client.AccountTransferRequest;
+import se.jsquad.api.client.AccountTransferResponse;
 import se.jsquad.api.client.ClientApi;
 import se.jsquad.batch.SlowMockBatch;
+import se.jsquad.entity.Account;
+import se.jsquad.entity.AccountTransaction;
 import se.jsquad.entity.Client;
+import se.jsquad.entity.TransactionType;
+import se.jsquad.exception.AccountNotFoundException;
+import se.jsquad.exception.BadRequestRuntimeException;
+import se.jsquad.exception.InsufficientFundsException;
+import se.jsquad.exception.TransferConflictException;
+import se.jsquad.property.AppPropertyConfiguration;
+import se.jsquad.repository.AccountLedgerRepository;
+import se.jsquad.repository.AccountRepository;
+import se.jsquad.repository.AccountTransactionCursor;
+import se.jsquad.repository.AccountTransactionRepository;
 import se.jsquad.repository.ClientRepository;
+import se.jsquad.thread.StripedLockManager;
 
 import javax.inject.Inject;
+import javax.persistence.NonUniqueResultException;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 @Service
-@Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED)
+@Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED, readOnly = true)
 public class OpenBankService {
     private ClientRepository clientRepository;
+    private AccountRepository accountRepository;
+    private AccountTransactionRepository accountTransactionRepository;
+    private AccountLedgerRepository accountLedgerRepository;
     private ClientAdapter clientAdapter;
+    private Validator validator;
     private SlowMockBatch slowMockBatch;
+    private AppPropertyConfiguration appPropertyConfiguration;
+    private TransactionTemplate transactionTemplate;
+    private StripedLockManager accountLockManager;
+    private Counter transferRetryCounter;
 
-    public OpenBankService(ClientRepository clientRepository, SlowMockBatch slowMockBatch) {
+    public OpenBankService(ClientRepository clientRepository, AccountRepository accountRepository,
+                           AccountTransactionRepository accountTransactionRepository,
+                           AccountLedgerRepository accountLedgerRepository, SlowMockBatch slowMockBatch,
+                           AppPropertyConfiguration appPropertyConfiguration,
+                           @Qualifier("transactionTemplateOpenBank") TransactionTemplate transactionTemplate,
+                           @Qualifier("accountLockManager") StripedLockManager accountLockManager,
+                           MeterRegistry meterRegistry) {
         this.clientRepository = clientRepository;
+        this.accountRepository = accountRepository;
+        this.accountTransactionRepository = accountTransactionRepository;
+        this.accountLedgerRepository = accountLedgerRepository;
         this.slowMockBatch = slowMockBatch;
+        this.appPropertyConfiguration = appPropertyConfiguration;
+        this.transactionTemplate = transactionTemplate;
+        this.accountLockManager = accountLockManager;
+
+        transferRetryCounter = Counter.builder("openbank.transfer.retries")
+                .description("Transfers retried after a concurrent update of one of the accounts")
+                .register(meterRegistry);
     }
 
     @Inject
@@ -48,17 +108,217 @@ public class OpenBankService {
         this.clientAdapter = clientAdapter;
     }
 
+    @Inject
+    private void setValidator(Validator validator) {
+        this.validator = validator;
+    }
+
     public ClientApi getClientInformationByPersonIdentification(String personIdentification) {
-        Client client = clientRepository.getClientByPersonIdentification(personIdentification);
+        return clientRepository.getClientApiByPersonIdentification(personIdentification);
+    }
+
+    public AccountTransactionHistory getAccountTransactionHistory(String accountNumber, String cursor, int size) {
+        Account account = accountRepository.getAccountByAccountNumber(accountNumber);
+
+        if (account == null) {
+            return null;
+        }
+
+        List<AccountTransaction> accountTransactionList = accountTransactionRepository.getAccountTransactionPage(
+                account, cursor == null ? null : AccountTransactionCursor.decode(cursor), size + 1);
+
+        AccountTransactionHistory accountTransactionHistory = new AccountTransactionHistory();
+        accountTransactionHistory.setAccountNumber(accountNumber);
+
+        for (AccountTransaction accountTransaction : accountTransactionList.subList(0, Math.min(size,
+                accountTransactionList.size()))) {
+            accountTransactionHistory.getAccountTransactionList().add(clientAdapter
+                    .translateAccountTransactionToAccountTransactionApi(accountTransaction));
+        }
+
+        if (accountTransactionList.size() > size) {
+            accountTransactionHistory.setNextCursor(AccountTransactionCursor.of(accountTransactionList.get(size - 1))
+                    .encode());
+        }
+
+        return accountTransactionHistory;
+    }
+
+    public AccountStatement getAccountStatement(String accountNumber, String month) {
+        final YearMonth statementMonth;
 
-        if (client == null) {
+        try {
+            statementMonth = YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestRuntimeException("Invalid month.", e);
+        }
+
+        Account account = accountRepository.getAccountByAccountNumber(accountNumber);
+
+        if (account == null) {
             return null;
-        } else {
-            return clientAdapter.translateClientToClientApi(client);
         }
+
+        AccountStatement accountStatement = new AccountStatement();
+        accountStatement.setAccountNumber(accountNumber);
+        accountStatement.setMonth(statementMonth.toString());
+
+        for (AccountTransaction accountTransaction : accountTransactionRepository.getAccountTransactionsBetween(
+                account, statementMonth.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC), statementMonth
+                        .plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC))) {
+            accountStatement.getAccountTransactionList().add(clientAdapter
+                    .translateAccountTransactionToAccountTransactionApi(accountTransaction));
+        }
+
+        return accountStatement;
+    }
+
+    /**
+     * Runs the transfer in a transaction of its own so that an optimistic locking conflict, raised on commit, can be
+     * retried with fresh account versions. Transfers touching the same accounts queue on the account locks before
+     * they take a database connection, so the retries are only needed against writers outside this JVM.
+     */
+    @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.NOT_SUPPORTED)
+    public AccountTransferResponse transfer(AccountTransferRequest accountTransferRequest) {
+        if (accountTransferRequest.getFromAccountNumber() == null || accountTransferRequest.getToAccountNumber()
+                == null || accountTransferRequest.getAmount() <= 0 || accountTransferRequest.getFromAccountNumber()
+                .equals(accountTransferRequest.getToAccountNumber())) {
+            throw new BadRequestRuntimeException("AccountTransferRequest payload contains bad content.");
+        }
+
+        return accountLockManager.executeWithLocks(List.of(accountTransferRequest.getFromAccountNumber(),
+                accountTransferRequest.getToAccountNumber()), () -> transferWithRetry(accountTransferRequest));
+    }
+
+    private AccountTransferResponse transferWithRetry(AccountTransferRequest accountTransferRequest) {
+        int maxAttempts = appPropertyConfiguration.getTransferMaxAttempts();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> transferWithinTransaction(accountTransferRequest));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new TransferConflictException("Transfer could not be completed due to concurrent updates.",
+                            e);
+                }
+
+                transferRetryCounter.increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    private AccountTransferResponse transferWithinTransaction(AccountTransferRequest accountTransferRequest) {
+        Account fromAccount = null;
+        Account toAccount = null;
+
+        for (Account account : accountRepository.getAccountsByAccountNumbers(List.of(accountTransferRequest
+                .getFromAccountNumber(), accountTransferRequest.getToAccountNumber()))) {
+            if (account.getAccountNumber().equals(accountTransferRequest.getFromAccountNumber())) {
+                fromAccount = requireUniqueAccount(fromAccount, account);
+            } else {
+                toAccount = requireUniqueAccount(toAccount, account);
+            }
+        }
+
+        if (fromAccount == null || toAccount == null) {
+            throw new AccountNotFoundException("Account not found.");
+        }
+
+        // The ledger is the source of truth for the balance, the balance column is a projection of it for reads
+        long fromBalance = accountLedgerRepository.getLedgerBalance(fromAccount);
+
+        if (fromBalance < accountTransferRequest.getAmount()) {
+            throw new InsufficientFundsException("Insufficient funds.");
+        }
+
+        long toBalance = accountLedgerRepository.getLedgerBalance(toAccount);
+
+        Instant occurredAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+        accountTransactionRepository.persistAccountTransaction(createAccountTransaction(fromAccount,
+                TransactionType.WITHDRAWAL, accountTransferRequest, occurredAt));
+        accountTransactionRepository.persistAccountTransaction(createAccountTransaction(toAccount,
+                TransactionType.DEPOSIT, accountTransferRequest, occurredAt));
+
+        AccountTransferResponse accountTransferResponse = new AccountTransferResponse();
+        accountTransferResponse.setFromAccountNumber(fromAccount.getAccountNumber());
+        accountTransferResponse.setFromBalance(fromBalance - accountTransferRequest.getAmount());
+        accountTransferResponse.setToAccountNumber(toAccount.getAccountNumber());
+        accountTransferResponse.setToBalance(toBalance + accountTransferRequest.getAmount());
+
+        return accountTransferResponse;
+    }
+
+    private Account requireUniqueAccount(Account foundAccount, Account account) {
+        if (foundAccount != null) {
+            throw new NonUniqueResultException("Account number " + account.getAccountNumber() + " is not unique.");
+        }
+
+        return account;
+    }
+
+    private AccountTransaction createAccountTransaction(Account account, TransactionType transactionType,
+                                                       AccountTransferRequest accountTransferRequest,
+                                                       Instant occurredAt) {
+        AccountTransaction accountTransaction = new AccountTransaction();
+        accountTransaction.setTransactionType(transactionType);
+        accountTransaction.setAmount(accountTransferRequest.getAmount());
+        accountTransaction.setOccurredAt(occurredAt);
+        accountTransaction.setMessage(accountTransferRequest.getMessage() == null ? "Transfer"
+                : accountTransferRequest.getMessage());
+
+        account.appendTransaction(accountTransaction);
+
+        return accountTransaction;
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(appPropertyConfiguration
+                    .getTransferRetryBackoffMillis() * (long) attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferConflictException("Transfer was interrupted while waiting to retry.", e);
+        }
+    }
+
+    /**
+     * Imports the clients in one transaction. Every client is translated and validated before it is persisted, so
+     * that a malformed element is a bad request that rolls back the whole import instead of failing on flush.
+     */
+    @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED)
+    public long importClients(Stream<ClientApi> clientApiStream) {
+        return clientRepository.persistClients(clientApiStream.map(this::translateImportedClient));
+    }
+
+    private Client translateImportedClient(ClientApi clientApi) {
+        if (clientApi == null || clientApi.getPerson() == null || clientApi.getPerson().getPersonIdentification()
+                == null || clientApi.getClientType() == null) {
+            throw new BadRequestRuntimeException("ClientApi payload contains bad content.");
+        }
+
+        final Client client;
+
+        try {
+            client = clientAdapter.translateClientApiToClient(clientApi);
+        } catch (RuntimeException e) {
+            throw new BadRequestRuntimeException("ClientApi payload contains bad content.", e);
+        }
+
+        Set<ConstraintViolation<?>> constraintViolationSet = new HashSet<>();
+        constraintViolationSet.addAll(validator.validate(client.getPerson()));
+        constraintViolationSet.addAll(validator.validate(client.getClientType()));
+
+        if (!constraintViolationSet.isEmpty()) {
+            throw new ConstraintViolationException(constraintViolationSet);
+        }
+
+        return client;
     }
 
     @Async
+    @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.NOT_SUPPORTED)
     public Future<BatchStatus> startSlowBatch() throws InterruptedException {
         return new AsyncResult<>(slowMockBatch.startBatch());
     }
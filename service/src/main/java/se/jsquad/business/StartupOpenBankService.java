@@ -16,62 +16,101 @@
 
 package se.jsquad.business;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
-import se.jsquad.entity.Client;
-import se.jsquad.entity.SystemProperty;
-import se.jsquad.generator.EntityGenerator;
+import se.jsquad.batch.ClientSeedBatch;
+import se.jsquad.component.startup.StartupPipeline;
 import se.jsquad.property.AppPropertyConfiguration;
-import se.jsquad.repository.ClientRepository;
-import se.jsquad.repository.SystemPropertyRepository;
-import se.jsquad.thread.NumberOfLocks;
+import se.jsquad.repository.AccountLedgerRepository;
+import se.jsquad.repository.AccountTransactionPartitionRepository;
+import se.jsquad.repository.SecondLevelCacheRepository;
+import se.jsquad.thread.StripedLockManager;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 
 @Service
 public class StartupOpenBankService {
+    private static final String CACHE_REFRESH_LOCK = "cache-refresh";
+    private static final String LEDGER_COMPACTION_LOCK = "ledger-compaction";
+    private static final String PARTITION_MAINTENANCE_LOCK = "partition-maintenance";
+
     private Logger logger;
 
     private AppPropertyConfiguration appPropertyConfiguration;
-    private ClientRepository clientRepository;
-    private EntityGenerator entityGenerator;
-    private SystemPropertyRepository systemPropertyRepository;
-    private static final Lock lock = new ReentrantLock();
+    private ClientSeedBatch clientSeedBatch;
+    private StartupPipeline startupPipeline;
+    private SecondLevelCacheRepository secondLevelCacheRepository;
+    private AccountLedgerRepository accountLedgerRepository;
+    private AccountTransactionPartitionRepository accountTransactionPartitionRepository;
+    private Timer cacheRefreshTimer;
+    private Counter cacheEvictionCounter;
+    private Timer ledgerCompactionTimer;
+    private Counter ledgerSnapshotCounter;
+    private StripedLockManager batchLockManager;
+    private Instant lastCacheRefresh = Instant.now();
 
     public StartupOpenBankService(Logger logger, AppPropertyConfiguration appPropertyConfiguration,
-                                  ClientRepository clientRepository,
-                                  SystemPropertyRepository systemPropertyRepository) {
-        this.clientRepository = clientRepository;
-        this.systemPropertyRepository = systemPropertyRepository;
+                                  SecondLevelCacheRepository secondLevelCacheRepository,
+                                  AccountLedgerRepository accountLedgerRepository,
+                                  AccountTransactionPartitionRepository accountTransactionPartitionRepository,
+                                  @Qualifier("batchLockManager") StripedLockManager batchLockManager,
+                                  MeterRegistry meterRegistry) {
+        this.batchLockManager = batchLockManager;
+        this.secondLevelCacheRepository = secondLevelCacheRepository;
+        this.accountLedgerRepository = accountLedgerRepository;
+        this.accountTransactionPartitionRepository = accountTransactionPartitionRepository;
         this.appPropertyConfiguration = appPropertyConfiguration;
         this.logger = logger;
+
+        cacheRefreshTimer = Timer.builder("openbank.cache.refresh")
+                .description("Time spent evicting changed second level cache entries")
+                .register(meterRegistry);
+        cacheEvictionCounter = Counter.builder("openbank.cache.refresh.evicted")
+                .description("Number of second level cache entries evicted because they changed")
+                .register(meterRegistry);
+        ledgerCompactionTimer = Timer.builder("openbank.ledger.compaction")
+                .description("Time spent rolling account ledger entries into balance snapshots")
+                .register(meterRegistry);
+        ledgerSnapshotCounter = Counter.builder("openbank.ledger.snapshots")
+                .description("Number of account balance snapshots created by the ledger compaction")
+                .register(meterRegistry);
     }
 
     @Inject
-    private void setEntityGenerator(EntityGenerator entityGenerator) {
-        this.entityGenerator = entityGenerator;
+    private void setClientSeedBatch(ClientSeedBatch clientSeedBatch) {
+        this.clientSeedBatch = clientSeedBatch;
     }
 
-    @PostConstruct
-    @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED)
-    public void initiateDatabase() {
-        if (clientRepository.getClientByPersonIdentification("191212121212") == null) {
-            for (Client client : entityGenerator.generateClientSet()) {
-                clientRepository.persistClient(client);
-            }
+    @Inject
+    private void setStartupPipeline(StartupPipeline startupPipeline) {
+        this.startupPipeline = startupPipeline;
+    }
 
-            SystemProperty systemProperty = new SystemProperty();
-            systemProperty.setName(appPropertyConfiguration.getName());
-            systemProperty.setValue(appPropertyConfiguration.getVersion());
+    /**
+     * Seeds the database in the background once the application is ready, the startup pipeline keeps the application
+     * out of service until the initial clients exist. app.seed.clients generated clients for sizing caches, indexes
+     * and pools against a realistic data set are seeded after them, without holding back readiness.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedDatabase() {
+        startupPipeline.startPhase(StartupPipeline.OPENBANK_SEED_PHASE, true, clientSeedBatch::seedInitialClients);
 
-            systemPropertyRepository.persistSystemProperty(systemProperty);
+        if (appPropertyConfiguration.getSeedClients() > 0) {
+            startupPipeline.startPhase(StartupPipeline.CLIENT_SEED_PHASE, false, () -> clientSeedBatch.seedClients(
+                    appPropertyConfiguration.getSeedRandomSeed(), appPropertyConfiguration.getSeedClients()),
+                    StartupPipeline.OPENBANK_SEED_PHASE);
         }
     }
 
@@ -83,21 +122,86 @@ public class StartupOpenBankService {
 
     @Scheduled(cron = "0 0/5 * * * *")
     /**
-     * Batch job that runs every five minutes to refresh the secondary cache level
+     * Batch job that runs every five minutes and evicts the secondary cache level entries that changed since the
+     * previous run
      *
      * @return
      */
     public void refreshJpaCache() {
-        lock.lock();
-        logger.debug("Locked the batch thread.");
-        NumberOfLocks.increaseNumberOfLocks();
-
-        try {
-            systemPropertyRepository.refreshSecondaryLevelCache();
-        } finally {
-            NumberOfLocks.decreaseNumberOfLocks();
-            lock.unlock();
-            logger.debug("Unlocked the batch thread.");
+        batchLockManager.executeWithLock(CACHE_REFRESH_LOCK, () -> {
+            logger.debug("Locked the batch thread.");
+
+            Instant cacheRefresh = Instant.now();
+            Instant changedSince = lastCacheRefresh.minus(Duration.ofSeconds(appPropertyConfiguration
+                    .getCacheRefreshOverlapSeconds()));
+
+            int numberOfEvictedEntries = cacheRefreshTimer.record(() -> secondLevelCacheRepository
+                    .evictEntriesChangedSince(changedSince));
+
+            cacheEvictionCounter.increment(numberOfEvictedEntries);
+            lastCacheRefresh = cacheRefresh;
+
+            logger.debug("Evicted {} second level cache entries changed since {}.", numberOfEvictedEntries,
+                    changedSince);
+        });
+
+        logger.debug("Unlocked the batch thread.");
+    }
+
+    @Scheduled(cron = "0 0/15 * * * *")
+    /**
+     * Batch job that runs every fifteen minutes and snapshots the balance of the accounts with many ledger entries
+     * since their latest snapshot, so that a ledger balance never has to sum more than the recent entries
+     */
+    public void compactAccountLedger() {
+        batchLockManager.executeWithLock(LEDGER_COMPACTION_LOCK, () -> {
+            int numberOfSnapshots = ledgerCompactionTimer.record(() -> accountLedgerRepository.compactLedger(
+                    appPropertyConfiguration.getLedgerSnapshotThreshold(),
+                    appPropertyConfiguration.getLedgerCompactionBatchSize()));
+
+            ledgerSnapshotCounter.increment(numberOfSnapshots);
+
+            logger.debug("Created {} account balance snapshots.", numberOfSnapshots);
+        });
+    }
+
+    @Scheduled(cron = "0 30 2 * * *")
+    /**
+     * Batch job that runs every night and keeps the monthly partitions of the account transactions in shape. The
+     * partitions of the coming months are created ahead of time and the partitions older than the retention are
+     * detached, after the accounts with entries in them that no balance snapshot covers have been snapshot
+     */
+    public void maintainAccountTransactionPartitions() {
+        if (!accountTransactionPartitionRepository.isPartitioned()) {
+            logger.debug("The account transactions are not partitioned, skipping partition maintenance.");
+            return;
         }
+
+        batchLockManager.executeWithLock(PARTITION_MAINTENANCE_LOCK, () -> {
+            YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+
+            for (int i = 0; i <= appPropertyConfiguration.getPartitionMonthsAhead(); i++) {
+                logger.debug("Ensured account transaction partition {}.", accountTransactionPartitionRepository
+                        .createPartition(currentMonth.plusMonths(i)));
+            }
+
+            YearMonth oldestRetainedMonth = currentMonth.minusMonths(appPropertyConfiguration
+                    .getPartitionRetentionMonths());
+
+            for (YearMonth month : accountTransactionPartitionRepository.getPartitionMonths()) {
+                if (!month.isBefore(oldestRetainedMonth)) {
+                    continue;
+                }
+
+                int numberOfSnapshots = accountLedgerRepository.snapshotAccounts(
+                        accountTransactionPartitionRepository.getAccountIdsWithEntriesAfterLatestSnapshot(month));
+
+                ledgerSnapshotCounter.increment(numberOfSnapshots);
+                accountTransactionPartitionRepository.detachPartition(month);
+
+                logger.info("Detached account transaction partition of {} after {} account balance snapshots.",
+                        month, numberOfSnapshots);
+            }
+        });
     }
 }
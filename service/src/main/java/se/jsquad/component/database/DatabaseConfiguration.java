@@ -18,6 +18,7 @@ package se.jsquad.component.database;
 
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 
@@ -39,6 +40,10 @@ public class DatabaseConfiguration {
     @NotEmpty
     private String driverclassname;
 
+    @Valid
+    @NotNull
+    private PoolConfiguration pool = new PoolConfiguration();
+
     public String getUrl() {
         return url;
     }
@@ -70,4 +75,12 @@ public class DatabaseConfiguration {
     public void setDriverclassname(String driverclassname) {
         this.driverclassname = driverclassname;
     }
+
+    public PoolConfiguration getPool() {
+        return pool;
+    }
+
+    public void setPool(PoolConfiguration pool) {
+        this.pool = pool;
+    }
 }
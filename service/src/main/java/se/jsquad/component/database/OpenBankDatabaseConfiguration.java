@@ -18,6 +18,29 @@ package se.jsquad.component.database;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @ConfigurationProperties(prefix = "openbank.datasource")
 public class OpenBankDatabaseConfiguration extends DatabaseConfiguration {
+    private List<String> replicaUrls = new ArrayList<>();
+
+    private Duration readYourWritesWindow = Duration.ZERO;
+
+    public List<String> getReplicaUrls() {
+        return replicaUrls;
+    }
+
+    public void setReplicaUrls(List<String> replicaUrls) {
+        this.replicaUrls = replicaUrls;
+    }
+
+    public Duration getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.database;
+
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+@Validated
+public class PoolConfiguration {
+    @NotNull
+    @Min(1)
+    private Integer maximumPoolSize = 10;
+
+    @NotNull
+    @Min(0)
+    private Integer minimumIdle = 10;
+
+    @NotNull
+    private Duration maxLifetime = Duration.ofMinutes(30);
+
+    @NotNull
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    @NotNull
+    private Duration connectionTimeout = Duration.ofSeconds(10);
+
+    @NotNull
+    private Duration validationTimeout = Duration.ofSeconds(5);
+
+    @NotNull
+    private Duration initializationFailTimeout = Duration.ofSeconds(10);
+
+    @NotNull
+    private Duration leakDetectionThreshold = Duration.ZERO;
+
+    private String connectionTestQuery;
+
+    public Integer getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(Integer maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public Integer getMinimumIdle() {
+        return minimumIdle;
+    }
+
+    public void setMinimumIdle(Integer minimumIdle) {
+        this.minimumIdle = minimumIdle;
+    }
+
+    public Duration getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    public void setMaxLifetime(Duration maxLifetime) {
+        this.maxLifetime = maxLifetime;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Duration getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(Duration connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public Duration getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    public void setValidationTimeout(Duration validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    public Duration getInitializationFailTimeout() {
+        return initializationFailTimeout;
+    }
+
+    public void setInitializationFailTimeout(Duration initializationFailTimeout) {
+        this.initializationFailTimeout = initializationFailTimeout;
+    }
+
+    public Duration getLeakDetectionThreshold() {
+        return leakDetectionThreshold;
+    }
+
+    public void setLeakDetectionThreshold(Duration leakDetectionThreshold) {
+        this.leakDetectionThreshold = leakDetectionThreshold;
+    }
+
+    public String getConnectionTestQuery() {
+        return connectionTestQuery;
+    }
+
+    public void setConnectionTestQuery(String connectionTestQuery) {
+        this.connectionTestQuery = connectionTestQuery;
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.database;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.jsquad.entity.Account;
+import se.jsquad.entity.AccountTransaction;
+import se.jsquad.entity.Client;
+import se.jsquad.entity.ClientType;
+import se.jsquad.entity.ForeignClient;
+import se.jsquad.entity.Person;
+import se.jsquad.entity.PremiumClient;
+import se.jsquad.entity.RegularClient;
+
+import javax.inject.Named;
+import javax.persistence.DiscriminatorValue;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Loads clients with their accounts and ledgers into PostgreSQL with the COPY protocol instead of row by row
+ * through JPA. Identifiers are reserved in pooled-lo blocks from the same sequences Hibernate uses, and every chunk
+ * is committed together with a checkpoint of the number of loaded clients so that a failed load can be restarted.
+ */
+@Named
+public class PostgresBulkLoader {
+    static final String CLIENT_SEQUENCE = "client_seq";
+    static final String PERSON_SEQUENCE = "person_seq";
+    static final String CLIENTTYPE_SEQUENCE = "clienttype_seq";
+    static final String ACCOUNT_SEQUENCE = "account_seq";
+    static final String ACCOUNTTRANSACTION_SEQUENCE = "accounttransaction_seq";
+
+    static final String COPY_CLIENT = "COPY client (id) FROM STDIN WITH (FORMAT csv)";
+    static final String COPY_PERSON = "COPY person (id, personidentification, firstname, lastname, mail, client_fk, "
+            + "updated_at) FROM STDIN WITH (FORMAT csv)";
+    static final String COPY_CLIENTTYPE = "COPY clienttype (ctype, id, client_fk, rating, premiumrating, "
+            + "specialoffers, country, updated_at) FROM STDIN WITH (FORMAT csv)";
+    static final String COPY_ACCOUNT = "COPY account (id, account_number, balance, client_id, updated_at, version, "
+            + "ledger_sequence, opening_balance) FROM STDIN WITH (FORMAT csv)";
+    static final String COPY_ACCOUNTTRANSACTION = "COPY accounttransaction (id, message, transactiontype, "
+            + "account_id, amount, occurred_at, sequence_number) FROM STDIN WITH (FORMAT csv)";
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    private Logger logger = LoggerFactory.getLogger(PostgresBulkLoader.class.getName());
+
+    public boolean isSupported(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not connect to the data source of the bulk load.", e);
+        }
+    }
+
+    /**
+     * Loads the clients in chunks of the given size. The clients of a load must be streamed in the same order every
+     * time, a restarted load skips as many clients as its checkpoint says were committed.
+     *
+     * @return the number of clients loaded by this call
+     */
+    public long loadClients(DataSource dataSource, String loadName, Stream<Client> clientStream, int chunkSize) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isWrapperFor(PGConnection.class)) {
+                throw new IllegalStateException("Bulk load " + loadName + " requires a PostgreSQL data source.");
+            }
+
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            boolean autoCommit = connection.getAutoCommit();
+
+            connection.setAutoCommit(false);
+
+            try {
+                return loadClients(connection, copyManager, loadName, clientStream, chunkSize);
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw new IllegalStateException("Bulk load " + loadName + " failed.", e);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Bulk load " + loadName + " failed.", e);
+        }
+    }
+
+    private long loadClients(Connection connection, CopyManager copyManager, String loadName,
+                             Stream<Client> clientStream, int chunkSize) throws SQLException, IOException {
+        long checkpoint = getCheckpoint(connection, loadName);
+        boolean partitioned = isPartitioned(connection);
+        Map<String, Integer> incrementMap = new HashMap<>();
+        Iterator<Client> clientIterator = clientStream.skip(checkpoint).iterator();
+        List<Client> clientList = new ArrayList<>(chunkSize);
+        long numberOfLoadedClients = 0;
+        long start = System.nanoTime();
+
+        if (checkpoint > 0) {
+            logger.info("Restarting bulk load {} after {} loaded clients.", loadName, checkpoint);
+        }
+
+        while (clientIterator.hasNext()) {
+            clientList.add(clientIterator.next());
+
+            if (clientList.size() == chunkSize || !clientIterator.hasNext()) {
+                loadChunk(connection, copyManager, clientList, partitioned, incrementMap);
+
+                numberOfLoadedClients += clientList.size();
+                saveCheckpoint(connection, loadName, checkpoint + numberOfLoadedClients);
+                connection.commit();
+
+                logger.debug("Bulk load {} committed {} clients.", loadName, checkpoint + numberOfLoadedClients);
+                clientList.clear();
+            }
+        }
+
+        logger.info("Bulk load {} loaded {} clients in {} ms.", loadName, numberOfLoadedClients,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        return numberOfLoadedClients;
+    }
+
+    private void loadChunk(Connection connection, CopyManager copyManager, List<Client> clientList,
+                           boolean partitioned, Map<String, Integer> incrementMap) throws SQLException,
+            IOException {
+        int numberOfAccounts = 0;
+        int numberOfAccountTransactions = 0;
+
+        for (Client client : clientList) {
+            numberOfAccounts += client.getAccountSet().size();
+
+            for (Account account : client.getAccountSet()) {
+                numberOfAccountTransactions += account.getAccountTransactionSet().size();
+            }
+        }
+
+        Map<String, PrimitiveIterator.OfLong> idMap = new HashMap<>();
+
+        idMap.put(CLIENT_SEQUENCE, allocateIds(connection, CLIENT_SEQUENCE, clientList.size(), incrementMap));
+        idMap.put(PERSON_SEQUENCE, allocateIds(connection, PERSON_SEQUENCE, clientList.size(), incrementMap));
+        idMap.put(CLIENTTYPE_SEQUENCE, allocateIds(connection, CLIENTTYPE_SEQUENCE, clientList.size(),
+                incrementMap));
+        idMap.put(ACCOUNT_SEQUENCE, allocateIds(connection, ACCOUNT_SEQUENCE, numberOfAccounts, incrementMap));
+        idMap.put(ACCOUNTTRANSACTION_SEQUENCE, allocateIds(connection, ACCOUNTTRANSACTION_SEQUENCE,
+                numberOfAccountTransactions, incrementMap));
+
+        CopyChunk copyChunk = new CopyChunk(sequence -> idMap.get(sequence).nextLong(),
+                Instant.now().truncatedTo(ChronoUnit.MICROS));
+
+        clientList.forEach(copyChunk::add);
+
+        if (partitioned) {
+            for (YearMonth month : copyChunk.getAccountTransactionMonths()) {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(
+                        "SELECT create_accounttransaction_partition(?)")) {
+                    preparedStatement.setDate(1, Date.valueOf(month.atDay(1)));
+                    preparedStatement.execute();
+                }
+            }
+        }
+
+        // Parents before children, the foreign keys are checked row by row during the copy.
+        copyManager.copyIn(COPY_CLIENT, new StringReader(copyChunk.getClientRows()));
+        copyManager.copyIn(COPY_PERSON, new StringReader(copyChunk.getPersonRows()));
+        copyManager.copyIn(COPY_CLIENTTYPE, new StringReader(copyChunk.getClientTypeRows()));
+        copyManager.copyIn(COPY_ACCOUNT, new StringReader(copyChunk.getAccountRows()));
+        copyManager.copyIn(COPY_ACCOUNTTRANSACTION, new StringReader(copyChunk.getAccountTransactionRows()));
+    }
+
+    /**
+     * Reserves identifiers the way the pooled-lo optimizer of Hibernate does, every value of the sequence is the
+     * first of a block of increment identifiers that no other session will use.
+     */
+    private PrimitiveIterator.OfLong allocateIds(Connection connection, String sequence, int count,
+                                                 Map<String, Integer> incrementMap) throws SQLException {
+        if (count == 0) {
+            return LongStream.empty().iterator();
+        }
+
+        if (!incrementMap.containsKey(sequence)) {
+            try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT increment_by FROM "
+                    + "pg_sequences WHERE schemaname = current_schema() AND sequencename = ?")) {
+                preparedStatement.setString(1, sequence);
+
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new IllegalStateException("Sequence " + sequence + " does not exist.");
+                    }
+
+                    incrementMap.put(sequence, resultSet.getInt(1));
+                }
+            }
+        }
+
+        int increment = incrementMap.get(sequence);
+        long[] ids = new long[count];
+        int numberOfIds = 0;
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT nextval(CAST(? AS regclass)) "
+                + "FROM generate_series(1, ?)")) {
+            preparedStatement.setString(1, sequence);
+            preparedStatement.setInt(2, (count + increment - 1) / increment);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    long blockStart = resultSet.getLong(1);
+
+                    for (int i = 0; i < increment && numberOfIds < count; i++) {
+                        ids[numberOfIds++] = blockStart + i;
+                    }
+                }
+            }
+        }
+
+        return LongStream.of(ids).iterator();
+    }
+
+    private boolean isPartitioned(Connection connection) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT EXISTS (SELECT 1 FROM "
+                + "pg_partitioned_table WHERE partrelid = to_regclass('accounttransaction'))");
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+
+    private long getCheckpoint(Connection connection, String loadName) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT loaded_clients FROM "
+                + "bulkloadcheckpoint WHERE load_name = ?")) {
+            preparedStatement.setString(1, loadName);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        }
+    }
+
+    private void saveCheckpoint(Connection connection, String loadName, long loadedClients) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO bulkloadcheckpoint "
+                + "(load_name, loaded_clients, updated_at) VALUES (?, ?, now()) ON CONFLICT (load_name) DO UPDATE "
+                + "SET loaded_clients = excluded.loaded_clients, updated_at = excluded.updated_at")) {
+            preparedStatement.setString(1, loadName);
+            preparedStatement.setLong(2, loadedClients);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * The CSV rows of one chunk, one text per table. Ledgers are numbered and opened the same way as
+     * {@link Account} does it when an account is persisted through JPA.
+     */
+    static class CopyChunk {
+        private final ToLongFunction<String> idSource;
+        private final String updatedAt;
+        private final Instant loadedAt;
+        private final StringBuilder clientRows = new StringBuilder();
+        private final StringBuilder personRows = new StringBuilder();
+        private final StringBuilder clientTypeRows = new StringBuilder();
+        private final StringBuilder accountRows = new StringBuilder();
+        private final StringBuilder accountTransactionRows = new StringBuilder();
+        private final Set<YearMonth> accountTransactionMonthSet = new TreeSet<>();
+
+        CopyChunk(ToLongFunction<String> idSource, Instant loadedAt) {
+            this.idSource = idSource;
+            this.loadedAt = loadedAt;
+            this.updatedAt = formatTimestamp(loadedAt);
+        }
+
+        void add(Client client) {
+            long clientId = idSource.applyAsLong(CLIENT_SEQUENCE);
+
+            appendRow(clientRows, clientId);
+
+            Person person = client.getPerson();
+
+            if (person != null) {
+                appendRow(personRows, idSource.applyAsLong(PERSON_SEQUENCE), person.getPersonIdentification(),
+                        person.getFirstName(), person.getLastName(), person.getMail(), clientId, updatedAt);
+            }
+
+            ClientType clientType = client.getClientType();
+
+            if (clientType != null) {
+                appendRow(clientTypeRows, clientType.getClass().getAnnotation(DiscriminatorValue.class).value(),
+                        idSource.applyAsLong(CLIENTTYPE_SEQUENCE), clientId,
+                        clientType instanceof RegularClient ? ((RegularClient) clientType).getRating() : null,
+                        clientType instanceof PremiumClient ? ((PremiumClient) clientType).getPremiumRating() : null,
+                        clientType instanceof PremiumClient ? ((PremiumClient) clientType).getSpecialOffers() : null,
+                        clientType instanceof ForeignClient ? ((ForeignClient) clientType).getCountry() : null,
+                        updatedAt);
+            }
+
+            for (Account account : client.getAccountSet()) {
+                addAccount(account, clientId);
+            }
+        }
+
+        private void addAccount(Account account, long clientId) {
+            long accountId = idSource.applyAsLong(ACCOUNT_SEQUENCE);
+            long balance = account.getBalance() == null ? 0 : account.getBalance();
+            List<AccountTransaction> accountTransactionList = new ArrayList<>(account.getAccountTransactionSet());
+            long ledgerSequence = 0;
+            long ledgerBalance = 0;
+
+            accountTransactionList.sort(Comparator.comparing(AccountTransaction::getOccurredAt,
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+
+            StringBuilder rows = new StringBuilder();
+
+            for (AccountTransaction accountTransaction : accountTransactionList) {
+                Instant occurredAt = accountTransaction.getOccurredAt() == null ? loadedAt
+                        : accountTransaction.getOccurredAt();
+
+                ledgerBalance += accountTransaction.getSignedAmount();
+                accountTransactionMonthSet.add(YearMonth.from(occurredAt.atZone(ZoneOffset.UTC)));
+
+                appendRow(rows, idSource.applyAsLong(ACCOUNTTRANSACTION_SEQUENCE), accountTransaction.getMessage(),
+                        accountTransaction.getTransactionType() == null ? null
+                                : accountTransaction.getTransactionType().getCode(), accountId,
+                        accountTransaction.getSignedAmount(), formatTimestamp(occurredAt), ++ledgerSequence);
+            }
+
+            appendRow(accountRows, accountId, account.getAccountNumber(), balance, clientId, updatedAt, 0,
+                    ledgerSequence, balance - ledgerBalance);
+            accountTransactionRows.append(rows);
+        }
+
+        String getClientRows() {
+            return clientRows.toString();
+        }
+
+        String getPersonRows() {
+            return personRows.toString();
+        }
+
+        String getClientTypeRows() {
+            return clientTypeRows.toString();
+        }
+
+        String getAccountRows() {
+            return accountRows.toString();
+        }
+
+        String getAccountTransactionRows() {
+            return accountTransactionRows.toString();
+        }
+
+        Set<YearMonth> getAccountTransactionMonths() {
+            return accountTransactionMonthSet;
+        }
+
+        private static String formatTimestamp(Instant instant) {
+            // Hibernate binds an Instant to a timestamp column in UTC, see hibernate.jdbc.time_zone.
+            return LocalDateTime.ofInstant(instant, ZoneOffset.UTC).format(TIMESTAMP_FORMATTER);
+        }
+
+        /**
+         * Appends a CSV row, null is an unquoted empty value and every text is quoted so that an empty text stays
+         * an empty text.
+         */
+        private static void appendRow(StringBuilder rows, Object... values) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    rows.append(',');
+                }
+
+                if (values[i] instanceof String) {
+                    rows.append('"').append(((String) values[i]).replace("\"", "\"\"")).append('"');
+                } else if (values[i] != null) {
+                    rows.append(values[i]);
+                }
+            }
+
+            rows.append('\n');
+        }
+    }
+}
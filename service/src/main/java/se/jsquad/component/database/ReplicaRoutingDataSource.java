@@ -0,0 +1,163 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands out replica connections to read-only transactions and primary connections to everything else. A replica
+ * that can not be reached falls back to the primary, and reads that follow a committed write of the same
+ * correlation id stay on the primary for the read-your-writes window. Must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so the transaction is known when the
+ * connection is fetched.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final int MAX_TRACKED_CORRELATION_IDS = 10000;
+
+    private final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class.getName());
+
+    private final DataSource primaryDataSource;
+    private final List<DataSource> replicaDataSourceList;
+    private final long readYourWritesWindowNanos;
+    private final Supplier<String> correlationIdSupplier;
+    private final AtomicInteger replicaCounter = new AtomicInteger();
+    private final Map<String, Long> lastWriteByCorrelationId = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primaryDataSource, List<DataSource> replicaDataSourceList,
+                                    Duration readYourWritesWindow, Supplier<String> correlationIdSupplier) {
+        this.primaryDataSource = primaryDataSource;
+        this.replicaDataSourceList = List.copyOf(replicaDataSourceList);
+        this.readYourWritesWindowNanos = readYourWritesWindow.toNanos();
+        this.correlationIdSupplier = correlationIdSupplier;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replicaDataSource : replicaDataSourceList) {
+            if (replicaDataSource instanceof AutoCloseable) {
+                ((AutoCloseable) replicaDataSource).close();
+            }
+        }
+    }
+
+    /**
+     * The data source for the current transaction, a replica only for read-only transactions outside the
+     * read-your-writes window.
+     */
+    DataSource determineTargetDataSource() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registerWrite();
+
+            return primaryDataSource;
+        }
+
+        if (replicaDataSourceList.isEmpty() || isWithinReadYourWritesWindow()) {
+            return primaryDataSource;
+        }
+
+        return replicaDataSourceList.get(Math.floorMod(replicaCounter.getAndIncrement(),
+                replicaDataSourceList.size()));
+    }
+
+    private Connection getConnection(ConnectionFactory connectionFactory) throws SQLException {
+        DataSource targetDataSource = determineTargetDataSource();
+
+        if (targetDataSource == primaryDataSource) {
+            return connectionFactory.getConnection(primaryDataSource);
+        }
+
+        try {
+            return connectionFactory.getConnection(targetDataSource);
+        } catch (SQLException e) {
+            logger.warn("Replica connection failed, falling back to the primary: {}", e.getMessage());
+
+            return connectionFactory.getConnection(primaryDataSource);
+        }
+    }
+
+    private boolean isWithinReadYourWritesWindow() {
+        if (readYourWritesWindowNanos <= 0) {
+            return false;
+        }
+
+        Long lastWrite = lastWriteByCorrelationId.get(correlationIdSupplier.get());
+
+        return lastWrite != null && System.nanoTime() - lastWrite < readYourWritesWindowNanos;
+    }
+
+    private void registerWrite() {
+        if (readYourWritesWindowNanos <= 0) {
+            return;
+        }
+
+        String correlationId = correlationIdSupplier.get();
+
+        if (correlationId == null || correlationId.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordWrite(correlationId);
+                }
+            });
+        } else {
+            recordWrite(correlationId);
+        }
+    }
+
+    private void recordWrite(String correlationId) {
+        long now = System.nanoTime();
+
+        if (lastWriteByCorrelationId.size() >= MAX_TRACKED_CORRELATION_IDS) {
+            lastWriteByCorrelationId.values().removeIf(lastWrite -> now - lastWrite >= readYourWritesWindowNanos);
+        }
+
+        lastWriteByCorrelationId.put(correlationId, now);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionFactory {
+        Connection getConnection(DataSource dataSource) throws SQLException;
+    }
+}
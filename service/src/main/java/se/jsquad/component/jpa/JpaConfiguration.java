@@ -18,8 +18,11 @@ package se.jsquad.component.jpa;
 
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.util.HashMap;
+import java.util.Map;
 
 @Validated
 public class JpaConfiguration {
@@ -36,6 +39,17 @@ public class JpaConfiguration {
 
     private String cacheRegionFactory;
 
+    private String queryCache;
+
+    private String generateStatistics;
+
+    private String jdbcBatchSize;
+
+    private String sequenceAllocationSize;
+
+    @Valid
+    private Map<String, CacheRegionConfiguration> cacheRegions = new HashMap<>();
+
     public String getDatabasePlatform() {
         return databasePlatform;
     }
@@ -75,4 +89,44 @@ public class JpaConfiguration {
     public void setCacheRegionFactory(String cacheRegionFactory) {
         this.cacheRegionFactory = cacheRegionFactory;
     }
+
+    public String getQueryCache() {
+        return queryCache;
+    }
+
+    public void setQueryCache(String queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    public String getGenerateStatistics() {
+        return generateStatistics;
+    }
+
+    public void setGenerateStatistics(String generateStatistics) {
+        this.generateStatistics = generateStatistics;
+    }
+
+    public String getJdbcBatchSize() {
+        return jdbcBatchSize;
+    }
+
+    public void setJdbcBatchSize(String jdbcBatchSize) {
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    public String getSequenceAllocationSize() {
+        return sequenceAllocationSize;
+    }
+
+    public void setSequenceAllocationSize(String sequenceAllocationSize) {
+        this.sequenceAllocationSize = sequenceAllocationSize;
+    }
+
+    public Map<String, CacheRegionConfiguration> getCacheRegions() {
+        return cacheRegions;
+    }
+
+    public void setCacheRegions(Map<String, CacheRegionConfiguration> cacheRegions) {
+        this.cacheRegions = cacheRegions;
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.jpa;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Counts completed transactions per persistence unit, split by read-only and read-write mode and by outcome.
+ */
+public class MeteredJpaTransactionManager extends JpaTransactionManager {
+    private final String persistenceUnit;
+    private final transient ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    public MeteredJpaTransactionManager(EntityManagerFactory entityManagerFactory, String persistenceUnit,
+                                        ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        super(entityManagerFactory);
+        this.persistenceUnit = persistenceUnit;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        super.doCommit(status);
+        count(status, "commit");
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        try {
+            super.doRollback(status);
+        } finally {
+            count(status, "rollback");
+        }
+    }
+
+    private void count(DefaultTransactionStatus status, String outcome) {
+        // Resolved per call since the registry depends on the data sources behind this transaction manager.
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+
+        if (meterRegistry != null) {
+            Counter.builder("openbank.transactions")
+                    .description("Completed transactions by mode and outcome")
+                    .tag("persistenceUnit", persistenceUnit)
+                    .tag("mode", status.isReadOnly() ? "read-only" : "read-write")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+}
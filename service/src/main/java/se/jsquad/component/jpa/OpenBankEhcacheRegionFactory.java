@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.jpa;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.PersistenceConfiguration;
+import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.ehcache.internal.EhcacheRegionFactory;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Ehcache region factory that sizes each second-level cache region from the openbank.cache.region settings.
+ */
+public class OpenBankEhcacheRegionFactory extends EhcacheRegionFactory {
+    public static final String REGION_PREFIX = "openbank.cache.region.";
+    public static final String MAX_ENTRIES = ".max_entries";
+    public static final String TIME_TO_LIVE_SECONDS = ".time_to_live_seconds";
+
+    private Map configValues = Collections.emptyMap();
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+        this.configValues = configValues;
+
+        super.prepareForUse(settings, configValues);
+    }
+
+    @Override
+    protected Ehcache createCache(String regionName) {
+        if (configValues.containsKey(REGION_PREFIX + regionName + MAX_ENTRIES)) {
+            return addCache(new CacheConfiguration(regionName,
+                    ConfigurationHelper.getInt(REGION_PREFIX + regionName + MAX_ENTRIES, configValues, 0))
+                    .eternal(false)
+                    .timeToLiveSeconds(ConfigurationHelper.getLong(REGION_PREFIX + regionName
+                            + TIME_TO_LIVE_SECONDS, configValues, 0))
+                    .memoryStoreEvictionPolicy(MemoryStoreEvictionPolicy.LRU));
+        }
+
+        if (DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME.equals(regionName)) {
+            // An expired table timestamp would let the query cache serve results older than the last write.
+            return addCache(new CacheConfiguration(regionName, 0).eternal(true));
+        }
+
+        return super.createCache(regionName);
+    }
+
+    private Ehcache addCache(CacheConfiguration cacheConfiguration) {
+        Cache cache = new Cache(cacheConfiguration.persistence(new PersistenceConfiguration()
+                .strategy(PersistenceConfiguration.Strategy.NONE)));
+        getCacheManager().addCache(cache);
+
+        return cache;
+    }
+}
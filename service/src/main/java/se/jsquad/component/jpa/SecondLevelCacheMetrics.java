@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.jpa;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.EhCache2Metrics;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import org.hibernate.cache.ehcache.internal.EhcacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import se.jsquad.entity.Client;
+import se.jsquad.entity.SystemProperty;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * Publishes hit, miss, put and eviction metrics for every openbank second-level cache region.
+ */
+@Component
+public class SecondLevelCacheMetrics {
+    private static final List<String> QUERY_CACHE_REGION_LIST = List.of(Client.ID_LOOKUP_CACHE_REGION,
+            SystemProperty.LOOKUP_CACHE_REGION);
+
+    public SecondLevelCacheMetrics(@Qualifier("entityManagerFactoryOpenBank")
+                                           EntityManagerFactory entityManagerFactory,
+                                   MeterRegistry meterRegistry) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        RegionFactory regionFactory = sessionFactory.getCache().getRegionFactory();
+
+        if (sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled()) {
+            // Named query regions are otherwise built on first use, after the metrics below are bound.
+            QUERY_CACHE_REGION_LIST.forEach(sessionFactory.getCache()::getQueryResultsCache);
+        }
+
+        if (regionFactory instanceof EhcacheRegionFactory) {
+            CacheManager cacheManager = ((EhcacheRegionFactory) regionFactory).getCacheManager();
+
+            for (String cacheName : cacheManager.getCacheNames()) {
+                EhCache2Metrics.monitor(meterRegistry, cacheManager.getEhcache(cacheName),
+                        Tags.of("persistenceUnit", "openbank"));
+            }
+
+            for (String queryCacheRegion : QUERY_CACHE_REGION_LIST) {
+                Ehcache cache = cacheManager.getEhcache(queryCacheRegion);
+
+                if (cache != null) {
+                    Gauge.builder("openbank.cache.query.hit.ratio", cache, SecondLevelCacheMetrics::getHitRatio)
+                            .description("Share of query cache lookups answered without running the query")
+                            .tags("cache", queryCacheRegion)
+                            .register(meterRegistry);
+                }
+            }
+        }
+    }
+
+    private static double getHitRatio(Ehcache cache) {
+        long hitCount = cache.getStatistics().cacheHitCount();
+        long lookupCount = hitCount + cache.getStatistics().cacheMissCount();
+
+        return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import se.jsquad.exception.BadRequestRuntimeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the elements of a JSON array one at a time so large payloads are never materialized as a whole.
+ */
+@Component
+public class JsonArrayStreamReader {
+    private final ObjectMapper objectMapper;
+
+    public JsonArrayStreamReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public <T> Stream<T> readArray(InputStream inputStream, Class<T> elementClass) {
+        final JsonParser jsonParser;
+
+        try {
+            jsonParser = objectMapper.getFactory().createParser(inputStream);
+
+            if (jsonParser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestRuntimeException("Expected a JSON array of " + elementClass.getSimpleName() + ".");
+            }
+        } catch (IOException e) {
+            throw new BadRequestRuntimeException(e.getMessage(), e);
+        }
+
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED
+                | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (jsonParser.hasToken(JsonToken.END_ARRAY)) {
+                    return false;
+                }
+
+                try {
+                    JsonToken jsonToken = jsonParser.nextToken();
+
+                    if (jsonToken == JsonToken.END_ARRAY) {
+                        return false;
+                    } else if (jsonToken != JsonToken.START_OBJECT) {
+                        throw new BadRequestRuntimeException("Expected a JSON object of "
+                                + elementClass.getSimpleName() + " but found " + jsonToken + ".");
+                    }
+
+                    action.accept(objectMapper.readValue(jsonParser, elementClass));
+
+                    return true;
+                } catch (IOException e) {
+                    throw new BadRequestRuntimeException(e.getMessage(), e);
+                }
+            }
+        }, false).onClose(() -> {
+            try {
+                jsonParser.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.schema;
+
+import se.jsquad.exception.PayloadTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails the read as soon as more than the allowed number of bytes has been consumed, so a body without a
+ * Content-Length is never buffered beyond the limit.
+ */
+class BoundedInputStream extends FilterInputStream {
+    private final long maxBytes;
+    private long readBytes;
+
+    BoundedInputStream(InputStream inputStream, long maxBytes) {
+        super(inputStream);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+
+        if (value != -1) {
+            count(1);
+        }
+
+        return value;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        int numberOfBytes = super.read(bytes, offset, length);
+
+        if (numberOfBytes > 0) {
+            count(numberOfBytes);
+        }
+
+        return numberOfBytes;
+    }
+
+    @Override
+    public long skip(long length) throws IOException {
+        long numberOfBytes = super.skip(length);
+        count(numberOfBytes);
+
+        return numberOfBytes;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long numberOfBytes) {
+        readBytes += numberOfBytes;
+
+        if (readBytes > maxBytes) {
+            throw new PayloadTooLargeException("Request body exceeds the maximum size of " + maxBytes + " bytes.");
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.victools.jsonschema.generator.OptionPreset;
+import com.github.victools.jsonschema.generator.SchemaGenerator;
+import com.github.victools.jsonschema.generator.SchemaGeneratorConfigBuilder;
+import com.github.victools.jsonschema.generator.SchemaVersion;
+import com.github.victools.jsonschema.module.swagger2.Swagger2Module;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import se.jsquad.component.startup.StartupPipeline;
+import se.jsquad.validator.ValidateJsonSchema;
+
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles the JSON schema of every {@link ValidateJsonSchema#xsdClass()} once and keeps it for the lifetime of the
+ * application. Generation of a schema from the XSD class is reflective and far more expensive than validating against
+ * it, so the schemas of the annotated controller parameters are compiled as a startup phase before the first request.
+ * The validation timer of a schema is registered along with it.
+ */
+@Component
+public class JsonSchemaRegistry {
+    private Logger logger;
+    private MeterRegistry meterRegistry;
+    private StartupPipeline startupPipeline;
+    private SchemaGenerator schemaGenerator;
+    private JsonSchemaFactory jsonSchemaFactory;
+    private Map<Class<?>, CompiledJsonSchema> compiledJsonSchemaMap = new ConcurrentHashMap<>();
+
+    public JsonSchemaRegistry(Logger logger, MeterRegistry meterRegistry) {
+        this.logger = logger;
+        this.meterRegistry = meterRegistry;
+
+        schemaGenerator = new SchemaGenerator(new SchemaGeneratorConfigBuilder(SchemaVersion.DRAFT_2019_09,
+                OptionPreset.PLAIN_JSON).with(new Swagger2Module()).build());
+        jsonSchemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V201909);
+
+        Gauge.builder("openbank.json.schema.compiled", compiledJsonSchemaMap, Map::size)
+                .description("Number of compiled JSON schemas in the registry")
+                .register(meterRegistry);
+    }
+
+    @Inject
+    private void setStartupPipeline(StartupPipeline startupPipeline) {
+        this.startupPipeline = startupPipeline;
+    }
+
+    public JsonSchema getJsonSchema(Class<?> xsdClass) {
+        return getCompiledJsonSchema(xsdClass).jsonSchema;
+    }
+
+    public Set<ValidationMessage> validate(Class<?> xsdClass, JsonNode json) {
+        CompiledJsonSchema compiledJsonSchema = getCompiledJsonSchema(xsdClass);
+
+        return compiledJsonSchema.validationTimer.record(() -> compiledJsonSchema.jsonSchema.validate(json));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup(ApplicationReadyEvent applicationReadyEvent) {
+        startupPipeline.startPhase(StartupPipeline.JSON_SCHEMA_PHASE, true, () -> warmUp(applicationReadyEvent
+                .getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class).values().stream()
+                .flatMap(requestMappingHandlerMapping -> requestMappingHandlerMapping.getHandlerMethods().values()
+                        .stream())
+                .collect(Collectors.toList())));
+    }
+
+    /**
+     * Compiles the schemas of the {@link ValidateJsonSchema} parameters of the handler methods.
+     *
+     * @return the number of schemas in the registry
+     */
+    public int warmUp(Collection<HandlerMethod> handlerMethods) {
+        for (HandlerMethod handlerMethod : handlerMethods) {
+            for (MethodParameter methodParameter : handlerMethod.getMethodParameters()) {
+                ValidateJsonSchema validateJsonSchema = methodParameter.getParameterAnnotation(
+                        ValidateJsonSchema.class);
+
+                if (validateJsonSchema != null) {
+                    getJsonSchema(validateJsonSchema.xsdClass());
+                }
+            }
+        }
+
+        logger.info("Compiled {} JSON schemas for request validation.", compiledJsonSchemaMap.size());
+
+        return compiledJsonSchemaMap.size();
+    }
+
+    private CompiledJsonSchema getCompiledJsonSchema(Class<?> xsdClass) {
+        return compiledJsonSchemaMap.computeIfAbsent(xsdClass, this::compileJsonSchema);
+    }
+
+    /**
+     * @throws IllegalStateException if no schema can be generated from the XSD class, a defect of the application
+     * rather than of the request
+     */
+    private CompiledJsonSchema compileJsonSchema(Class<?> xsdClass) {
+        JsonSchema jsonSchema = Timer.builder("openbank.json.schema.compile")
+                .description("Time spent generating and compiling the JSON schema of an XSD class")
+                .tag("schema", xsdClass.getSimpleName())
+                .register(meterRegistry)
+                .record(() -> {
+                    try {
+                        return jsonSchemaFactory.getSchema(schemaGenerator.generateSchema(xsdClass));
+                    } catch (RuntimeException e) {
+                        throw new IllegalStateException("Failed to compile the JSON schema of " + xsdClass
+                                .getName(), e);
+                    }
+                });
+
+        return new CompiledJsonSchema(jsonSchema, Timer.builder("openbank.json.schema.validation")
+                .description("Time spent validating a request body against its JSON schema")
+                .tag("schema", xsdClass.getSimpleName())
+                .register(meterRegistry));
+    }
+
+    private static class CompiledJsonSchema {
+        private final JsonSchema jsonSchema;
+        private final Timer validationTimer;
+
+        CompiledJsonSchema(JsonSchema jsonSchema, Timer validationTimer) {
+            this.jsonSchema = jsonSchema;
+            this.validationTimer = validationTimer;
+        }
+    }
+}
@@ -18,37 +18,35 @@ package se.jsquad.component.schema;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.victools.jsonschema.generator.OptionPreset;
-import com.github.victools.jsonschema.generator.SchemaGenerator;
-import com.github.victools.jsonschema.generator.SchemaGeneratorConfig;
-import com.github.victools.jsonschema.generator.SchemaGeneratorConfigBuilder;
-import com.github.victools.jsonschema.generator.SchemaVersion;
-import com.github.victools.jsonschema.module.swagger2.Swagger2Module;
-import com.networknt.schema.JsonSchema;
-import com.networknt.schema.JsonSchemaFactory;
-import com.networknt.schema.SpecVersion;
 import com.networknt.schema.ValidationMessage;
 import org.springframework.core.MethodParameter;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
 import se.jsquad.exception.BadRequestRuntimeException;
+import se.jsquad.exception.PayloadTooLargeException;
 import se.jsquad.validator.ValidateJsonSchema;
 
 import javax.servlet.http.HttpServletRequest;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.Set;
 
+/**
+ * Parses the request body straight from the servlet input stream into a single tree that is both validated and bound,
+ * so a payload is never copied into an intermediate string. Bodies larger than the configured maximum are rejected
+ * from the Content-Length header before reading, or as soon as the limit is passed when the length is unknown.
+ */
 public class JsonSchemaValidatingArgumentResolver implements HandlerMethodArgumentResolver {
     private final ObjectMapper objectMapper;
+    private final JsonSchemaRegistry jsonSchemaRegistry;
+    private final long maxBodyBytes;
     
-    public JsonSchemaValidatingArgumentResolver(ObjectMapper objectMapper) {
+    public JsonSchemaValidatingArgumentResolver(ObjectMapper objectMapper, JsonSchemaRegistry jsonSchemaRegistry,
+                                                long maxBodyBytes) {
         this.objectMapper = objectMapper;
+        this.jsonSchemaRegistry = jsonSchemaRegistry;
+        this.maxBodyBytes = maxBodyBytes;
     }
     
     @Override
@@ -65,17 +63,9 @@ public class JsonSchemaValidatingArgumentResolver implements HandlerMethodArgume
         final ValidateJsonSchema validateJsonSchema = methodParameter.getParameterAnnotation(ValidateJsonSchema.class);
         
         if (validateJsonSchema != null) {
-            Swagger2Module swagger2Module = new Swagger2Module();
-            SchemaGeneratorConfigBuilder schemaGeneratorConfigBuilder = new SchemaGeneratorConfigBuilder(SchemaVersion
-                .DRAFT_2019_09, OptionPreset.PLAIN_JSON);
-            SchemaGeneratorConfig schemaGeneratorConfig = schemaGeneratorConfigBuilder.with(swagger2Module).build();
-            SchemaGenerator schemaGenerator = new SchemaGenerator(schemaGeneratorConfig);
-            JsonNode json = objectMapper.readTree(getJsonPayload(nativeWebRequest));
-    
-            JsonSchema jsonSchema = getJsonSchema(schemaGenerator.generateSchema(Class.forName(validateJsonSchema
-                .xsdClass().getName())).toString());
-            
-            Set<ValidationMessage> validationMessages = jsonSchema.validate(json);
+            JsonNode json = readJsonPayload(nativeWebRequest);
+            Set<ValidationMessage> validationMessages = jsonSchemaRegistry.validate(validateJsonSchema.xsdClass(),
+                json);
             
             if (validationMessages.isEmpty()) {
                 return objectMapper.treeToValue(json, methodParameter.getParameterType());
@@ -87,18 +77,14 @@ public class JsonSchemaValidatingArgumentResolver implements HandlerMethodArgume
         throw new BadRequestRuntimeException(validationResultMessage);
     }
     
-    private String getJsonPayload(NativeWebRequest nativeWebRequest) throws IOException {
+    private JsonNode readJsonPayload(NativeWebRequest nativeWebRequest) throws IOException {
         HttpServletRequest httpServletRequest = nativeWebRequest.getNativeRequest(HttpServletRequest.class);
-        return StreamUtils.copyToString(httpServletRequest.getInputStream(), StandardCharsets.UTF_8);
-    }
-    
-    private JsonSchema getJsonSchema(String schemaJson) {
-        JsonSchemaFactory jsonSchemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V201909);
         
-        try (InputStream schemaStream = new ByteArrayInputStream(schemaJson.getBytes())) {
-            return jsonSchemaFactory.getSchema(schemaStream);
-        } catch (Exception e) {
-            throw new BadRequestRuntimeException(e.getMessage(), e);
+        if (httpServletRequest.getContentLengthLong() > maxBodyBytes) {
+            throw new PayloadTooLargeException("Request body exceeds the maximum size of " + maxBodyBytes
+                + " bytes.");
         }
+        
+        return objectMapper.readTree(new BoundedInputStream(httpServletRequest.getInputStream(), maxBodyBytes));
     }
 }
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.stereotype.Component;
+import se.jsquad.property.AppPropertyConfiguration;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the startup phases, database migrations, persistence unit bootstraps and seeding, in the background instead
+ * of on the thread refreshing the application context. A phase starts when the phases it depends on have finished
+ * and is timed as openbank.startup.phase. As a health indicator of the readiness group the pipeline keeps the
+ * application out of service until every phase required for readiness has finished.
+ */
+@Component
+public class StartupPipeline implements HealthIndicator {
+    public static final String OPENBANK_MIGRATION_PHASE = "openbank-migration";
+    public static final String SECURITY_MIGRATION_PHASE = "security-migration";
+    public static final String OPENBANK_PERSISTENCE_UNIT_PHASE = "openbank-persistence-unit";
+    public static final String SECURITY_PERSISTENCE_UNIT_PHASE = "security-persistence-unit";
+    public static final String OPENBANK_SEED_PHASE = "openbank-seed";
+    public static final String CLIENT_SEED_PHASE = "client-seed";
+    public static final String JSON_SCHEMA_PHASE = "json-schema-warmup";
+
+    private Logger logger = LoggerFactory.getLogger(StartupPipeline.class.getName());
+
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private ExecutorService executorService;
+    private Executor executor;
+    private Map<String, Phase> phaseMap = new ConcurrentHashMap<>();
+
+    public StartupPipeline(AppPropertyConfiguration appPropertyConfiguration,
+                           ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+
+        if (appPropertyConfiguration.getStartupAsync()) {
+            AtomicInteger threadNumber = new AtomicInteger();
+
+            executorService = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "startup-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+
+                return thread;
+            });
+            executor = executorService;
+        } else {
+            executor = Runnable::run;
+        }
+    }
+
+    public CompletableFuture<Void> startPhase(String name, boolean requiredForReadiness, Runnable task,
+                                              String... dependencies) {
+        return submitPhase(name, requiredForReadiness, () -> {
+            task.run();
+
+            return null;
+        }, dependencies);
+    }
+
+    /**
+     * Starts the phase once its dependencies have finished. Without asynchronous startup the phase runs right away on
+     * the calling thread and a failure is thrown from here, as it would have been without the pipeline.
+     */
+    public synchronized <T> CompletableFuture<T> submitPhase(String name, boolean requiredForReadiness,
+                                                             Callable<T> task, String... dependencies) {
+        if (phaseMap.containsKey(name)) {
+            throw new IllegalArgumentException("Startup phase " + name + " has already been started.");
+        }
+
+        CompletableFuture<?>[] dependencyFutures = new CompletableFuture<?>[dependencies.length];
+
+        for (int i = 0; i < dependencies.length; i++) {
+            Phase dependency = phaseMap.get(dependencies[i]);
+
+            if (dependency == null) {
+                throw new IllegalArgumentException("Startup phase " + name + " depends on " + dependencies[i]
+                        + " that has not been started.");
+            }
+
+            dependencyFutures[i] = dependency.future;
+        }
+
+        Phase phase = new Phase(requiredForReadiness);
+
+        CompletableFuture<T> future = CompletableFuture.allOf(dependencyFutures).thenApplyAsync(ignore -> {
+            long start = System.nanoTime();
+            String outcome = "failure";
+
+            try {
+                T result = task.call();
+                outcome = "success";
+
+                return result;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                phase.duration = Duration.ofNanos(System.nanoTime() - start);
+                recordPhase(name, outcome, phase.duration);
+            }
+        }, executor);
+
+        phase.future = future.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                logger.error("Startup phase {} failed.", name, throwable);
+            }
+        });
+        phaseMap.put(name, phase);
+
+        if (executorService == null && future.isCompletedExceptionally()) {
+            awaitPhase(name);
+        }
+
+        return future;
+    }
+
+    /**
+     * An executor for {@link org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean#setBootstrapExecutor}
+     * that bootstraps the persistence unit as a phase of its own, or null to bootstrap it the usual way when the
+     * startup is synchronous.
+     */
+    public AsyncTaskExecutor getPhaseExecutor(String name, boolean requiredForReadiness, String... dependencies) {
+        if (executorService == null) {
+            return null;
+        }
+
+        return new ConcurrentTaskExecutor(executor) {
+            @Override
+            public <T> Future<T> submit(Callable<T> task) {
+                return submitPhase(name, requiredForReadiness, task, dependencies);
+            }
+        };
+    }
+
+    /**
+     * Blocks until the phase has finished and rethrows its failure.
+     */
+    public void awaitPhase(String name) {
+        Phase phase = phaseMap.get(name);
+
+        if (phase == null) {
+            throw new IllegalArgumentException("Startup phase " + name + " has not been started.");
+        }
+
+        try {
+            phase.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for startup phase " + name + ".", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Startup phase " + name + " failed.", e.getCause());
+        }
+    }
+
+    public boolean isStarted(String name) {
+        return phaseMap.containsKey(name);
+    }
+
+    public boolean isReady() {
+        return phaseMap.values().stream().filter(phase -> phase.requiredForReadiness)
+                .allMatch(phase -> phase.future.isDone() && !phase.future.isCompletedExceptionally());
+    }
+
+    public Map<String, Duration> getPhaseDurations() {
+        Map<String, Duration> phaseDurationMap = new LinkedHashMap<>();
+
+        phaseMap.forEach((name, phase) -> {
+            if (phase.duration != null) {
+                phaseDurationMap.put(name, phase.duration);
+            }
+        });
+
+        return phaseDurationMap;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = isReady() ? Health.up() : Health.outOfService();
+
+        phaseMap.forEach((name, phase) -> {
+            Map<String, Object> detailMap = new LinkedHashMap<>();
+
+            detailMap.put("status", !phase.future.isDone() ? "RUNNING" : phase.future.isCompletedExceptionally()
+                    ? "FAILED" : "FINISHED");
+            detailMap.put("requiredForReadiness", phase.requiredForReadiness);
+
+            if (phase.duration != null) {
+                detailMap.put("durationMillis", phase.duration.toMillis());
+            }
+
+            builder.withDetail(name, detailMap);
+        });
+
+        if (phaseMap.values().stream().anyMatch(phase -> phase.requiredForReadiness
+                && phase.future.isCompletedExceptionally())) {
+            builder.down();
+        }
+
+        return builder.build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void recordPhase(String name, String outcome, Duration duration) {
+        logger.info("Startup phase {} finished with {} in {} ms.", name, outcome, duration.toMillis());
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+
+        if (meterRegistry != null) {
+            Timer.builder("openbank.startup.phase")
+                    .description("Time spent in a phase of the application startup")
+                    .tag("phase", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(duration.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static class Phase {
+        private final boolean requiredForReadiness;
+        private volatile CompletableFuture<?> future;
+        private volatile Duration duration;
+
+        private Phase(boolean requiredForReadiness) {
+            this.requiredForReadiness = requiredForReadiness;
+        }
+    }
+}
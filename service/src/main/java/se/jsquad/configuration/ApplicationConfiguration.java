@@ -18,6 +18,8 @@ package se.jsquad.configuration;
 
 
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
@@ -27,9 +29,12 @@ import io.swagger.v3.oas.models.servers.Server;
 import org.apache.activemq.ActiveMQConnectionFactory;
 import org.apache.activemq.broker.BrokerService;
 import org.apache.activemq.command.ActiveMQQueue;
+import org.hibernate.cache.ehcache.ConfigSettings;
+import org.hibernate.cache.ehcache.MissingCacheStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InjectionPoint;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
@@ -44,11 +49,13 @@ import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Scope;
 import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.jms.annotation.EnableJms;
 import org.springframework.jms.connection.SingleConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
@@ -69,10 +76,20 @@ import reactor.netty.http.client.HttpClient;
 import reactor.netty.tcp.TcpClient;
 import se.jsquad.component.database.FlywayDatabaseMigration;
 import se.jsquad.component.database.OpenBankDatabaseConfiguration;
+import se.jsquad.component.database.PoolConfiguration;
+import se.jsquad.component.database.ReplicaRoutingDataSource;
 import se.jsquad.component.database.SecurityDatabaseConfiguration;
+import se.jsquad.component.header.ContextHeader;
+import se.jsquad.component.jpa.CacheRegionConfiguration;
+import se.jsquad.component.jpa.MeteredJpaTransactionManager;
+import se.jsquad.component.jpa.OpenBankEhcacheRegionFactory;
 import se.jsquad.component.jpa.OpenBankJpaConfiguration;
 import se.jsquad.component.jpa.SecurityJpaConfiguration;
+import se.jsquad.component.startup.StartupPipeline;
 import se.jsquad.component.webclient.WorldWebClientConfiguration;
+import se.jsquad.entity.id.PooledSequenceGenerator;
+import se.jsquad.property.AppPropertyConfiguration;
+import se.jsquad.thread.StripedLockManager;
 
 import javax.annotation.PostConstruct;
 import javax.jms.ConnectionFactory;
@@ -81,7 +98,10 @@ import javax.jms.Queue;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import javax.validation.Validator;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 @Configuration
@@ -103,13 +123,19 @@ public class ApplicationConfiguration {
     private OpenBankJpaConfiguration openBankJpaConfiguration;
     private FlywayDatabaseMigration flywayDatabaseMigration;
     private WorldWebClientConfiguration worldWebClientConfiguration;
+    private ContextHeader contextHeader;
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private StartupPipeline startupPipeline;
     
     public ApplicationConfiguration(Environment environment, OpenBankDatabaseConfiguration
             openBankDatabaseConfiguration, SecurityDatabaseConfiguration securityDatabaseConfiguration,
                                     OpenBankJpaConfiguration openBankJpaConfiguration,
                                     SecurityJpaConfiguration securityJpaConfiguration,
                                     FlywayDatabaseMigration flywayDatabaseMigration,
-                                    WorldWebClientConfiguration worldWebClientConfiguration) {
+                                    WorldWebClientConfiguration worldWebClientConfiguration,
+                                    ContextHeader contextHeader,
+                                    ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                    StartupPipeline startupPipeline) {
         this.environment = environment;
         this.openBankDatabaseConfiguration = openBankDatabaseConfiguration;
         this.securityDatabaseConfiguration = securityDatabaseConfiguration;
@@ -117,6 +143,9 @@ public class ApplicationConfiguration {
         this.securityJpaConfiguration = securityJpaConfiguration;
         this.openBankJpaConfiguration = openBankJpaConfiguration;
         this.worldWebClientConfiguration = worldWebClientConfiguration;
+        this.contextHeader = contextHeader;
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.startupPipeline = startupPipeline;
     }
 
     @Bean("logger")
@@ -133,7 +162,25 @@ public class ApplicationConfiguration {
     
     @PostConstruct
     private void initDatabaseMigration() {
-        flywayDatabaseMigration.migrateToDatabase("db/migration/openbank", getOpenBankDataSource());
+        // The configuration can be imported more than once, the migrations only need to be started once.
+        if (startupPipeline.isStarted(StartupPipeline.OPENBANK_MIGRATION_PHASE)) {
+            return;
+        }
+
+        // The data sources are resolved here, singletons must not be created from the startup threads.
+        DataSource openBankDataSource = getOpenBankDataSource();
+        DataSource securityDataSource = getSecurityDataSource();
+
+        startupPipeline.startPhase(StartupPipeline.OPENBANK_MIGRATION_PHASE, true, () ->
+            flywayDatabaseMigration.migrateToDatabase("db/migration/openbank", openBankDataSource));
+
+        // The security schema is normally migrated by the flyway pod, unless its migrations are packaged.
+        if (new ClassPathResource("db/migration/security").exists()) {
+            startupPipeline.startPhase(StartupPipeline.SECURITY_MIGRATION_PHASE, true, () ->
+                flywayDatabaseMigration.migrateToDatabase("db/migration/security", securityDataSource));
+        } else {
+            startupPipeline.startPhase(StartupPipeline.SECURITY_MIGRATION_PHASE, true, () -> { });
+        }
     }
     
     @Bean("openBankDataSource")
@@ -145,16 +192,59 @@ public class ApplicationConfiguration {
             .username(openBankDatabaseConfiguration.getUsername())
             .password(openBankDatabaseConfiguration.getPassword()).build();
     
-        setDataSourceTimeoutProperties(hikariDataSource);
+        setPoolProperties(hikariDataSource, "openbank", openBankDatabaseConfiguration.getPool());
     
         return hikariDataSource;
     }
     
+    @Bean("openBankReplicaRoutingDataSource")
+    public ReplicaRoutingDataSource getOpenBankReplicaRoutingDataSource() {
+        List<DataSource> replicaDataSourceList = new ArrayList<>();
+
+        for (String replicaUrl : openBankDatabaseConfiguration.getReplicaUrls()) {
+            HikariDataSource hikariDataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(openBankDatabaseConfiguration.getDriverclassname())
+                .url(replicaUrl)
+                .username(openBankDatabaseConfiguration.getUsername())
+                .password(openBankDatabaseConfiguration.getPassword()).build();
+
+            setPoolProperties(hikariDataSource, "openbank-replica-" + replicaDataSourceList.size(),
+                openBankDatabaseConfiguration.getPool());
+            hikariDataSource.setReadOnly(true);
+            // An unreachable replica must not stop the application, reads fall back to the primary.
+            hikariDataSource.setInitializationFailTimeout(-1);
+
+            replicaDataSourceList.add(hikariDataSource);
+        }
+
+        return new ReplicaRoutingDataSource(getOpenBankDataSource(), replicaDataSourceList,
+            openBankDatabaseConfiguration.getReadYourWritesWindow(), contextHeader::getCorrelationId);
+    }
+    
+    /**
+     * The data source of the openbank persistence unit. With replicas it routes read-only transactions to them, JDBC
+     * reads through it take part in the JPA transaction and its routing.
+     */
+    @Bean("openBankTransactionalDataSource")
+    public DataSource getOpenBankTransactionalDataSource() {
+        if (openBankDatabaseConfiguration.getReplicaUrls().isEmpty()) {
+            return getOpenBankDataSource();
+        }
+
+        return new LazyConnectionDataSourceProxy(getOpenBankReplicaRoutingDataSource());
+    }
+
     @Bean
     @Qualifier("openBankJdbcTemplate")
     public JdbcTemplate openBankJdbcTemplate() {
         return new JdbcTemplate(getOpenBankDataSource(), true);
     }
+
+    @Bean("openBankTransactionalJdbcTemplate")
+    public JdbcTemplate openBankTransactionalJdbcTemplate() {
+        return new JdbcTemplate(getOpenBankTransactionalDataSource(), true);
+    }
     
     @Bean("securityDataSource")
     public DataSource getSecurityDataSource() {
@@ -165,7 +255,7 @@ public class ApplicationConfiguration {
             .username(securityDatabaseConfiguration.getUsername())
             .password(securityDatabaseConfiguration.getPassword()).build();
     
-        setDataSourceTimeoutProperties(hikariDataSource);
+        setPoolProperties(hikariDataSource, "security", securityDatabaseConfiguration.getPool());
     
         return hikariDataSource;
     }
@@ -183,17 +273,26 @@ public class ApplicationConfiguration {
         LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
         factoryBean.setJpaVendorAdapter(jpaVendorAdapter);
         factoryBean.setPersistenceUnitName(persistenceUnitName);
-        factoryBean.setDataSource(getOpenBankDataSource());
+        factoryBean.setBootstrapExecutor(startupPipeline.getPhaseExecutor(
+                StartupPipeline.OPENBANK_PERSISTENCE_UNIT_PHASE, true, StartupPipeline.OPENBANK_MIGRATION_PHASE));
+
+        factoryBean.setDataSource(getOpenBankTransactionalDataSource());
 
         Properties properties = new Properties();
 
         properties.setProperty("hibernate.dialect", openBankJpaConfiguration.getDatabasePlatform());
         properties.setProperty("hibernate.hbm2ddl.auto", openBankJpaConfiguration.getEntityAction());
+        // The monthly partitions of ACCOUNTTRANSACTION and the bulk loader use UTC wall clock times
+        properties.setProperty("hibernate.jdbc.time_zone", "UTC");
+        // Concurrent transfers update their accounts in primary key order, which keeps them from deadlocking
+        properties.setProperty("hibernate.order_updates", "true");
 
         if (openBankJpaConfiguration.getSecondaryLevelCache() != null
                 && !openBankJpaConfiguration.getSecondaryLevelCache().isEmpty()) {
             properties.setProperty("hibernate.cache.use_second_level_cache",
                     openBankJpaConfiguration.getSecondaryLevelCache());
+            // Transactions persisted on their own would otherwise leave the cached account collection stale
+            properties.setProperty("hibernate.cache.auto_evict_collection_cache", "true");
         }
 
         if (openBankJpaConfiguration.getCacheRegionFactory() != null
@@ -202,12 +301,48 @@ public class ApplicationConfiguration {
                     openBankJpaConfiguration.getCacheRegionFactory());
         }
 
+        if (openBankJpaConfiguration.getQueryCache() != null
+                && !openBankJpaConfiguration.getQueryCache().isEmpty()) {
+            properties.setProperty("hibernate.cache.use_query_cache", openBankJpaConfiguration.getQueryCache());
+        }
+
         if (openBankJpaConfiguration.getDatabaseAction() != null
                 && !openBankJpaConfiguration.getDatabaseAction().isEmpty()) {
             properties.setProperty("javax.persistence.schema-generation.database.action",
                     openBankJpaConfiguration.getDatabaseAction());
         }
 
+        if (openBankJpaConfiguration.getGenerateStatistics() != null
+                && !openBankJpaConfiguration.getGenerateStatistics().isEmpty()) {
+            properties.setProperty("hibernate.generate_statistics",
+                    openBankJpaConfiguration.getGenerateStatistics());
+        }
+
+        if (openBankJpaConfiguration.getJdbcBatchSize() != null
+                && !openBankJpaConfiguration.getJdbcBatchSize().isEmpty()) {
+            properties.setProperty("hibernate.jdbc.batch_size", openBankJpaConfiguration.getJdbcBatchSize());
+            properties.setProperty("hibernate.jdbc.batch_versioned_data", "true");
+            properties.setProperty("hibernate.order_inserts", "true");
+        }
+
+        if (openBankJpaConfiguration.getSequenceAllocationSize() != null
+                && !openBankJpaConfiguration.getSequenceAllocationSize().isEmpty()) {
+            properties.setProperty(PooledSequenceGenerator.ALLOCATION_SIZE_SETTING,
+                    openBankJpaConfiguration.getSequenceAllocationSize());
+        }
+
+        properties.setProperty(ConfigSettings.MISSING_CACHE_STRATEGY,
+                MissingCacheStrategy.CREATE.getExternalRepresentation());
+
+        for (Map.Entry<String, CacheRegionConfiguration> cacheRegion : openBankJpaConfiguration.getCacheRegions()
+                .entrySet()) {
+            properties.setProperty(OpenBankEhcacheRegionFactory.REGION_PREFIX + cacheRegion.getKey()
+                    + OpenBankEhcacheRegionFactory.MAX_ENTRIES, String.valueOf(cacheRegion.getValue().getMaxEntries()));
+            properties.setProperty(OpenBankEhcacheRegionFactory.REGION_PREFIX + cacheRegion.getKey()
+                    + OpenBankEhcacheRegionFactory.TIME_TO_LIVE_SECONDS,
+                    String.valueOf(cacheRegion.getValue().getTimeToLive().getSeconds()));
+        }
+
         factoryBean.setJpaProperties(properties);
 
         return factoryBean;
@@ -221,6 +356,8 @@ public class ApplicationConfiguration {
         factoryBean.setJpaVendorAdapter(jpaVendorAdapter);
         factoryBean.setPersistenceUnitName(persistenceUnitName);
         factoryBean.setDataSource(getSecurityDataSource());
+        factoryBean.setBootstrapExecutor(startupPipeline.getPhaseExecutor(
+                StartupPipeline.SECURITY_PERSISTENCE_UNIT_PHASE, true, StartupPipeline.SECURITY_MIGRATION_PHASE));
 
         Properties properties = new Properties();
 
@@ -245,6 +382,12 @@ public class ApplicationConfiguration {
                     securityJpaConfiguration.getDatabaseAction());
         }
 
+        if (securityJpaConfiguration.getGenerateStatistics() != null
+                && !securityJpaConfiguration.getGenerateStatistics().isEmpty()) {
+            properties.setProperty("hibernate.generate_statistics",
+                    securityJpaConfiguration.getGenerateStatistics());
+        }
+
         factoryBean.setJpaProperties(properties);
 
         return factoryBean;
@@ -258,19 +401,18 @@ public class ApplicationConfiguration {
     @Bean("transactionManagerOpenBank")
     JpaTransactionManager getJpaTransactionManagerOpenBank(@Qualifier("entityManagerFactoryOpenBank")
                                                                    EntityManagerFactory entityManagerFactory) {
-        return getJpaTransactionManager(entityManagerFactory);
+        return getJpaTransactionManager(entityManagerFactory, "openbank");
     }
 
     @Bean("transactionManagerSecurity")
     JpaTransactionManager getJpaTransactionManagerSecurity(@Qualifier("entityManagerFactorySecurity")
                                                                    EntityManagerFactory entityManagerFactory) {
-        return getJpaTransactionManager(entityManagerFactory);
+        return getJpaTransactionManager(entityManagerFactory, "security");
     }
 
-    private JpaTransactionManager getJpaTransactionManager(EntityManagerFactory entityManagerFactory) {
-        JpaTransactionManager jpaTransactionManager = new JpaTransactionManager();
-        jpaTransactionManager.setEntityManagerFactory(entityManagerFactory);
-        return jpaTransactionManager;
+    private JpaTransactionManager getJpaTransactionManager(EntityManagerFactory entityManagerFactory,
+                                                           String persistenceUnit) {
+        return new MeteredJpaTransactionManager(entityManagerFactory, persistenceUnit, meterRegistryProvider);
     }
 
     @Bean("transactionTemplateOpenBank")
@@ -293,6 +435,17 @@ public class ApplicationConfiguration {
         return transactionTemplate;
     }
 
+    @Bean("accountLockManager")
+    StripedLockManager getAccountLockManager(AppPropertyConfiguration appPropertyConfiguration,
+                                             MeterRegistry meterRegistry) {
+        return new StripedLockManager("account", appPropertyConfiguration.getAccountLockStripes(), meterRegistry);
+    }
+
+    @Bean("batchLockManager")
+    StripedLockManager getBatchLockManager(MeterRegistry meterRegistry) {
+        return new StripedLockManager("batch", 1, meterRegistry);
+    }
+
     @Bean("jmsTemplate")
     JmsTemplate getJmsTemplate(ConnectionFactory connectionFactory, Queue queue) {
         JmsTemplate jmsTemplate = new JmsTemplate();
@@ -381,14 +534,29 @@ public class ApplicationConfiguration {
         return new DataSourceHealthIndicator(getSecurityDataSource(), "SELECT 1");
     }
     
-    private void setDataSourceTimeoutProperties(HikariDataSource hikariDataSource) {
-        hikariDataSource.setMaxLifetime(10000);
-        hikariDataSource.setConnectionTimeout(10000);
+    private void setPoolProperties(HikariDataSource hikariDataSource, String poolName,
+                                   PoolConfiguration poolConfiguration) {
+        hikariDataSource.setPoolName(poolName);
+        hikariDataSource.setMaximumPoolSize(poolConfiguration.getMaximumPoolSize());
+        hikariDataSource.setMinimumIdle(poolConfiguration.getMinimumIdle());
+        hikariDataSource.setMaxLifetime(poolConfiguration.getMaxLifetime().toMillis());
+        hikariDataSource.setIdleTimeout(poolConfiguration.getIdleTimeout().toMillis());
+        hikariDataSource.setConnectionTimeout(poolConfiguration.getConnectionTimeout().toMillis());
+        hikariDataSource.setValidationTimeout(poolConfiguration.getValidationTimeout().toMillis());
+        hikariDataSource.setInitializationFailTimeout(poolConfiguration.getInitializationFailTimeout().toMillis());
+        hikariDataSource.setLeakDetectionThreshold(poolConfiguration.getLeakDetectionThreshold().toMillis());
         hikariDataSource.setAllowPoolSuspension(true);
-        hikariDataSource.setInitializationFailTimeout(10000);
-        hikariDataSource.setConnectionTestQuery("SELECT 1");
-        hikariDataSource.setLeakDetectionThreshold(10000);
-        hikariDataSource.setIdleTimeout(10000);
-        hikariDataSource.setValidationTimeout(10000);
+
+        if (poolConfiguration.getConnectionTestQuery() != null
+                && !poolConfiguration.getConnectionTestQuery().isEmpty()) {
+            hikariDataSource.setConnectionTestQuery(poolConfiguration.getConnectionTestQuery());
+        }
+
+        // Registered before the pool starts, Hikari refuses metric trackers once the first connection is taken.
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+
+        if (meterRegistry != null) {
+            hikariDataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        }
     }
 }
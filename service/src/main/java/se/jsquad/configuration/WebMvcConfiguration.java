@@ -21,8 +21,10 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import se.jsquad.component.schema.JsonSchemaRegistry;
 import se.jsquad.component.schema.JsonSchemaValidatingArgumentResolver;
 import se.jsquad.interceptor.RequestHeaderInterceptor;
+import se.jsquad.property.AppPropertyConfiguration;
 
 import java.util.List;
 
@@ -30,11 +32,16 @@ import java.util.List;
 public class WebMvcConfiguration implements WebMvcConfigurer {
     private final RequestHeaderInterceptor requestHeaderInterceptor;
     private final ObjectMapper objectMapper;
+    private final JsonSchemaRegistry jsonSchemaRegistry;
+    private final AppPropertyConfiguration appPropertyConfiguration;
     
     public WebMvcConfiguration(RequestHeaderInterceptor requestHeaderInterceptor,
-                               ObjectMapper objectMapper) {
+                               ObjectMapper objectMapper, JsonSchemaRegistry jsonSchemaRegistry,
+                               AppPropertyConfiguration appPropertyConfiguration) {
         this.requestHeaderInterceptor = requestHeaderInterceptor;
         this.objectMapper = objectMapper;
+        this.jsonSchemaRegistry = jsonSchemaRegistry;
+        this.appPropertyConfiguration = appPropertyConfiguration;
     }
     
     @Override
@@ -44,6 +51,7 @@ public class WebMvcConfiguration implements WebMvcConfigurer {
     
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
-        resolvers.add(new JsonSchemaValidatingArgumentResolver(objectMapper));
+        resolvers.add(new JsonSchemaValidatingArgumentResolver(objectMapper, jsonSchemaRegistry,
+            appPropertyConfiguration.getJsonMaxBodyBytes()));
     }
 }
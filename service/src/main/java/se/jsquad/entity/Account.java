@@ -16,45 +16,101 @@
 
 package se.jsquad.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import se.jsquad.entity.id.PooledSequenceGenerator;
+
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "ACCOUNT")
-@NamedQuery(name = Account.ACCOUNT_ID, query =
-        "SELECT a FROM Account a WHERE a.accountNumber =:" + Account.PARAM_ACCOUNT_NUMBER)
+@Cacheable(true)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Account.CACHE_REGION)
+@Table(name = "ACCOUNT", indexes = {@Index(name = "ACCOUNT_CLIENT_ID_IDX", columnList = "CLIENT_ID"),
+        @Index(name = "ACCOUNT_UPDATED_AT_IDX", columnList = "UPDATED_AT")})
+@NamedQueries({
+        @NamedQuery(name = Account.ACCOUNT_ID, query =
+                "SELECT a FROM Account a WHERE a.accountNumber =:" + Account.PARAM_ACCOUNT_NUMBER),
+        @NamedQuery(name = Account.ACCOUNTS_BY_ACCOUNT_NUMBERS, query = "SELECT a FROM Account a WHERE "
+                + "a.accountNumber IN :" + Account.PARAM_ACCOUNT_NUMBERS + " ORDER BY a.id"),
+        @NamedQuery(name = Account.ACCOUNT_CHANGED_SINCE, query = "SELECT a.id, a.client.id FROM Account a WHERE "
+                + "a.updatedAt > :" + Account.PARAM_CHANGED_SINCE),
+        @NamedQuery(name = Account.ACCOUNTS_DUE_FOR_SNAPSHOT, query = "SELECT a FROM Account a WHERE "
+                + "a.ledgerSequence >= :" + Account.PARAM_SNAPSHOT_THRESHOLD + " AND NOT EXISTS (SELECT s FROM "
+                + "AccountBalanceSnapshot s WHERE s.account = a AND s.sequenceNumber > a.ledgerSequence - :"
+                + Account.PARAM_SNAPSHOT_THRESHOLD + ") ORDER BY a.id")})
 public class Account implements Serializable {
     public static final String ACCOUNT_ID = "ACCOUNT_ID";
     public static final String PARAM_ACCOUNT_NUMBER = "PARAM_ACCOUNT_NUMBER";
+    public static final String ACCOUNTS_BY_ACCOUNT_NUMBERS = "ACCOUNTS_BY_ACCOUNT_NUMBERS";
+    public static final String PARAM_ACCOUNT_NUMBERS = "PARAM_ACCOUNT_NUMBERS";
+    public static final String CACHE_REGION = "account";
+    public static final String ACCOUNT_TRANSACTION_SET_CACHE_REGION = "account-transactions";
+    public static final String ACCOUNT_CHANGED_SINCE = "ACCOUNT_CHANGED_SINCE";
+    public static final String PARAM_CHANGED_SINCE = "PARAM_CHANGED_SINCE";
+    public static final String ACCOUNTS_DUE_FOR_SNAPSHOT = "ACCOUNTS_DUE_FOR_SNAPSHOT";
+    public static final String PARAM_SNAPSHOT_THRESHOLD = "PARAM_SNAPSHOT_THRESHOLD";
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "ACCOUNT_SEQ")
+    @GenericGenerator(name = "ACCOUNT_SEQ", strategy = PooledSequenceGenerator.STRATEGY, parameters =
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "ACCOUNT_SEQ"))
     @Column(name = "ID")
     private Long id;
 
     @Column(name = "BALANCE")
     private Long balance;
 
-    @Column(name = "ACCOUNT_NUMBER")
+    @Column(name = "ACCOUNT_NUMBER", unique = true)
     private String accountNumber;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "CLIENT_ID")
     private Client client;
 
-    @OneToMany(fetch = FetchType.EAGER, cascade = {CascadeType.ALL}, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Account.ACCOUNT_TRANSACTION_SET_CACHE_REGION)
+    @OneToMany(mappedBy = "account", cascade = {CascadeType.ALL}, orphanRemoval = true)
     private Set<AccountTransaction> accountTransactionSet;
 
+    @Column(name = "UPDATED_AT", nullable = false)
+    private Instant updatedAt;
+
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
+    @Column(name = "LEDGER_SEQUENCE", nullable = false)
+    private Long ledgerSequence = 0L;
+
+    @Column(name = "OPENING_BALANCE", nullable = false)
+    private Long openingBalance = 0L;
+
     public Long getId() {
         return id;
     }
@@ -95,4 +151,63 @@ public class Account implements Serializable {
     public void setAccountNumber(String accountNumber) {
         this.accountNumber = accountNumber;
     }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Long getLedgerSequence() {
+        return ledgerSequence;
+    }
+
+    public Long getOpeningBalance() {
+        return openingBalance;
+    }
+
+    /**
+     * Appends the transaction to the ledger of a persisted account and moves the balance by its signed amount. The
+     * transaction must be persisted separately, the transaction set is left uninitialized.
+     */
+    public void appendTransaction(AccountTransaction accountTransaction) {
+        accountTransaction.setAccount(this);
+        accountTransaction.setSequenceNumber(++ledgerSequence);
+        balance += accountTransaction.getSignedAmount();
+    }
+
+    /**
+     * Numbers the transactions of a new account in order of occurrence and records the balance the account had
+     * before them, so that the ledger of an imported account adds up to its balance.
+     */
+    @PrePersist
+    void openLedger() {
+        if (balance == null) {
+            balance = 0L;
+        }
+
+        List<AccountTransaction> accountTransactionList = new ArrayList<>(getAccountTransactionSet());
+        accountTransactionList.sort(Comparator.comparing(AccountTransaction::getOccurredAt,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+
+        long ledgerBalance = 0;
+
+        for (AccountTransaction accountTransaction : accountTransactionList) {
+            if (accountTransaction.getSequenceNumber() == null) {
+                accountTransaction.setSequenceNumber(++ledgerSequence);
+            }
+
+            ledgerBalance += accountTransaction.getSignedAmount();
+        }
+
+        openingBalance = balance - ledgerBalance;
+        markUpdated();
+    }
+
+    @PreUpdate
+    void markUpdated() {
+        updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
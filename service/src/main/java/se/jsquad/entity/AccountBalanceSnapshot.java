@@ -0,0 +1,109 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.entity;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import se.jsquad.entity.id.PooledSequenceGenerator;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+@Entity
+@Immutable
+@Table(name = "ACCOUNTBALANCESNAPSHOT", indexes = {@Index(name = "ACCOUNTBALANCESNAPSHOT_ACCOUNT_SEQUENCE_IDX",
+        columnList = "ACCOUNT_ID, SEQUENCE_NUMBER", unique = true)})
+@NamedQueries({
+        @NamedQuery(name = AccountBalanceSnapshot.LATEST_ACCOUNT_BALANCE_SNAPSHOT, query = "SELECT s FROM "
+                + "AccountBalanceSnapshot s WHERE s.account = :" + AccountBalanceSnapshot.PARAM_ACCOUNT
+                + " ORDER BY s.sequenceNumber DESC")})
+public class AccountBalanceSnapshot implements Serializable {
+    public static final String LATEST_ACCOUNT_BALANCE_SNAPSHOT = "LATEST_ACCOUNT_BALANCE_SNAPSHOT";
+    public static final String PARAM_ACCOUNT = "PARAM_ACCOUNT";
+
+    @Id
+    @GeneratedValue(generator = "ACCOUNTBALANCESNAPSHOT_SEQ")
+    @GenericGenerator(name = "ACCOUNTBALANCESNAPSHOT_SEQ", strategy = PooledSequenceGenerator.STRATEGY, parameters =
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "ACCOUNTBALANCESNAPSHOT_SEQ"))
+    @Column(name = "ID")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ACCOUNT_ID", nullable = false)
+    private Account account;
+
+    @Column(name = "SEQUENCE_NUMBER", nullable = false)
+    private Long sequenceNumber;
+
+    @Column(name = "BALANCE", nullable = false)
+    private Long balance;
+
+    @Column(name = "CREATED_AT", nullable = false)
+    private Instant createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public Long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public void setSequenceNumber(Long sequenceNumber) {
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    public Long getBalance() {
+        return balance;
+    }
+
+    public void setBalance(Long balance) {
+        this.balance = balance;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @PrePersist
+    void markCreated() {
+        createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
@@ -16,32 +16,99 @@
 
 package se.jsquad.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import se.jsquad.entity.converter.TransactionTypeConverter;
+import se.jsquad.entity.id.PooledSequenceGenerator;
+
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
-import javax.persistence.EnumType;
-import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.PrePersist;
 import javax.persistence.Table;
 import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "ACCOUNTTRANSACTION")
+@Immutable
+@Cacheable(true)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = AccountTransaction.CACHE_REGION)
+@Table(name = "ACCOUNTTRANSACTION", indexes = {@Index(name = "ACCOUNTTRANSACTION_ACCOUNT_OCCURRED_AT_IDX",
+        columnList = "ACCOUNT_ID, OCCURRED_AT, ID"), @Index(name = "ACCOUNTTRANSACTION_ACCOUNT_SEQUENCE_IDX",
+        columnList = "ACCOUNT_ID, SEQUENCE_NUMBER, OCCURRED_AT", unique = true)})
+@NamedQueries({
+        @NamedQuery(name = AccountTransaction.ACCOUNT_TRANSACTION_FIRST_PAGE, query = "SELECT t FROM "
+                + "AccountTransaction t WHERE t.account = :" + AccountTransaction.PARAM_ACCOUNT
+                + " ORDER BY t.occurredAt DESC, t.id DESC"),
+        @NamedQuery(name = AccountTransaction.ACCOUNT_TRANSACTION_NEXT_PAGE, query = "SELECT t FROM "
+                + "AccountTransaction t WHERE t.account = :" + AccountTransaction.PARAM_ACCOUNT
+                + " AND t.occurredAt <= :" + AccountTransaction.PARAM_OCCURRED_AT
+                + " AND (t.occurredAt < :" + AccountTransaction.PARAM_OCCURRED_AT
+                + " OR t.id < :" + AccountTransaction.PARAM_ID + ")"
+                + " ORDER BY t.occurredAt DESC, t.id DESC"),
+        @NamedQuery(name = AccountTransaction.ACCOUNT_TRANSACTION_STATEMENT, query = "SELECT t FROM "
+                + "AccountTransaction t WHERE t.account = :" + AccountTransaction.PARAM_ACCOUNT
+                + " AND t.occurredAt >= :" + AccountTransaction.PARAM_OCCURRED_FROM
+                + " AND t.occurredAt < :" + AccountTransaction.PARAM_OCCURRED_TO
+                + " ORDER BY t.occurredAt, t.id"),
+        @NamedQuery(name = AccountTransaction.ACCOUNT_TRANSACTION_LEDGER_SUM, query = "SELECT "
+                + "COALESCE(SUM(t.amount), 0) FROM AccountTransaction t WHERE t.account = :"
+                + AccountTransaction.PARAM_ACCOUNT
+                + " AND t.sequenceNumber > :" + AccountTransaction.PARAM_FROM_SEQUENCE
+                + " AND t.sequenceNumber <= :" + AccountTransaction.PARAM_TO_SEQUENCE)})
 public class AccountTransaction implements Serializable {
+    public static final String ACCOUNT_TRANSACTION_FIRST_PAGE = "ACCOUNT_TRANSACTION_FIRST_PAGE";
+    public static final String ACCOUNT_TRANSACTION_NEXT_PAGE = "ACCOUNT_TRANSACTION_NEXT_PAGE";
+    public static final String PARAM_ACCOUNT = "PARAM_ACCOUNT";
+    public static final String PARAM_OCCURRED_AT = "PARAM_OCCURRED_AT";
+    public static final String PARAM_ID = "PARAM_ID";
+    public static final String ACCOUNT_TRANSACTION_STATEMENT = "ACCOUNT_TRANSACTION_STATEMENT";
+    public static final String PARAM_OCCURRED_FROM = "PARAM_OCCURRED_FROM";
+    public static final String PARAM_OCCURRED_TO = "PARAM_OCCURRED_TO";
+    public static final String ACCOUNT_TRANSACTION_LEDGER_SUM = "ACCOUNT_TRANSACTION_LEDGER_SUM";
+    public static final String PARAM_FROM_SEQUENCE = "PARAM_FROM_SEQUENCE";
+    public static final String PARAM_TO_SEQUENCE = "PARAM_TO_SEQUENCE";
+    public static final String CACHE_REGION = "account-transaction";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "ACCOUNTTRANSACTION_SEQ")
+    @GenericGenerator(name = "ACCOUNTTRANSACTION_SEQ", strategy = PooledSequenceGenerator.STRATEGY, parameters =
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "ACCOUNTTRANSACTION_SEQ"))
     @Column(name = "ID")
     private Long id;
 
     @Column(name = "TRANSACTIONTYPE")
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = TransactionTypeConverter.class)
     private TransactionType transactionType;
 
     @Column(name = "MESSAGE")
     private String message;
 
-    @ManyToOne
+    @Column(name = "AMOUNT", nullable = false)
+    private Long amount = 0L;
+
+    @Column(name = "OCCURRED_AT", nullable = false)
+    private Instant occurredAt;
+
+    @Column(name = "SEQUENCE_NUMBER", nullable = false)
+    private Long sequenceNumber;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ACCOUNT_ID")
     private Account account;
 
     public Long getId() {
@@ -71,4 +138,44 @@ public class AccountTransaction implements Serializable {
     public void setAccount(Account account) {
         this.account = account;
     }
+
+    public Long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Long amount) {
+        this.amount = amount;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(Instant occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public void setSequenceNumber(Long sequenceNumber) {
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    /**
+     * The amount as it is stored in the ledger, negative for withdrawals.
+     */
+    public long getSignedAmount() {
+        return TransactionType.WITHDRAWAL.equals(transactionType) ? -Math.abs(amount) : Math.abs(amount);
+    }
+
+    @PrePersist
+    void appendToLedger() {
+        amount = getSignedAmount();
+
+        if (occurredAt == null) {
+            occurredAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        }
+    }
 }
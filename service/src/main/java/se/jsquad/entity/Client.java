@@ -16,30 +16,72 @@
 
 package se.jsquad.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import se.jsquad.entity.id.PooledSequenceGenerator;
+
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@Cacheable(true)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Client.CACHE_REGION)
 @Table(name = "CLIENT")
-@NamedQuery(name = Client.PERSON_IDENTIFICATION, query = "SELECT c FROM Client c WHERE " +
-        "c.person.personIdentification = :" + Client.PARAM_PERSON_IDENTIFICATION)
+@NamedQueries({
+        @NamedQuery(name = Client.PERSON_IDENTIFICATION, query = "SELECT c FROM Client c WHERE " +
+                "c.person.personIdentification = :" + Client.PARAM_PERSON_IDENTIFICATION),
+        @NamedQuery(name = Client.CLIENT_ID_BY_PERSON_IDENTIFICATION, query = "SELECT c.id FROM Client c WHERE "
+                + "c.person.personIdentification = :" + Client.PARAM_PERSON_IDENTIFICATION, hints = {
+                @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                @QueryHint(name = QueryHints.CACHE_REGION, value = Client.ID_LOOKUP_CACHE_REGION)})
+})
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Client.SUMMARY_GRAPH, attributeNodes = {
+                @NamedAttributeNode("person"),
+                @NamedAttributeNode("clientType")}),
+        @NamedEntityGraph(name = Client.AGGREGATE_GRAPH, attributeNodes = {
+                @NamedAttributeNode("person"),
+                @NamedAttributeNode("clientType"),
+                @NamedAttributeNode(value = "accountSet", subgraph = Client.ACCOUNT_SUBGRAPH)},
+                subgraphs = @NamedSubgraph(name = Client.ACCOUNT_SUBGRAPH, attributeNodes =
+                @NamedAttributeNode("accountTransactionSet")))
+})
 public class Client implements Serializable {
     public static final String PERSON_IDENTIFICATION = "PERSON_IDENTIFICATION";
+    public static final String CLIENT_ID_BY_PERSON_IDENTIFICATION = "CLIENT_ID_BY_PERSON_IDENTIFICATION";
     public static final String PARAM_PERSON_IDENTIFICATION = "personIdentification";
+    public static final String SUMMARY_GRAPH = "Client.summary";
+    public static final String AGGREGATE_GRAPH = "Client.aggregate";
+    public static final String ACCOUNT_SUBGRAPH = "Client.accountSet";
+    public static final String CACHE_REGION = "client";
+    public static final String ACCOUNT_SET_CACHE_REGION = "client-accounts";
+    public static final String ID_LOOKUP_CACHE_REGION = "client-lookup";
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "CLIENT_SEQ")
+    @GenericGenerator(name = "CLIENT_SEQ", strategy = PooledSequenceGenerator.STRATEGY, parameters =
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "CLIENT_SEQ"))
     @Column(name = "ID")
     private Long id;
 
@@ -50,7 +92,8 @@ public class Client implements Serializable {
     @OneToOne(mappedBy = "client", cascade = {CascadeType.ALL}, orphanRemoval = true)
     private ClientType clientType;
 
-    @OneToMany(fetch = FetchType.EAGER, cascade = {CascadeType.ALL}, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Client.ACCOUNT_SET_CACHE_REGION)
+    @OneToMany(mappedBy = "client", cascade = {CascadeType.ALL}, orphanRemoval = true)
     private Set<Account> accountSet;
 
     public Long getId() {
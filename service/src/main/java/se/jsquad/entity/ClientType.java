@@ -16,6 +16,14 @@
 
 package se.jsquad.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import se.jsquad.entity.id.PooledSequenceGenerator;
+
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorColumn;
 import javax.persistence.DiscriminatorType;
@@ -23,21 +31,38 @@ import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
 import javax.persistence.JoinColumn;
+import javax.persistence.NamedQuery;
 import javax.persistence.OneToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Entity
+@Cacheable(true)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ClientType.CACHE_REGION)
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "CTYPE", discriminatorType = DiscriminatorType.STRING)
 @DiscriminatorValue("ROOTCLIENT")
-@Table(name = "CLIENTTYPE")
+@Table(name = "CLIENTTYPE", indexes = {@Index(name = "CLIENTTYPE_CLIENT_FK_IDX", columnList = "CLIENT_FK"),
+        @Index(name = "CLIENTTYPE_UPDATED_AT_IDX", columnList = "UPDATED_AT")})
+@NamedQuery(name = ClientType.CLIENT_TYPE_CHANGED_SINCE, query = "SELECT ct.id FROM ClientType ct WHERE "
+        + "ct.updatedAt > :" + ClientType.PARAM_CHANGED_SINCE)
 public class ClientType implements Serializable {
+    public static final String CACHE_REGION = "client-type";
+    public static final String CLIENT_TYPE_CHANGED_SINCE = "CLIENT_TYPE_CHANGED_SINCE";
+    public static final String PARAM_CHANGED_SINCE = "PARAM_CHANGED_SINCE";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "CLIENTTYPE_SEQ")
+    @GenericGenerator(name = "CLIENTTYPE_SEQ", strategy = PooledSequenceGenerator.STRATEGY, parameters =
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "CLIENTTYPE_SEQ"))
     @Column(name = "ID")
     private Long id;
 
@@ -45,6 +70,9 @@ public class ClientType implements Serializable {
     @JoinColumn(name = "CLIENT_FK")
     private Client client;
 
+    @Column(name = "UPDATED_AT", nullable = false)
+    private Instant updatedAt;
+
     public Long getId() {
         return id;
     }
@@ -56,4 +84,14 @@ public class ClientType implements Serializable {
     public void setClient(Client client) {
         this.client = client;
     }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void markUpdated() {
+        updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
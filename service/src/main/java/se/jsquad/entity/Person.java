@@ -16,31 +16,61 @@
 
 package se.jsquad.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import se.jsquad.entity.converter.PersonIdentificationConverter;
+import se.jsquad.entity.id.PooledSequenceGenerator;
+
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
+import javax.persistence.NamedQuery;
 import javax.persistence.OneToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
 import javax.validation.constraints.Pattern;
 import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Entity
+@Cacheable(true)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Person.CACHE_REGION)
+@Table(name = "PERSON", indexes = {@Index(name = "PERSON_CLIENT_FK_IDX", columnList = "CLIENT_FK"),
+        @Index(name = "PERSON_UPDATED_AT_IDX", columnList = "UPDATED_AT")})
+@NamedQuery(name = Person.PERSON_CHANGED_SINCE, query = "SELECT p.id FROM Person p WHERE p.updatedAt > :"
+        + Person.PARAM_CHANGED_SINCE)
 public class Person implements Serializable {
+    public static final String PERSON_IDENTIFICATION_REGEXP = "\\d{12}";
     public static final String MAIL_REGEXP = "(?:[a-z0-9!#$%&'*+\\/=?^_`{|}~-]+(?:\\.[a-z0-9!#$%&'*+\\/=?^_`{|}~-]+)"
             + "*|\"" +
             "(?:[\\x01-\\x08\\x0b\\x0c\\x0e-\\x1f\\x21\\x23-\\x5b\\x5d-\\x7f]|\\\\[\\x01-\\x09\\x0b\\x0c\\x0e-\\x7f])"
             + "*\")@(?:(?:[a-z0-9](?:[a-z0-9-]*[a-z0-9])?\\.)+[a-z0-9](?:[a-z0-9-]*[a-z0-9])?|\\[(?:(?:25[0-5]|2[0-4]"
             + "[0-9]|[01]?[0-9][0-9]?)\\.){3}(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?|[a-z0-9-]*[a-z0-9]:(?:" +
             "[\\x01-\\x08\\x0b\\x0c\\x0e-\\x1f\\x21-\\x5a\\x53-\\x7f]|\\\\[\\x01-\\x09\\x0b\\x0c\\x0e-\\x7f])+)\\])";
+    public static final String CACHE_REGION = "person";
+    public static final String PERSON_CHANGED_SINCE = "PERSON_CHANGED_SINCE";
+    public static final String PARAM_CHANGED_SINCE = "PARAM_CHANGED_SINCE";
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "PERSON_SEQ")
+    @GenericGenerator(name = "PERSON_SEQ", strategy = PooledSequenceGenerator.STRATEGY, parameters =
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "PERSON_SEQ"))
     @Column(name = "ID")
     private Long id;
 
-    @Pattern(regexp = "\\d{12}")
-    @Column(name = "PERSONIDENTIFICATION")
+    @Pattern(regexp = PERSON_IDENTIFICATION_REGEXP)
+    @Column(name = "PERSONIDENTIFICATION", unique = true)
+    @Convert(converter = PersonIdentificationConverter.class)
     private String personIdentification;
 
     @Pattern(regexp = "^\\D*$")
@@ -59,6 +89,9 @@ public class Person implements Serializable {
     @JoinColumn(name = "CLIENT_FK")
     private Client client;
 
+    @Column(name = "UPDATED_AT", nullable = false)
+    private Instant updatedAt;
+
     public Long getId() {
         return id;
     }
@@ -102,4 +135,14 @@ public class Person implements Serializable {
     public void setMail(String mail) {
         this.mail = mail;
     }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void markUpdated() {
+        updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
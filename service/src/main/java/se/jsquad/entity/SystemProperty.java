@@ -16,24 +16,47 @@
 
 package se.jsquad.entity;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import se.jsquad.entity.id.PooledSequenceGenerator;
+
 import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Entity
 @Cacheable(true)
-@Table(name = "SYSTEMPROPERTY")
-@NamedQuery(name = SystemProperty.FIND_ALL_UNIQUE_SYSTEM_PROPERTIES, query = "SELECT DISTINCT sp FROM SystemProperty"
-        + " as sp")
+@Table(name = "SYSTEMPROPERTY", indexes = {@Index(name = "SYSTEMPROPERTY_UPDATED_AT_IDX", columnList = "UPDATED_AT")})
+@NamedQueries({
+        @NamedQuery(name = SystemProperty.FIND_ALL_UNIQUE_SYSTEM_PROPERTIES, query = "SELECT DISTINCT sp FROM "
+                + "SystemProperty as sp", hints = {
+                @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                @QueryHint(name = QueryHints.CACHE_REGION, value = SystemProperty.LOOKUP_CACHE_REGION)}),
+        @NamedQuery(name = SystemProperty.SYSTEM_PROPERTY_CHANGED_SINCE, query = "SELECT sp.id FROM "
+                + "SystemProperty sp WHERE sp.updatedAt > :" + SystemProperty.PARAM_CHANGED_SINCE)})
 public class SystemProperty {
     public static final String FIND_ALL_UNIQUE_SYSTEM_PROPERTIES = "FIND_ALL_UNIQUE_SYSTEM_PROPERTIES";
+    public static final String SYSTEM_PROPERTY_CHANGED_SINCE = "SYSTEM_PROPERTY_CHANGED_SINCE";
+    public static final String PARAM_CHANGED_SINCE = "PARAM_CHANGED_SINCE";
+    public static final String LOOKUP_CACHE_REGION = "system-property-lookup";
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "SYSTEMPROPERTY_SEQ")
+    @GenericGenerator(name = "SYSTEMPROPERTY_SEQ", strategy = PooledSequenceGenerator.STRATEGY, parameters =
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "SYSTEMPROPERTY_SEQ"))
     @Column(name = "ID")
     private Long id;
 
@@ -43,6 +66,9 @@ public class SystemProperty {
     @Column(name = "VALUE")
     private String value;
 
+    @Column(name = "UPDATED_AT", nullable = false)
+    private Instant updatedAt;
+
     public Long getId() {
         return id;
     }
@@ -62,4 +88,14 @@ public class SystemProperty {
     public void setValue(String value) {
         this.value = value;
     }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void markUpdated() {
+        updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
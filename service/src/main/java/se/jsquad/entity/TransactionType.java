@@ -17,6 +17,26 @@
 package se.jsquad.entity;
 
 public enum TransactionType {
-    DEPOSIT,
-    WITHDRAWAL
+    DEPOSIT((short) 0),
+    WITHDRAWAL((short) 1);
+
+    private final short code;
+
+    TransactionType(short code) {
+        this.code = code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public static TransactionType fromCode(short code) {
+        for (TransactionType transactionType : values()) {
+            if (transactionType.code == code) {
+                return transactionType;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown transaction type code " + code);
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.entity.converter;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores the twelve digit person identification number as a bigint key while keeping it a string in the domain.
+ */
+@Converter
+public class PersonIdentificationConverter implements AttributeConverter<String, Long> {
+    private static final String PERSON_IDENTIFICATION_FORMAT = "%012d";
+
+    @Override
+    public Long convertToDatabaseColumn(String personIdentification) {
+        return personIdentification == null ? null : Long.valueOf(personIdentification);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Long personIdentification) {
+        return personIdentification == null ? null : String.format(PERSON_IDENTIFICATION_FORMAT,
+                personIdentification);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.entity.converter;
+
+import se.jsquad.entity.TransactionType;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+@Converter
+public class TransactionTypeConverter implements AttributeConverter<TransactionType, Short> {
+    @Override
+    public Short convertToDatabaseColumn(TransactionType transactionType) {
+        return transactionType == null ? null : transactionType.getCode();
+    }
+
+    @Override
+    public TransactionType convertToEntityAttribute(Short code) {
+        return code == null ? null : TransactionType.fromCode(code);
+    }
+}
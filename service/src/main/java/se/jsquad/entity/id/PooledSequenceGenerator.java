@@ -0,0 +1,49 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.entity.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Per table sequence generator that hands out identifiers from a pooled-lo block, so a block of inserts only
+ * costs one sequence round trip and can be batched. The block size is read from the
+ * {@value #ALLOCATION_SIZE_SETTING} persistence unit setting and must match the INCREMENT BY of the sequence.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+    public static final String STRATEGY = "se.jsquad.entity.id.PooledSequenceGenerator";
+    public static final String ALLOCATION_SIZE_SETTING = "openbank.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE_SETTING,
+                serviceRegistry.getService(ConfigurationService.class).getSettings(), DEFAULT_ALLOCATION_SIZE);
+
+        params.putIfAbsent(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -20,11 +20,25 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
+/**
+ * A client credential of the X-AUTHORIZATION header. A client can have several rows, which lets a new password be
+ * added before the old one is removed. The password is stored as the Base64 encoded SHA-256 hash of the salt followed
+ * by the UTF-8 bytes of the password.
+ */
 @Entity
-@Table(name = "SECURITY")
+@Table(name = "SECURITY", indexes = {@Index(name = "SECURITY_CLIENT_NAME_IDX", columnList = "CLIENT_NAME")})
+@NamedQueries({
+        @NamedQuery(name = SecurityAccess.FIND_SECURITY_ACCESS_BY_CLIENT_NAMES, query = "SELECT sa FROM "
+                + "SecurityAccess sa WHERE sa.clientName IN :" + SecurityAccess.PARAM_CLIENT_NAMES)})
 public class SecurityAccess {
+    public static final String FIND_SECURITY_ACCESS_BY_CLIENT_NAMES = "FIND_SECURITY_ACCESS_BY_CLIENT_NAMES";
+    public static final String PARAM_CLIENT_NAMES = "PARAM_CLIENT_NAMES";
+
     @Id
     @GeneratedValue
     @Column(name = "ID")
@@ -33,6 +47,15 @@ public class SecurityAccess {
     @Column(name = "SECURITY_CODE")
     private String securityCode;
 
+    @Column(name = "CLIENT_NAME")
+    private String clientName;
+
+    @Column(name = "PASSWORD_SALT")
+    private String passwordSalt;
+
+    @Column(name = "PASSWORD_HASH")
+    private String passwordHash;
+
     public Long getId() {
         return id;
     }
@@ -44,4 +67,28 @@ public class SecurityAccess {
     public void setSecurityCode(String securityCode) {
         this.securityCode = securityCode;
     }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    public void setClientName(String clientName) {
+        this.clientName = clientName;
+    }
+
+    public String getPasswordSalt() {
+        return passwordSalt;
+    }
+
+    public void setPasswordSalt(String passwordSalt) {
+        this.passwordSalt = passwordSalt;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
 }
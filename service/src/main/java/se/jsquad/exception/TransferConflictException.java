@@ -14,23 +14,14 @@
  * limitations under the License.
  */
 
-package se.jsquad.thread;
+package se.jsquad.exception;
 
-public class NumberOfLocks {
-    private NumberOfLocks() {
+public class TransferConflictException extends RuntimeException {
+    public TransferConflictException(String message) {
+        super(message);
     }
 
-    private static int countNumberOfLocks = 0;
-
-    public static int getCountNumberOfLocks() {
-        return countNumberOfLocks;
-    }
-
-    public static void increaseNumberOfLocks() {
-        ++countNumberOfLocks;
-    }
-
-    public static void decreaseNumberOfLocks() {
-        --countNumberOfLocks;
+    public TransferConflictException(String message, Throwable cause) {
+        super(message, cause);
     }
 }
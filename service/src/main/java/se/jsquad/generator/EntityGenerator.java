@@ -18,8 +18,12 @@ package se.jsquad.generator;
 
 import se.jsquad.entity.Client;
 
+import java.time.Instant;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface EntityGenerator {
     Set<Client> generateClientSet();
+
+    Stream<Client> generateClients(long seed, long fromClient, long toClient, Instant historyEnd);
 }
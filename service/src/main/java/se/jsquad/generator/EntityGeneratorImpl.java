@@ -19,21 +19,38 @@ package se.jsquad.generator;
 import se.jsquad.entity.Account;
 import se.jsquad.entity.AccountTransaction;
 import se.jsquad.entity.Client;
+import se.jsquad.entity.ForeignClient;
 import se.jsquad.entity.Person;
 import se.jsquad.entity.PremiumClient;
 import se.jsquad.entity.RegularClient;
 import se.jsquad.entity.TransactionType;
 
 import javax.inject.Named;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
-
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 @Named
 public class EntityGeneratorImpl implements EntityGenerator {
     public static final String SPECIAL_OFFER_YOU_CAN_NOT_REFUSE = "Special offer you can not refuse.";
     public static final String IN_WITHDRAWAL = "500$ in withdrawal";
-
+    public static final String GENERATED_PERSON_IDENTIFICATION_FORMAT = "8%011d";
+    public static final String GENERATED_ACCOUNT_NUMBER_FORMAT = "9%011d%d";
+
+    private static final String[] FIRST_NAMES = {"John", "Alice", "Erik", "Maria", "Lars", "Anna", "Karl", "Emma",
+            "Johan", "Sara"};
+    private static final String[] LAST_NAMES = {"Doe", "Andersson", "Johansson", "Karlsson", "Nilsson", "Eriksson",
+            "Larsson", "Olsson"};
+    private static final String[] COUNTRIES = {"Norway", "Denmark", "Finland", "Germany", "United Kingdom"};
+    private static final long HISTORY_SECONDS = Duration.ofDays(365).getSeconds();
+    private static final int MAX_ACCOUNTS_PER_CLIENT = 5;
+    private static final int MEAN_TRANSACTIONS_PER_ACCOUNT = 20;
+    private static final int MAX_TRANSACTIONS_PER_ACCOUNT = 1000;
+    private static final int MEAN_TRANSACTION_AMOUNT = 250;
 
     @Override
     public Set<Client> generateClientSet() {
@@ -54,6 +71,7 @@ public class EntityGeneratorImpl implements EntityGenerator {
         AccountTransaction accountTransaction = new AccountTransaction();
         accountTransaction.setMessage("500$ in deposit");
         accountTransaction.setTransactionType(TransactionType.DEPOSIT);
+        accountTransaction.setAmount(Long.valueOf(500));
         accountTransaction.setAccount(account);
 
         account.setAccountTransactionSet(new HashSet<>());
@@ -86,6 +104,7 @@ public class EntityGeneratorImpl implements EntityGenerator {
         accountTransaction = new AccountTransaction();
         accountTransaction.setMessage(IN_WITHDRAWAL);
         accountTransaction.setTransactionType(TransactionType.WITHDRAWAL);
+        accountTransaction.setAmount(Long.valueOf(500));
         accountTransaction.setAccount(account);
 
         account.setAccountTransactionSet(new HashSet<>());
@@ -119,6 +138,7 @@ public class EntityGeneratorImpl implements EntityGenerator {
         accountTransaction = new AccountTransaction();
         accountTransaction.setMessage(IN_WITHDRAWAL);
         accountTransaction.setTransactionType(TransactionType.WITHDRAWAL);
+        accountTransaction.setAmount(Long.valueOf(500));
         accountTransaction.setAccount(account);
 
         account.setAccountTransactionSet(new HashSet<>());
@@ -152,6 +172,7 @@ public class EntityGeneratorImpl implements EntityGenerator {
         accountTransaction = new AccountTransaction();
         accountTransaction.setMessage(IN_WITHDRAWAL);
         accountTransaction.setTransactionType(TransactionType.WITHDRAWAL);
+        accountTransaction.setAmount(Long.valueOf(500));
         accountTransaction.setAccount(account);
 
         account.setAccountTransactionSet(new HashSet<>());
@@ -171,4 +192,103 @@ public class EntityGeneratorImpl implements EntityGenerator {
 
         return clientSet;
     }
+
+    /**
+     * Generates the clients with index fromClient inclusive to toClient exclusive. Every client is drawn from a
+     * random generator seeded by the seed and its index only, so a client is the same whichever thread or chunk
+     * generates it. Clients are built lazily while the stream is consumed.
+     */
+    @Override
+    public Stream<Client> generateClients(long seed, long fromClient, long toClient, Instant historyEnd) {
+        return LongStream.range(fromClient, toClient).mapToObj(clientIndex -> generateClient(new SplittableRandom(
+                seed ^ (clientIndex * 0x9E3779B97F4A7C15L)), clientIndex, historyEnd));
+    }
+
+    private Client generateClient(SplittableRandom random, long clientIndex, Instant historyEnd) {
+        Client client = new Client();
+
+        // Roughly 80% regular, 15% premium and 5% foreign clients.
+        int clientType = random.nextInt(100);
+
+        if (clientType < 80) {
+            client.setClientType(new RegularClient());
+            ((RegularClient) client.getClientType()).setRating((long) random.nextInt(1000));
+        } else if (clientType < 95) {
+            client.setClientType(new PremiumClient());
+            ((PremiumClient) client.getClientType()).setPremiumRating((long) random.nextInt(1000, 5000));
+            ((PremiumClient) client.getClientType()).setSpecialOffers(SPECIAL_OFFER_YOU_CAN_NOT_REFUSE);
+        } else {
+            client.setClientType(new ForeignClient());
+            ((ForeignClient) client.getClientType()).setCountry(COUNTRIES[random.nextInt(COUNTRIES.length)]);
+        }
+
+        client.getClientType().setClient(client);
+
+        client.setPerson(new Person());
+        client.getPerson().setClient(client);
+        client.getPerson().setFirstName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+        client.getPerson().setLastName(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        client.getPerson().setPersonIdentification(String.format(GENERATED_PERSON_IDENTIFICATION_FORMAT,
+                clientIndex));
+        client.getPerson().setMail("client" + clientIndex + "@test.se");
+
+        client.setAccountSet(new HashSet<>());
+
+        // Half of the clients have one account, every further account is half as likely.
+        int numberOfAccounts = 1;
+
+        while (numberOfAccounts < MAX_ACCOUNTS_PER_CLIENT && random.nextBoolean()) {
+            numberOfAccounts++;
+        }
+
+        for (int i = 0; i < numberOfAccounts; i++) {
+            client.getAccountSet().add(generateAccount(random, client, String.format(
+                    GENERATED_ACCOUNT_NUMBER_FORMAT, clientIndex, i), historyEnd));
+        }
+
+        return client;
+    }
+
+    private Account generateAccount(SplittableRandom random, Client client, String accountNumber,
+                                    Instant historyEnd) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setClient(client);
+        account.setAccountTransactionSet(new HashSet<>());
+
+        // Transaction counts and amounts are exponentially distributed, most accounts are quiet and a few are busy.
+        int numberOfTransactions = (int) Math.min(MAX_TRANSACTIONS_PER_ACCOUNT, exponential(random,
+                MEAN_TRANSACTIONS_PER_ACCOUNT));
+        long[] occurredAtSeconds = random.longs(numberOfTransactions, 0, HISTORY_SECONDS).sorted().toArray();
+        long balance = random.nextLong(0, 10000);
+
+        for (long occurredAtSecond : occurredAtSeconds) {
+            long amount = 1 + exponential(random, MEAN_TRANSACTION_AMOUNT);
+
+            AccountTransaction accountTransaction = new AccountTransaction();
+            accountTransaction.setAccount(account);
+            accountTransaction.setOccurredAt(historyEnd.minusSeconds(HISTORY_SECONDS - occurredAtSecond));
+
+            if (balance >= amount && random.nextInt(100) < 45) {
+                accountTransaction.setTransactionType(TransactionType.WITHDRAWAL);
+                accountTransaction.setMessage(amount + "$ in withdrawal");
+                balance -= amount;
+            } else {
+                accountTransaction.setTransactionType(TransactionType.DEPOSIT);
+                accountTransaction.setMessage(amount + "$ in deposit");
+                balance += amount;
+            }
+
+            accountTransaction.setAmount(amount);
+            account.getAccountTransactionSet().add(accountTransaction);
+        }
+
+        account.setBalance(balance);
+
+        return account;
+    }
+
+    private static long exponential(SplittableRandom random, double mean) {
+        return (long) (-Math.log(1.0 - random.nextDouble()) * mean);
+    }
 }
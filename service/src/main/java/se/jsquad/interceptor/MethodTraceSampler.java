@@ -0,0 +1,160 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.interceptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import se.jsquad.component.header.ContextHeader;
+import se.jsquad.property.AppPropertyConfiguration;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which method calls are traced. A method is traced when its fully qualified name, the class name followed
+ * by the method name, is within an entry of app.trace.include and not within an entry of app.trace.exclude, where an
+ * entry is a package, class or method name. The decision is made once per class and method. A traced call is sampled
+ * with the probability app.trace.sample.rate, derived from the correlation ID within a request so that all calls of
+ * a request are sampled together, and at random otherwise.
+ */
+@Component
+public class MethodTraceSampler {
+    static final String SAMPLED_ATTRIBUTE = MethodTraceSampler.class.getName() + ".SAMPLED";
+
+    private final ContextHeader contextHeader;
+    private final double sampleRate;
+    private final List<String> includeList;
+    private final List<String> excludeList;
+    private final ClassValue<Map<Method, MethodTrace>> methodTraceClassValue = new ClassValue<>() {
+        @Override
+        protected Map<Method, MethodTrace> computeValue(Class<?> targetClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    public MethodTraceSampler(ContextHeader contextHeader, AppPropertyConfiguration appPropertyConfiguration) {
+        this.contextHeader = contextHeader;
+
+        sampleRate = appPropertyConfiguration.getTraceSampleRate();
+        includeList = parseNameList(appPropertyConfiguration.getTraceInclude());
+        excludeList = parseNameList(appPropertyConfiguration.getTraceExclude());
+    }
+
+    public MethodTrace getMethodTrace(Class<?> targetClass, Method method) {
+        Map<Method, MethodTrace> methodTraceMap = methodTraceClassValue.get(targetClass);
+        MethodTrace methodTrace = methodTraceMap.get(method);
+
+        if (methodTrace == null) {
+            methodTrace = methodTraceMap.computeIfAbsent(method, key -> createMethodTrace(targetClass, key));
+        }
+
+        return methodTrace;
+    }
+
+    public boolean isSampled() {
+        if (sampleRate >= 1) {
+            return true;
+        } else if (sampleRate <= 0) {
+            return false;
+        }
+
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+
+        if (requestAttributes == null) {
+            return ThreadLocalRandom.current().nextDouble() < sampleRate;
+        }
+
+        Boolean sampled = (Boolean) requestAttributes.getAttribute(SAMPLED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+        if (sampled == null) {
+            String correlationId = contextHeader.getCorrelationId();
+            sampled = correlationId.isEmpty() ? ThreadLocalRandom.current().nextDouble() < sampleRate
+                    : isSampled(correlationId);
+            requestAttributes.setAttribute(SAMPLED_ATTRIBUTE, sampled, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        return sampled;
+    }
+
+    boolean isSampled(String correlationId) {
+        int hash = correlationId.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+
+        return (hash & 0x7fffffff) < sampleRate * Integer.MAX_VALUE;
+    }
+
+    private MethodTrace createMethodTrace(Class<?> targetClass, Method method) {
+        String name = targetClass.getName() + "." + method.getName();
+        boolean enabled = isWithin(name, includeList) && !isWithin(name, excludeList);
+
+        return new MethodTrace(LoggerFactory.getLogger(targetClass.getName()), method.getName(), enabled);
+    }
+
+    private static boolean isWithin(String name, List<String> nameList) {
+        for (String entry : nameList) {
+            if (name.equals(entry) || (name.startsWith(entry) && (name.charAt(entry.length()) == '.'
+                    || name.charAt(entry.length()) == '$'))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static List<String> parseNameList(String names) {
+        return Arrays.stream(names.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    public static class MethodTrace {
+        private final Logger logger;
+        private final String methodName;
+        private final boolean enabled;
+
+        MethodTrace(Logger logger, String methodName, boolean enabled) {
+            this.logger = logger;
+            this.methodName = methodName;
+            this.enabled = enabled;
+        }
+
+        public Logger getLogger() {
+            return logger;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+    }
+}
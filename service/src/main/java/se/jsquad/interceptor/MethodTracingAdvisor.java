@@ -0,0 +1,35 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.interceptor;
+
+import org.springframework.aop.aspectj.AspectJExpressionPointcutAdvisor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the {@link MethodTracingInterceptor} to the application classes. It is a plain advisor rather than an
+ * around advice, so untraced calls do not pay for a join point and its signature.
+ */
+@Component
+public class MethodTracingAdvisor extends AspectJExpressionPointcutAdvisor {
+    public MethodTracingAdvisor(MethodTracingInterceptor methodTracingInterceptor) {
+        setExpression("within(se.jsquad..*) " +
+            "&& !within(se.jsquad.component.header.*) " +
+            "&& !within(se.jsquad.interceptor.*) " +
+            "&& !within(se.jsquad.component.jpa.MeteredJpaTransactionManager)");
+        setAdvice(methodTracingInterceptor);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.interceptor;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+import se.jsquad.component.header.ContextHeader;
+
+/**
+ * Logs the entrance and exit of the sampled calls, and their return value when debug is enabled. Calls that are not
+ * traced or not sampled proceed after a cached lookup without allocating, before the logger is asked for its level,
+ * and the log messages are parameterized so the arguments and the return value are only formatted when written.
+ */
+@Component
+public class MethodTracingInterceptor implements MethodInterceptor {
+    private final ContextHeader contextHeader;
+    private final MethodTraceSampler methodTraceSampler;
+
+    public MethodTracingInterceptor(ContextHeader contextHeader, MethodTraceSampler methodTraceSampler) {
+        this.contextHeader = contextHeader;
+        this.methodTraceSampler = methodTraceSampler;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation methodInvocation) throws Throwable {
+        Object target = methodInvocation.getThis();
+        MethodTraceSampler.MethodTrace methodTrace = methodTraceSampler.getMethodTrace(target == null
+                ? methodInvocation.getMethod().getDeclaringClass() : target.getClass(), methodInvocation.getMethod());
+        Logger logger = methodTrace.getLogger();
+
+        if (!methodTrace.isEnabled() || !methodTraceSampler.isSampled() || !logger.isInfoEnabled()) {
+            return methodInvocation.proceed();
+        }
+
+        String basicAuthenticationName = contextHeader.getBasicAuthenticationNameWithLogFormat();
+        String correlationId = contextHeader.getCorrelationIdWithLogFormat();
+
+        logger.info("{}({}{}{})", methodTrace.getMethodName(), basicAuthenticationName, correlationId,
+                new ArgumentsMessage(methodInvocation.getArguments()));
+
+        Object returnValue = methodInvocation.proceed();
+
+        if (logger.isDebugEnabled()) {
+            logger.info("Method {} response({}{},{})", methodTrace.getMethodName(), basicAuthenticationName,
+                    correlationId, new ReturnValueMessage(returnValue));
+        }
+
+        logger.info("Finish method {}({}{})", methodTrace.getMethodName(), basicAuthenticationName, correlationId);
+
+        return returnValue;
+    }
+
+    private static class ArgumentsMessage {
+        private final Object[] arguments;
+
+        ArgumentsMessage(Object[] arguments) {
+            this.arguments = arguments;
+        }
+
+        @Override
+        public String toString() {
+            var argumentsMessage = new StringBuilder();
+
+            for (Object argument : arguments) {
+                argumentsMessage.append(",").append(argument);
+            }
+
+            return argumentsMessage.toString();
+        }
+    }
+
+    private static class ReturnValueMessage {
+        private final Object returnValue;
+
+        ReturnValueMessage(Object returnValue) {
+            this.returnValue = returnValue;
+        }
+
+        @Override
+        public String toString() {
+            if (returnValue == null) {
+                return "null";
+            }
+
+            String value = returnValue.toString();
+
+            if (value.endsWith("@" + Integer.toHexString(returnValue.hashCode()))) {
+                return ReflectionToStringBuilder.toString(returnValue);
+            }
+
+            return value;
+        }
+    }
+}
@@ -22,14 +22,11 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 import se.jsquad.component.header.RequestHeader;
 import se.jsquad.component.header.RequestHeaderController;
-import se.jsquad.exception.BasicAuthMapRuntimeException;
-import se.jsquad.util.Base64Util;
-import se.jsquad.validator.BasicAuthValidator;
+import se.jsquad.validator.CredentialVerifier;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.UUID;
-import java.util.regex.Pattern;
 
 import static java.util.Optional.ofNullable;
 
@@ -39,15 +36,12 @@ public class RequestHeaderInterceptor extends HandlerInterceptorAdapter {
     public static final String CORRELATION_ID_HEADER_NAME = "CORRELATION-ID";
     public static final String X_AUTHORIZATION_HEADER_NAME = "X-AUTHORIZATION";
     
-    private final Base64Util base64Util;
-    private final BasicAuthValidator basicAuthValidator;
+    private final CredentialVerifier credentialVerifier;
     private final RequestHeader requestHeader;
     
-    public RequestHeaderInterceptor(final RequestHeader requestHeader, final Base64Util base64Util,
-                                    final BasicAuthValidator basicAuthValidator) {
+    public RequestHeaderInterceptor(final RequestHeader requestHeader, final CredentialVerifier credentialVerifier) {
         this.requestHeader = requestHeader;
-        this.base64Util = base64Util;
-        this.basicAuthValidator = basicAuthValidator;
+        this.credentialVerifier = credentialVerifier;
     }
     
     @Override
@@ -65,22 +59,8 @@ public class RequestHeaderInterceptor extends HandlerInterceptorAdapter {
     }
     
     private void setBasicAuthNameFromAuthorizationHeader(HttpServletRequest request) {
-        var pattern = Pattern.compile("(\\S+):(\\S+)", Pattern.CASE_INSENSITIVE);
-        var matcher = pattern.matcher(ofNullable(base64Util.decodeEncodedToken(request
-            .getHeader(X_AUTHORIZATION_HEADER_NAME))).orElse(""));
-        
-        if (!matcher.matches()) {
-            throw new BasicAuthMapRuntimeException("The decoded Base64 " + X_AUTHORIZATION_HEADER_NAME + " header " +
-                "value must be of pattern 'name:password'");
-        }
-        
-        if (!basicAuthValidator.doesBasicAuthNameAndPasswordExist(matcher.group(1), matcher.group(2))) {
-            var message = String.format("The client name %s with provided password does not exist",
-                matcher.group(1));
-            throw new BasicAuthMapRuntimeException(message);
-        }
-        
-        requestHeader.setBasicAuthenticationName(matcher.group(1));
+        requestHeader.setBasicAuthenticationName(credentialVerifier.verify(request
+            .getHeader(X_AUTHORIZATION_HEADER_NAME)));
     }
     
     private String getCorrelationId(HttpServletRequest request) {
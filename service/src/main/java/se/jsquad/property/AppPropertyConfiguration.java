@@ -22,4 +22,50 @@ public interface AppPropertyConfiguration {
     String getName();
 
     Integer getBatchSleepTime();
+
+    Integer getImportFlushSize();
+
+    Integer getCacheRefreshOverlapSeconds();
+
+    Integer getTransferMaxAttempts();
+
+    Integer getTransferRetryBackoffMillis();
+
+    Integer getAccountLockStripes();
+
+    Integer getLedgerSnapshotThreshold();
+
+    Integer getLedgerCompactionBatchSize();
+
+    Integer getPartitionMonthsAhead();
+
+    Integer getPartitionRetentionMonths();
+
+    Long getSeedClients();
+
+    Long getSeedRandomSeed();
+
+    Integer getSeedChunkSize();
+
+    Integer getSeedThreads();
+
+    Boolean getStartupAsync();
+
+    Long getJsonMaxBodyBytes();
+
+    Integer getAuthCacheSize();
+
+    Integer getAuthStoreTtlSeconds();
+
+    Integer getAuthStoreNegativeTtlSeconds();
+
+    Integer getAuthStoreNegativeCacheSize();
+
+    Integer getAuthStoreFailureBackoffSeconds();
+
+    Double getTraceSampleRate();
+
+    String getTraceInclude();
+
+    String getTraceExclude();
 }
@@ -32,6 +32,75 @@ public class AppPropertyConfigurationImpl implements AppPropertyConfiguration {
     @Value("${app.batch.sleep.time}")
     private Integer batchSleepTime;
 
+    @Value("${app.import.flush.size}")
+    private Integer importFlushSize;
+
+    @Value("${app.cache.refresh.overlap.seconds}")
+    private Integer cacheRefreshOverlapSeconds;
+
+    @Value("${app.transfer.max.attempts}")
+    private Integer transferMaxAttempts;
+
+    @Value("${app.transfer.retry.backoff.millis}")
+    private Integer transferRetryBackoffMillis;
+
+    @Value("${app.lock.account.stripes}")
+    private Integer accountLockStripes;
+
+    @Value("${app.ledger.snapshot.threshold}")
+    private Integer ledgerSnapshotThreshold;
+
+    @Value("${app.ledger.compaction.batch.size}")
+    private Integer ledgerCompactionBatchSize;
+
+    @Value("${app.partition.months.ahead}")
+    private Integer partitionMonthsAhead;
+
+    @Value("${app.partition.retention.months}")
+    private Integer partitionRetentionMonths;
+
+    @Value("${app.seed.clients}")
+    private Long seedClients;
+
+    @Value("${app.seed.random.seed}")
+    private Long seedRandomSeed;
+
+    @Value("${app.seed.chunk.size}")
+    private Integer seedChunkSize;
+
+    @Value("${app.seed.threads}")
+    private Integer seedThreads;
+
+    @Value("${app.startup.async}")
+    private Boolean startupAsync;
+
+    @Value("${app.json.max.body.bytes}")
+    private Long jsonMaxBodyBytes;
+
+    @Value("${app.auth.cache.size}")
+    private Integer authCacheSize;
+
+    @Value("${app.auth.store.ttl.seconds}")
+    private Integer authStoreTtlSeconds;
+
+    @Value("${app.auth.store.negative.ttl.seconds}")
+    private Integer authStoreNegativeTtlSeconds;
+
+    @Value("${app.auth.store.negative.cache.size}")
+    private Integer authStoreNegativeCacheSize;
+
+    @Value("${app.auth.store.failure.backoff.seconds}")
+    private Integer authStoreFailureBackoffSeconds;
+
+    @Value("${app.trace.sample.rate}")
+    private Double traceSampleRate;
+
+    @Value("${app.trace.include}")
+    private String traceInclude;
+
+    @Value("${app.trace.exclude}")
+    private String traceExclude;
+
     @Override
     public String getVersion() {
         return version;
@@ -46,4 +115,119 @@ public class AppPropertyConfigurationImpl implements AppPropertyConfiguration {
     public Integer getBatchSleepTime() {
         return batchSleepTime;
     }
+
+    @Override
+    public Integer getImportFlushSize() {
+        return importFlushSize;
+    }
+
+    @Override
+    public Integer getCacheRefreshOverlapSeconds() {
+        return cacheRefreshOverlapSeconds;
+    }
+
+    @Override
+    public Integer getTransferMaxAttempts() {
+        return transferMaxAttempts;
+    }
+
+    @Override
+    public Integer getTransferRetryBackoffMillis() {
+        return transferRetryBackoffMillis;
+    }
+
+    @Override
+    public Integer getAccountLockStripes() {
+        return accountLockStripes;
+    }
+
+    @Override
+    public Integer getLedgerSnapshotThreshold() {
+        return ledgerSnapshotThreshold;
+    }
+
+    @Override
+    public Integer getLedgerCompactionBatchSize() {
+        return ledgerCompactionBatchSize;
+    }
+
+    @Override
+    public Integer getPartitionMonthsAhead() {
+        return partitionMonthsAhead;
+    }
+
+    @Override
+    public Integer getPartitionRetentionMonths() {
+        return partitionRetentionMonths;
+    }
+
+    @Override
+    public Long getSeedClients() {
+        return seedClients;
+    }
+
+    @Override
+    public Long getSeedRandomSeed() {
+        return seedRandomSeed;
+    }
+
+    @Override
+    public Integer getSeedChunkSize() {
+        return seedChunkSize;
+    }
+
+    @Override
+    public Integer getSeedThreads() {
+        return seedThreads;
+    }
+
+    @Override
+    public Boolean getStartupAsync() {
+        return startupAsync;
+    }
+
+    @Override
+    public Long getJsonMaxBodyBytes() {
+        return jsonMaxBodyBytes;
+    }
+
+    @Override
+    public Integer getAuthCacheSize() {
+        return authCacheSize;
+    }
+
+    @Override
+    public Integer getAuthStoreTtlSeconds() {
+        return authStoreTtlSeconds;
+    }
+
+    @Override
+    public Integer getAuthStoreNegativeTtlSeconds() {
+        return authStoreNegativeTtlSeconds;
+    }
+
+    @Override
+    public Integer getAuthStoreNegativeCacheSize() {
+        return authStoreNegativeCacheSize;
+    }
+
+    @Override
+    public Integer getAuthStoreFailureBackoffSeconds() {
+        return authStoreFailureBackoffSeconds;
+    }
+
+    @Override
+    public Double getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    @Override
+    public String getTraceInclude() {
+        return traceInclude;
+    }
+
+    @Override
+    public String getTraceExclude() {
+        return traceExclude;
+    }
 }
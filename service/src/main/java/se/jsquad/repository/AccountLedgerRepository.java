@@ -0,0 +1,35 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import se.jsquad.entity.Account;
+import se.jsquad.entity.AccountBalanceSnapshot;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AccountLedgerRepository {
+    long getLedgerBalance(Account account);
+
+    List<Account> getAccountsDueForSnapshot(long snapshotThreshold, int maxResults);
+
+    AccountBalanceSnapshot createSnapshot(Account account);
+
+    int compactLedger(long snapshotThreshold, int maxResults);
+
+    int snapshotAccounts(Collection<Long> accountIds);
+}
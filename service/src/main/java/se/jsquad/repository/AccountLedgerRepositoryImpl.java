@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import se.jsquad.entity.Account;
+import se.jsquad.entity.AccountBalanceSnapshot;
+import se.jsquad.entity.AccountTransaction;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class AccountLedgerRepositoryImpl extends OpenBankPersistenceUnitProducer implements AccountLedgerRepository {
+    /**
+     * The balance according to the ledger, the latest snapshot plus the entries appended after it. Without a
+     * snapshot the ledger starts from the opening balance of the account.
+     */
+    @Override
+    public long getLedgerBalance(Account account) {
+        AccountBalanceSnapshot accountBalanceSnapshot = getLatestSnapshot(account);
+
+        if (accountBalanceSnapshot == null) {
+            return account.getOpeningBalance() + sumLedgerEntries(account, 0, account.getLedgerSequence());
+        }
+
+        return accountBalanceSnapshot.getBalance() + sumLedgerEntries(account, accountBalanceSnapshot
+                .getSequenceNumber(), account.getLedgerSequence());
+    }
+
+    @Override
+    public List<Account> getAccountsDueForSnapshot(long snapshotThreshold, int maxResults) {
+        return getEntityManager().createNamedQuery(Account.ACCOUNTS_DUE_FOR_SNAPSHOT, Account.class)
+                .setParameter(Account.PARAM_SNAPSHOT_THRESHOLD, snapshotThreshold)
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+
+    @Override
+    public AccountBalanceSnapshot createSnapshot(Account account) {
+        AccountBalanceSnapshot accountBalanceSnapshot = new AccountBalanceSnapshot();
+        accountBalanceSnapshot.setAccount(account);
+        accountBalanceSnapshot.setSequenceNumber(account.getLedgerSequence());
+        accountBalanceSnapshot.setBalance(getLedgerBalance(account));
+
+        getEntityManager().persist(accountBalanceSnapshot);
+
+        return accountBalanceSnapshot;
+    }
+
+    /**
+     * Rolls the entries of the accounts with at least the threshold of entries since their latest snapshot into a
+     * new snapshot, at most maxResults accounts per call.
+     */
+    @Override
+    @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED)
+    public int compactLedger(long snapshotThreshold, int maxResults) {
+        List<Account> accountList = getAccountsDueForSnapshot(snapshotThreshold, maxResults);
+
+        for (Account account : accountList) {
+            createSnapshot(account);
+        }
+
+        return accountList.size();
+    }
+
+    @Override
+    @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED)
+    public int snapshotAccounts(Collection<Long> accountIds) {
+        for (Long accountId : accountIds) {
+            createSnapshot(getEntityManager().find(Account.class, accountId));
+        }
+
+        return accountIds.size();
+    }
+
+    private AccountBalanceSnapshot getLatestSnapshot(Account account) {
+        List<AccountBalanceSnapshot> accountBalanceSnapshotList = getEntityManager().createNamedQuery(
+                AccountBalanceSnapshot.LATEST_ACCOUNT_BALANCE_SNAPSHOT, AccountBalanceSnapshot.class)
+                .setParameter(AccountBalanceSnapshot.PARAM_ACCOUNT, account)
+                .setMaxResults(1)
+                .getResultList();
+
+        return accountBalanceSnapshotList.isEmpty() ? null : accountBalanceSnapshotList.get(0);
+    }
+
+    private long sumLedgerEntries(Account account, long fromSequence, long toSequence) {
+        if (fromSequence >= toSequence) {
+            return 0;
+        }
+
+        return getEntityManager().createNamedQuery(AccountTransaction.ACCOUNT_TRANSACTION_LEDGER_SUM, Long.class)
+                .setParameter(AccountTransaction.PARAM_ACCOUNT, account)
+                .setParameter(AccountTransaction.PARAM_FROM_SEQUENCE, fromSequence)
+                .setParameter(AccountTransaction.PARAM_TO_SEQUENCE, toSequence)
+                .getSingleResult();
+    }
+}
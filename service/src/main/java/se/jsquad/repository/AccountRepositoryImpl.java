@@ -0,0 +1,49 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.springframework.stereotype.Repository;
+import se.jsquad.entity.Account;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+
+import javax.persistence.NoResultException;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class AccountRepositoryImpl extends OpenBankPersistenceUnitProducer implements AccountRepository {
+    @Override
+    public Account getAccountByAccountNumber(String accountNumber) {
+        TypedQuery<Account> query = getEntityManager().createNamedQuery(Account.ACCOUNT_ID, Account.class);
+        query.setParameter(Account.PARAM_ACCOUNT_NUMBER, accountNumber);
+
+        try {
+            return query.getSingleResult();
+        } catch (NoResultException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public List<Account> getAccountsByAccountNumbers(Collection<String> accountNumbers) {
+        // Ordered by id so that writers flush their updates, and take the row locks, in the same order
+        return getEntityManager().createNamedQuery(Account.ACCOUNTS_BY_ACCOUNT_NUMBERS, Account.class)
+                .setParameter(Account.PARAM_ACCOUNT_NUMBERS, accountNumbers)
+                .getResultList();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import se.jsquad.entity.AccountTransaction;
+import se.jsquad.exception.BadRequestRuntimeException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position of the last account transaction of a page, encoded as an opaque token for the next page request.
+ */
+public final class AccountTransactionCursor {
+    private static final String SEPARATOR = "|";
+
+    private final Instant occurredAt;
+    private final Long id;
+
+    public AccountTransactionCursor(Instant occurredAt, Long id) {
+        this.occurredAt = occurredAt;
+        this.id = id;
+    }
+
+    public static AccountTransactionCursor of(AccountTransaction accountTransaction) {
+        return new AccountTransactionCursor(accountTransaction.getOccurredAt(), accountTransaction.getId());
+    }
+
+    public static AccountTransactionCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = value.indexOf(SEPARATOR);
+
+            return new AccountTransactionCursor(Instant.parse(value.substring(0, separatorIndex)),
+                    Long.valueOf(value.substring(separatorIndex + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestRuntimeException("Invalid cursor.", e);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((occurredAt + SEPARATOR + id)
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
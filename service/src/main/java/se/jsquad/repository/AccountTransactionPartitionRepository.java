@@ -0,0 +1,32 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface AccountTransactionPartitionRepository {
+    boolean isPartitioned();
+
+    List<YearMonth> getPartitionMonths();
+
+    String createPartition(YearMonth month);
+
+    List<Long> getAccountIdsWithEntriesAfterLatestSnapshot(YearMonth month);
+
+    void detachPartition(YearMonth month);
+}
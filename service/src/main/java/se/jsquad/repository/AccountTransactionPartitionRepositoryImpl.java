@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the monthly range partitions of ACCOUNTTRANSACTION on PostgreSQL. Partitions are named
+ * accounttransaction_pYYYYMM and are created by the create_accounttransaction_partition function of the migration.
+ * The bounds of a partition are the UTC wall clock start of its month and of the next month, occurred_at is written in
+ * UTC. Rows outside every monthly partition are kept in the default partition accounttransaction_default.
+ */
+@Repository
+public class AccountTransactionPartitionRepositoryImpl implements AccountTransactionPartitionRepository {
+    private static final String PARTITION_PREFIX = "accounttransaction_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private JdbcTemplate jdbcTemplate;
+
+    public AccountTransactionPartitionRepositoryImpl(@Qualifier("openBankJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean isPartitioned() {
+        String databaseProductName = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection
+                .getMetaData().getDatabaseProductName());
+
+        return "PostgreSQL".equals(databaseProductName) && jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 "
+                + "FROM pg_partitioned_table WHERE partrelid = to_regclass('accounttransaction'))", Boolean.class);
+    }
+
+    @Override
+    public List<YearMonth> getPartitionMonths() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = to_regclass('accounttransaction') AND c.relname ~ '^" + PARTITION_PREFIX
+                + "[0-9]{6}$' ORDER BY c.relname", String.class).stream()
+                .map(partitionName -> YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()),
+                        PARTITION_SUFFIX_FORMATTER))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String createPartition(YearMonth month) {
+        return jdbcTemplate.queryForObject("SELECT create_accounttransaction_partition(?, ?, ?)", String.class,
+                getPartitionName(month), Timestamp.valueOf(getPartitionStart(month)),
+                Timestamp.valueOf(getPartitionStart(month.plusMonths(1))));
+    }
+
+    /**
+     * The accounts with ledger entries in the partition that no balance snapshot covers yet. Detaching the partition
+     * before these accounts are snapshot would change their ledger balance.
+     */
+    @Override
+    public List<Long> getAccountIdsWithEntriesAfterLatestSnapshot(YearMonth month) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT t.account_id FROM " + getPartitionName(month) + " t WHERE "
+                + "t.sequence_number > COALESCE((SELECT MAX(s.sequence_number) FROM accountbalancesnapshot s WHERE "
+                + "s.account_id = t.account_id), 0)", Long.class);
+    }
+
+    @Override
+    public void detachPartition(YearMonth month) {
+        jdbcTemplate.execute("ALTER TABLE accounttransaction DETACH PARTITION " + getPartitionName(month));
+    }
+
+    static String getPartitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX_FORMATTER);
+    }
+
+    static LocalDateTime getPartitionStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.springframework.stereotype.Repository;
+import se.jsquad.entity.Account;
+import se.jsquad.entity.AccountTransaction;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+
+import javax.persistence.TypedQuery;
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public class AccountTransactionRepositoryImpl extends OpenBankPersistenceUnitProducer
+        implements AccountTransactionRepository {
+    @Override
+    public List<AccountTransaction> getAccountTransactionPage(Account account, AccountTransactionCursor cursor,
+                                                              int maxResults) {
+        final TypedQuery<AccountTransaction> query;
+
+        if (cursor == null) {
+            query = getEntityManager().createNamedQuery(AccountTransaction.ACCOUNT_TRANSACTION_FIRST_PAGE,
+                    AccountTransaction.class);
+        } else {
+            query = getEntityManager().createNamedQuery(AccountTransaction.ACCOUNT_TRANSACTION_NEXT_PAGE,
+                    AccountTransaction.class);
+            query.setParameter(AccountTransaction.PARAM_OCCURRED_AT, cursor.getOccurredAt());
+            query.setParameter(AccountTransaction.PARAM_ID, cursor.getId());
+        }
+
+        query.setParameter(AccountTransaction.PARAM_ACCOUNT, account);
+        query.setMaxResults(maxResults);
+
+        return query.getResultList();
+    }
+
+    /**
+     * Bounds the transactions by the partition key on both ends, so that only the partitions of the period are read.
+     */
+    @Override
+    public List<AccountTransaction> getAccountTransactionsBetween(Account account, Instant occurredFrom,
+                                                                  Instant occurredTo) {
+        return getEntityManager().createNamedQuery(AccountTransaction.ACCOUNT_TRANSACTION_STATEMENT,
+                AccountTransaction.class)
+                .setParameter(AccountTransaction.PARAM_ACCOUNT, account)
+                .setParameter(AccountTransaction.PARAM_OCCURRED_FROM, occurredFrom)
+                .setParameter(AccountTransaction.PARAM_OCCURRED_TO, occurredTo)
+                .getResultList();
+    }
+
+    @Override
+    public void persistAccountTransaction(AccountTransaction accountTransaction) {
+        getEntityManager().persist(accountTransaction);
+    }
+}
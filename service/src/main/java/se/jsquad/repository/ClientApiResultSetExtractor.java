@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import se.jsquad.api.client.AccountApi;
+import se.jsquad.api.client.AccountTransactionApi;
+import se.jsquad.api.client.ClientApi;
+import se.jsquad.api.client.ClientTypeApi;
+import se.jsquad.api.client.PersonApi;
+import se.jsquad.api.client.TransactionTypeApi;
+import se.jsquad.api.client.TypeApi;
+import se.jsquad.entity.TransactionType;
+import se.jsquad.entity.converter.PersonIdentificationConverter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Builds a {@link ClientApi} from the rows of {@link JdbcClientRepositoryImpl#CLIENT_AGGREGATE_QUERY} while they are
+ * streamed, relying on the rows being ordered by account.
+ */
+class ClientApiResultSetExtractor implements ResultSetExtractor<ClientApi> {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final PersonIdentificationConverter PERSON_IDENTIFICATION_CONVERTER =
+            new PersonIdentificationConverter();
+
+    @Override
+    public ClientApi extractData(ResultSet resultSet) throws SQLException {
+        ClientApi clientApi = null;
+        AccountApi accountApi = null;
+        long accountId = 0;
+
+        while (resultSet.next()) {
+            if (clientApi == null) {
+                clientApi = new ClientApi();
+                clientApi.setPerson(mapPerson(resultSet));
+                clientApi.setClientType(mapClientType(resultSet));
+            }
+
+            long rowAccountId = resultSet.getLong("ACCOUNT_ID");
+
+            if (resultSet.wasNull()) {
+                continue;
+            }
+
+            if (accountApi == null || rowAccountId != accountId) {
+                accountApi = new AccountApi();
+                accountApi.setAccountNumber(resultSet.getString("ACCOUNT_NUMBER"));
+                accountApi.setBalance(resultSet.getLong("BALANCE"));
+                accountId = rowAccountId;
+
+                clientApi.getAccountList().add(accountApi);
+            }
+
+            short transactionType = resultSet.getShort("TRANSACTIONTYPE");
+
+            if (!resultSet.wasNull()) {
+                accountApi.getAccountTransactionList().add(mapAccountTransaction(resultSet, transactionType));
+            }
+        }
+
+        return clientApi;
+    }
+
+    private PersonApi mapPerson(ResultSet resultSet) throws SQLException {
+        PersonApi personApi = new PersonApi();
+
+        personApi.setPersonIdentification(PERSON_IDENTIFICATION_CONVERTER.convertToEntityAttribute(
+                resultSet.getLong("PERSONIDENTIFICATION")));
+        personApi.setFirstName(resultSet.getString("FIRSTNAME"));
+        personApi.setLastName(resultSet.getString("LASTNAME"));
+        personApi.setMail(resultSet.getString("MAIL"));
+
+        return personApi;
+    }
+
+    private ClientTypeApi mapClientType(ResultSet resultSet) throws SQLException {
+        ClientTypeApi clientTypeApi = new ClientTypeApi();
+        String clientType = resultSet.getString("CTYPE");
+
+        if ("REGULAR".equals(clientType)) {
+            clientTypeApi.setRating(resultSet.getLong("RATING"));
+            clientTypeApi.setType(TypeApi.REGULAR);
+        } else if ("PREMIUM".equals(clientType)) {
+            clientTypeApi.setPremiumRating(resultSet.getLong("PREMIUMRATING"));
+            clientTypeApi.setSpecialOffers(resultSet.getString("SPECIALOFFERS"));
+            clientTypeApi.setType(TypeApi.PREMIUM);
+        } else {
+            clientTypeApi.setCountry(resultSet.getString("COUNTRY"));
+            clientTypeApi.setType(TypeApi.FOREIGN);
+        }
+
+        return clientTypeApi;
+    }
+
+    private AccountTransactionApi mapAccountTransaction(ResultSet resultSet, short transactionType)
+            throws SQLException {
+        AccountTransactionApi accountTransactionApi = new AccountTransactionApi();
+
+        accountTransactionApi.setTransactionType(TransactionTypeApi.valueOf(TransactionType.fromCode(transactionType)
+                .name()));
+        accountTransactionApi.setMessage(resultSet.getString("MESSAGE"));
+        accountTransactionApi.setAmount(Math.abs(resultSet.getLong("AMOUNT")));
+
+        Timestamp occurredAt = resultSet.getTimestamp("OCCURRED_AT", Calendar.getInstance(UTC));
+
+        if (occurredAt != null) {
+            accountTransactionApi.setOccurredAt(occurredAt.toInstant().toString());
+        }
+
+        return accountTransactionApi;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import se.jsquad.entity.Client;
+
+/**
+ * Fetch plan for a client lookup, backed by a named entity graph on {@link Client}.
+ */
+public enum ClientFetchPlan {
+    SUMMARY(Client.SUMMARY_GRAPH),
+    AGGREGATE(Client.AGGREGATE_GRAPH);
+
+    private final String entityGraphName;
+
+    ClientFetchPlan(String entityGraphName) {
+        this.entityGraphName = entityGraphName;
+    }
+
+    public String getEntityGraphName() {
+        return entityGraphName;
+    }
+}
@@ -16,9 +16,15 @@
 
 package se.jsquad.repository;
 
+import se.jsquad.api.client.ClientApi;
 import se.jsquad.entity.Client;
 
+import java.util.stream.Stream;
+
 public interface ClientRepository {
     Client getClientByPersonIdentification(String personIdentification);
+    Client getClientByPersonIdentification(String personIdentification, ClientFetchPlan clientFetchPlan);
+    ClientApi getClientApiByPersonIdentification(String personIdentification);
     void persistClient(Client client);
+    long persistClients(Stream<Client> clientStream);
 }
@@ -16,22 +16,107 @@
 
 package se.jsquad.repository;
 
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import se.jsquad.adapter.ClientAdapter;
+import se.jsquad.api.client.ClientApi;
 import se.jsquad.entity.Client;
+import se.jsquad.entity.Person;
 import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+import se.jsquad.property.AppPropertyConfiguration;
 
 import javax.persistence.TypedQuery;
+import java.util.Iterator;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 
 @Repository
+@ConditionalOnProperty(name = ClientRepositoryImpl.CLIENT_REPOSITORY_PROPERTY, havingValue = "jpa",
+        matchIfMissing = true)
 public class ClientRepositoryImpl extends OpenBankPersistenceUnitProducer implements ClientRepository {
+    static final String CLIENT_REPOSITORY_PROPERTY = "openbank.client.repository";
+    private static final String FETCH_GRAPH_HINT = "javax.persistence.fetchgraph";
+    static final Pattern PERSON_IDENTIFICATION_PATTERN = Pattern.compile(Person.PERSON_IDENTIFICATION_REGEXP);
+
+    private Logger logger;
+    private AppPropertyConfiguration appPropertyConfiguration;
+    private ClientAdapter clientAdapter;
+
+    public ClientRepositoryImpl(Logger logger, AppPropertyConfiguration appPropertyConfiguration,
+                                ClientAdapter clientAdapter) {
+        this.logger = logger;
+        this.appPropertyConfiguration = appPropertyConfiguration;
+        this.clientAdapter = clientAdapter;
+    }
+
     @Override
     public Client getClientByPersonIdentification(String personIdentification) {
+        return getClientByPersonIdentification(personIdentification, ClientFetchPlan.AGGREGATE);
+    }
+
+    @Override
+    public Client getClientByPersonIdentification(String personIdentification, ClientFetchPlan clientFetchPlan) {
+        if (personIdentification == null || !PERSON_IDENTIFICATION_PATTERN.matcher(personIdentification).matches()) {
+            return null;
+        }
+
+        if (isQueryCacheEnabled()) {
+            return getCachedClientByPersonIdentification(personIdentification, clientFetchPlan);
+        }
+
+        return getClientByPersonIdentificationWithEntityGraph(personIdentification, clientFetchPlan);
+    }
+
+    @Override
+    public ClientApi getClientApiByPersonIdentification(String personIdentification) {
+        Client client = getClientByPersonIdentification(personIdentification, ClientFetchPlan.AGGREGATE);
+
+        if (client == null) {
+            return null;
+        } else {
+            return clientAdapter.translateClientToClientApi(client);
+        }
+    }
+
+    /**
+     * Resolves the client id through the cached id lookup. A client in the second level cache is assembled from the
+     * cache, a client missing from it is loaded by the entity graph query in one statement, which puts it in the
+     * cache.
+     */
+    private Client getCachedClientByPersonIdentification(String personIdentification,
+                                                         ClientFetchPlan clientFetchPlan) {
+        List<Long> clientIdList = getEntityManager().createNamedQuery(Client.CLIENT_ID_BY_PERSON_IDENTIFICATION,
+                Long.class).setParameter(Client.PARAM_PERSON_IDENTIFICATION, personIdentification).getResultList();
+
+        if (clientIdList.isEmpty()) {
+            return null;
+        }
+
+        if (!getEntityManager().getEntityManagerFactory().getCache().contains(Client.class, clientIdList.get(0))) {
+            return getClientByPersonIdentificationWithEntityGraph(personIdentification, clientFetchPlan);
+        }
+
+        Client client = getEntityManager().find(Client.class, clientIdList.get(0));
+
+        if (client != null && ClientFetchPlan.AGGREGATE == clientFetchPlan) {
+            client.getAccountSet().forEach(account -> Hibernate.initialize(account.getAccountTransactionSet()));
+        }
+
+        return client;
+    }
+
+    private Client getClientByPersonIdentificationWithEntityGraph(String personIdentification,
+                                                                  ClientFetchPlan clientFetchPlan) {
         TypedQuery<Client> query = getEntityManager().createNamedQuery(Client.PERSON_IDENTIFICATION, Client.class);
         query.setParameter(Client.PARAM_PERSON_IDENTIFICATION, personIdentification);
+        query.setHint(FETCH_GRAPH_HINT, getEntityManager().getEntityGraph(clientFetchPlan.getEntityGraphName()));
 
         List<Client> clientList = query.getResultList();
 
@@ -42,9 +127,42 @@ public class ClientRepositoryImpl extends OpenBankPersistenceUnitProducer implem
         }
     }
 
+    private boolean isQueryCacheEnabled() {
+        return getEntityManager().getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getSessionFactoryOptions().isQueryCacheEnabled();
+    }
+
     @Override
     @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED)
     public void persistClient(Client client) {
         getEntityManager().persist(client);
     }
+
+    @Override
+    @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED)
+    public long persistClients(Stream<Client> clientStream) {
+        int flushSize = appPropertyConfiguration.getImportFlushSize();
+        long numberOfClients = 0;
+
+        Iterator<Client> clientIterator = clientStream.iterator();
+
+        while (clientIterator.hasNext()) {
+            getEntityManager().persist(clientIterator.next());
+            numberOfClients++;
+
+            if (numberOfClients % flushSize == 0) {
+                getEntityManager().flush();
+                getEntityManager().clear();
+
+                logger.info("Persisted {} clients.", numberOfClients);
+            }
+        }
+
+        getEntityManager().flush();
+        getEntityManager().clear();
+
+        logger.info("Persisted {} clients in total.", numberOfClients);
+
+        return numberOfClients;
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import se.jsquad.adapter.ClientAdapter;
+import se.jsquad.api.client.ClientApi;
+import se.jsquad.property.AppPropertyConfiguration;
+
+/**
+ * Reads the client aggregate with a single join query straight into {@link ClientApi}, bypassing the persistence
+ * context. Writes and entity reads are still served by JPA. The query runs on the connection of the read-only JPA
+ * transaction, so it is routed to a replica like the JPA reads.
+ */
+@Repository
+@ConditionalOnProperty(name = ClientRepositoryImpl.CLIENT_REPOSITORY_PROPERTY, havingValue = "jdbc")
+public class JdbcClientRepositoryImpl extends ClientRepositoryImpl {
+    static final String CLIENT_AGGREGATE_QUERY = "SELECT p.PERSONIDENTIFICATION, p.FIRSTNAME, p.LASTNAME, "
+            + "p.MAIL, ct.CTYPE, ct.RATING, ct.PREMIUMRATING, ct.SPECIALOFFERS, ct.COUNTRY, a.ID AS ACCOUNT_ID, "
+            + "a.ACCOUNT_NUMBER, a.BALANCE, t.TRANSACTIONTYPE, t.MESSAGE, t.AMOUNT, t.OCCURRED_AT "
+            + "FROM PERSON p "
+            + "JOIN CLIENTTYPE ct ON ct.CLIENT_FK = p.CLIENT_FK "
+            + "LEFT JOIN ACCOUNT a ON a.CLIENT_ID = p.CLIENT_FK "
+            + "LEFT JOIN ACCOUNTTRANSACTION t ON t.ACCOUNT_ID = a.ID "
+            + "WHERE p.PERSONIDENTIFICATION = ? "
+            + "ORDER BY a.ID, t.OCCURRED_AT, t.ID";
+
+    private static final ClientApiResultSetExtractor CLIENT_API_RESULT_SET_EXTRACTOR =
+            new ClientApiResultSetExtractor();
+
+    private JdbcTemplate jdbcTemplate;
+
+    public JdbcClientRepositoryImpl(Logger logger, AppPropertyConfiguration appPropertyConfiguration,
+                                    ClientAdapter clientAdapter,
+                                    @Qualifier("openBankTransactionalJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        super(logger, appPropertyConfiguration, clientAdapter);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED,
+            readOnly = true)
+    public ClientApi getClientApiByPersonIdentification(String personIdentification) {
+        if (personIdentification == null || !PERSON_IDENTIFICATION_PATTERN.matcher(personIdentification).matches()) {
+            return null;
+        }
+
+        return jdbcTemplate.query(CLIENT_AGGREGATE_QUERY, CLIENT_API_RESULT_SET_EXTRACTOR,
+                Long.valueOf(personIdentification));
+    }
+}
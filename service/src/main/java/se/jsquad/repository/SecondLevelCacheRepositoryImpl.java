@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import se.jsquad.entity.Account;
+import se.jsquad.entity.Client;
+import se.jsquad.entity.ClientType;
+import se.jsquad.entity.Person;
+import se.jsquad.entity.SystemProperty;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public class SecondLevelCacheRepositoryImpl extends OpenBankPersistenceUnitProducer
+        implements SecondLevelCacheRepository {
+    private static final String ACCOUNT_SET_ROLE = Client.class.getName() + ".accountSet";
+    private static final String ACCOUNT_TRANSACTION_SET_ROLE = Account.class.getName() + ".accountTransactionSet";
+
+    @Override
+    @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED)
+    public int evictEntriesChangedSince(Instant changedSince) {
+        Cache cache = getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        int numberOfEvictedEntries = 0;
+
+        List<Long> systemPropertyIdList = findChangedIds(SystemProperty.SYSTEM_PROPERTY_CHANGED_SINCE,
+                SystemProperty.PARAM_CHANGED_SINCE, changedSince);
+
+        for (Long id : systemPropertyIdList) {
+            cache.evictEntityData(SystemProperty.class, id);
+            numberOfEvictedEntries++;
+        }
+
+        List<Long> personIdList = findChangedIds(Person.PERSON_CHANGED_SINCE, Person.PARAM_CHANGED_SINCE,
+                changedSince);
+
+        for (Long id : personIdList) {
+            cache.evictEntityData(Person.class, id);
+            numberOfEvictedEntries++;
+        }
+
+        // Query caches are only invalidated by local writes, so a person created elsewhere resets the lookup.
+        if (!personIdList.isEmpty()) {
+            cache.evictQueryRegion(Client.ID_LOOKUP_CACHE_REGION);
+        }
+
+        for (Long id : findChangedIds(ClientType.CLIENT_TYPE_CHANGED_SINCE, ClientType.PARAM_CHANGED_SINCE,
+                changedSince)) {
+            cache.evictEntityData(ClientType.class, id);
+            numberOfEvictedEntries++;
+        }
+
+        List<Object[]> accountList = getEntityManager().createNamedQuery(Account.ACCOUNT_CHANGED_SINCE,
+                Object[].class).setParameter(Account.PARAM_CHANGED_SINCE, changedSince).getResultList();
+
+        for (Object[] account : accountList) {
+            cache.evictEntityData(Account.class, (Long) account[0]);
+            cache.evictCollectionData(ACCOUNT_TRANSACTION_SET_ROLE, (Long) account[0]);
+
+            if (account[1] != null) {
+                cache.evictCollectionData(ACCOUNT_SET_ROLE, (Long) account[1]);
+            }
+
+            numberOfEvictedEntries++;
+        }
+
+        if (!systemPropertyIdList.isEmpty()) {
+            cache.evictQueryRegion(SystemProperty.LOOKUP_CACHE_REGION);
+            getEntityManager().createNamedQuery(SystemProperty.FIND_ALL_UNIQUE_SYSTEM_PROPERTIES,
+                    SystemProperty.class).getResultList();
+        }
+
+        return numberOfEvictedEntries;
+    }
+
+    private List<Long> findChangedIds(String namedQuery, String parameterName, Instant changedSince) {
+        return getEntityManager().createNamedQuery(namedQuery, Long.class).setParameter(parameterName, changedSince)
+                .getResultList();
+    }
+}
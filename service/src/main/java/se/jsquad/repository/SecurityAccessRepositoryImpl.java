@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import se.jsquad.entity.security.SecurityAccess;
+import se.jsquad.producer.SecurityPersistenceUnitProducer;
+
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@Repository
+public class SecurityAccessRepositoryImpl extends SecurityPersistenceUnitProducer implements SecurityAccessRepository {
+    @Override
+    @Transactional(transactionManager = "transactionManagerSecurity", propagation = Propagation.REQUIRED)
+    public void persistSecurityAccess(SecurityAccess securityAccess) {
+        getEntityManager().persist(securityAccess);
+    }
+
+    @Override
+    @Transactional(transactionManager = "transactionManagerSecurity", propagation = Propagation.REQUIRED)
+    public void removeSecurityAccessByClientName(String clientName) {
+        findSecurityAccessByClientNames(Collections.singletonList(clientName)).forEach(getEntityManager()::remove);
+    }
+
+    @Override
+    public List<SecurityAccess> findSecurityAccessByClientNames(Collection<String> clientNames) {
+        if (clientNames.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        TypedQuery<SecurityAccess> query = getEntityManager().createNamedQuery(SecurityAccess
+                .FIND_SECURITY_ACCESS_BY_CLIENT_NAMES, SecurityAccess.class);
+        query.setParameter(SecurityAccess.PARAM_CLIENT_NAMES, clientNames);
+
+        return query.getResultList();
+    }
+}
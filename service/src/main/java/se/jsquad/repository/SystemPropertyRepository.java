@@ -24,8 +24,4 @@ public interface SystemPropertyRepository {
     void persistSystemProperty(SystemProperty systemProperty);
 
     List<SystemProperty> findAllUniqueSystemProperties();
-
-    void clearSecondaryLevelCache();
-
-    void refreshSecondaryLevelCache();
 }
@@ -40,15 +40,4 @@ public class SystemPropertyRepositoryImpl extends OpenBankPersistenceUnitProduce
 
         return query.getResultList();
     }
-
-    @Override
-    public void clearSecondaryLevelCache() {
-        getEntityManager().getEntityManagerFactory().getCache().evictAll();
-    }
-
-    @Override
-    public void refreshSecondaryLevelCache() {
-        clearSecondaryLevelCache();
-        findAllUniqueSystemProperties();
-    }
 }
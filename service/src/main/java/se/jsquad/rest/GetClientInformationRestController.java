@@ -19,7 +19,12 @@ package se.jsquad.rest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import se.jsquad.api.ClientInformation;
+import se.jsquad.api.client.AccountStatement;
+import se.jsquad.api.client.AccountTransactionHistory;
+import se.jsquad.api.client.AccountTransferRequest;
+import se.jsquad.api.client.AccountTransferResponse;
 import se.jsquad.api.client.ClientApi;
+import se.jsquad.api.client.ClientImportResponse;
 import se.jsquad.api.client.ClientInformationRequest;
 import se.jsquad.api.client.ClientInformationResponse;
 import se.jsquad.api.client.ClientRequest;
@@ -28,20 +33,26 @@ import se.jsquad.api.time.DateTime;
 import se.jsquad.business.OpenBankService;
 import se.jsquad.business.WebClientBusiness;
 import se.jsquad.component.header.RequestHeaderController;
+import se.jsquad.component.json.JsonArrayStreamReader;
+import se.jsquad.exception.AccountNotFoundException;
 import se.jsquad.exception.ClientNotFoundException;
 
+import java.io.InputStream;
 import java.time.Instant;
+import java.util.stream.Stream;
 
 @RestController
 @RequestHeaderController
 public class GetClientInformationRestController implements ClientInformation {
     private OpenBankService openBankService;
     private WebClientBusiness webClientBusiness;
+    private JsonArrayStreamReader jsonArrayStreamReader;
 
     public GetClientInformationRestController(OpenBankService openBankService, WebClientBusiness
-            webClientBusiness) {
+            webClientBusiness, JsonArrayStreamReader jsonArrayStreamReader) {
         this.openBankService = openBankService;
         this.webClientBusiness = webClientBusiness;
+        this.jsonArrayStreamReader = jsonArrayStreamReader;
     }
     
     @Override
@@ -83,6 +94,45 @@ public class GetClientInformationRestController implements ClientInformation {
         return ResponseEntity.ok(clientApi);
     }
 
+    @Override
+    public ResponseEntity<ClientImportResponse> importClients(InputStream clientApiStream) {
+        try (Stream<ClientApi> clientApis = jsonArrayStreamReader.readArray(clientApiStream, ClientApi.class)) {
+            ClientImportResponse clientImportResponse = new ClientImportResponse();
+            clientImportResponse.setImportedClients(openBankService.importClients(clientApis));
+
+            return ResponseEntity.ok(clientImportResponse);
+        }
+    }
+
+    @Override
+    public ResponseEntity<AccountTransactionHistory> getAccountTransactionHistory(String accountNumber, String cursor,
+                                                                                  int size) {
+        AccountTransactionHistory accountTransactionHistory = openBankService.getAccountTransactionHistory(
+                accountNumber, cursor, size);
+
+        if (accountTransactionHistory == null) {
+            throw new AccountNotFoundException("Account not found.");
+        }
+
+        return ResponseEntity.ok(accountTransactionHistory);
+    }
+
+    @Override
+    public ResponseEntity<AccountStatement> getAccountStatement(String accountNumber, String month) {
+        AccountStatement accountStatement = openBankService.getAccountStatement(accountNumber, month);
+
+        if (accountStatement == null) {
+            throw new AccountNotFoundException("Account not found.");
+        }
+
+        return ResponseEntity.ok(accountStatement);
+    }
+
+    @Override
+    public ResponseEntity<AccountTransferResponse> transfer(AccountTransferRequest accountTransferRequest) {
+        return ResponseEntity.ok(openBankService.transfer(accountTransferRequest));
+    }
+
     @Override
     public ResponseEntity<DateTime> getDateTime(String dateTime) {
         DateTime dateTimeResponse = new DateTime();
@@ -24,10 +24,14 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 import se.jsquad.component.header.ContextHeader;
+import se.jsquad.exception.AccountNotFoundException;
 import se.jsquad.exception.BadRequestRuntimeException;
 import se.jsquad.exception.Base64RuntimeException;
 import se.jsquad.exception.BasicAuthMapRuntimeException;
 import se.jsquad.exception.ClientNotFoundException;
+import se.jsquad.exception.InsufficientFundsException;
+import se.jsquad.exception.PayloadTooLargeException;
+import se.jsquad.exception.TransferConflictException;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
@@ -41,7 +45,8 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
         this.contextHeader = contextHeader;
     }
     
-    @ExceptionHandler({ConstraintViolationException.class, BadRequestRuntimeException.class, Base64RuntimeException.class})
+    @ExceptionHandler({ConstraintViolationException.class, BadRequestRuntimeException.class, Base64RuntimeException.class,
+        InsufficientFundsException.class})
     public ResponseEntity<Object> handleBadRequest(final RuntimeException runtimeException,
                                                    final WebRequest webRequest) {
         
@@ -72,7 +77,7 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
             HttpStatus.BAD_REQUEST, webRequest);
     }
     
-    @ExceptionHandler({ClientNotFoundException.class})
+    @ExceptionHandler({ClientNotFoundException.class, AccountNotFoundException.class})
     public ResponseEntity<Object> handleNotFound(final RuntimeException runtimeException, final WebRequest webRequest) {
         String notFoundMessage = generateExceptionRequestMessage("Not found",
             runtimeException.getMessage());
@@ -82,6 +87,27 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
             HttpStatus.NOT_FOUND, webRequest);
     }
     
+    @ExceptionHandler({TransferConflictException.class})
+    public ResponseEntity<Object> handleConflict(final RuntimeException runtimeException, final WebRequest webRequest) {
+        String conflictMessage = generateExceptionRequestMessage("Conflict",
+            runtimeException.getMessage());
+        logger.info(conflictMessage, runtimeException);
+        
+        return handleExceptionInternal(runtimeException, runtimeException.getMessage(), new HttpHeaders(),
+            HttpStatus.CONFLICT, webRequest);
+    }
+    
+    @ExceptionHandler({PayloadTooLargeException.class})
+    public ResponseEntity<Object> handlePayloadTooLarge(final RuntimeException runtimeException,
+                                                        final WebRequest webRequest) {
+        String payloadTooLargeMessage = generateExceptionRequestMessage("Payload too large",
+            runtimeException.getMessage());
+        logger.info(payloadTooLargeMessage, runtimeException);
+        
+        return handleExceptionInternal(runtimeException, runtimeException.getMessage(), new HttpHeaders(),
+            HttpStatus.PAYLOAD_TOO_LARGE, webRequest);
+    }
+    
     @ExceptionHandler({BasicAuthMapRuntimeException.class})
     public ResponseEntity<Object> handleForbiddenRequest(final RuntimeException runtimeException,
                                                          final WebRequest webRequest) {
@@ -17,6 +17,8 @@
 package se.jsquad.soap;
 
 import org.slf4j.Logger;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ws.server.endpoint.annotation.Endpoint;
 import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
 import org.springframework.ws.server.endpoint.annotation.RequestPayload;
@@ -25,6 +27,7 @@ import se.jsquad.entity.Account;
 import se.jsquad.entity.AccountTransaction;
 import se.jsquad.entity.Client;
 import se.jsquad.entity.ForeignClient;
+import se.jsquad.entity.Person;
 import se.jsquad.entity.PremiumClient;
 import se.jsquad.entity.RegularClient;
 import se.jsquad.getclientservice.AccountTransactionType;
@@ -37,6 +40,7 @@ import se.jsquad.getclientservice.PersonType;
 import se.jsquad.getclientservice.StatusType;
 import se.jsquad.getclientservice.TransactionType;
 import se.jsquad.getclientservice.Type;
+import se.jsquad.repository.ClientFetchPlan;
 import se.jsquad.repository.ClientRepository;
 
 import java.util.Iterator;
@@ -54,20 +58,24 @@ public class GetClientInformationSoapController {
 
     @PayloadRoot(namespace = "http://jsquad.se/GetClientService/", localPart = "GetClientRequest")
     @ResponsePayload
+    @Transactional(transactionManager = "transactionManagerOpenBank", propagation = Propagation.REQUIRED,
+            readOnly = true)
     public GetClientResponse getClientResponse(@RequestPayload GetClientRequest getClientRequest) {
         GetClientResponse getClientResponse = new GetClientResponse();
         getClientResponse.setClient(null);
         getClientResponse.setMessage("Client not found.");
         getClientResponse.setStatus(StatusType.ERROR);
 
-        if (getClientRequest == null || getClientRequest.getPersonIdentification() == null || getClientRequest.getPersonIdentification().isEmpty()) {
+        if (getClientRequest == null || getClientRequest.getPersonIdentification() == null || !getClientRequest
+                .getPersonIdentification().matches(Person.PERSON_IDENTIFICATION_REGEXP)) {
             getClientResponse.setMessage("Request parameter must be set with a proper identification number.");
             return getClientResponse;
         }
 
         try {
             Client client =
-                    clientRepository.getClientByPersonIdentification(getClientRequest.getPersonIdentification());
+                    clientRepository.getClientByPersonIdentification(getClientRequest.getPersonIdentification(),
+                            ClientFetchPlan.AGGREGATE);
 
             createClientType(getClientResponse, client);
             getClientResponse.setStatus(StatusType.OK);
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.thread;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes work per key on a fixed set of lock stripes, so that writers of the same key queue in the JVM instead of
+ * holding a database connection while they wait for a row lock. An uncontended acquisition is a single compare and
+ * set, only contended acquisitions are timed.
+ */
+public class StripedLockManager {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final Counter uncontendedCounter;
+    private final Counter contendedCounter;
+    private final Timer waitTimer;
+
+    public StripedLockManager(String name, int numberOfStripes, MeterRegistry meterRegistry) {
+        int size = numberOfStripes <= 1 ? 1 : Integer.highestOneBit(numberOfStripes - 1) << 1;
+
+        stripes = new ReentrantLock[size];
+        mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+
+        uncontendedCounter = Counter.builder("openbank.lock.acquisitions")
+                .description("Lock acquisitions by whether the stripe was already held")
+                .tags("name", name, "contended", "false")
+                .register(meterRegistry);
+        contendedCounter = Counter.builder("openbank.lock.acquisitions")
+                .description("Lock acquisitions by whether the stripe was already held")
+                .tags("name", name, "contended", "true")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("openbank.lock.wait")
+                .description("Time spent waiting for a contended lock stripe")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("openbank.lock.queued", this, StripedLockManager::getQueueLength)
+                .description("Threads currently waiting for a lock stripe")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public int getNumberOfStripes() {
+        return stripes.length;
+    }
+
+    public void executeWithLock(String key, Runnable runnable) {
+        executeWithLock(key, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public <T> T executeWithLock(String key, Supplier<T> supplier) {
+        ReentrantLock lock = stripes[indexOf(key)];
+        acquire(lock);
+
+        try {
+            return supplier.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Locks the stripes of all keys in ascending stripe order, so that callers locking overlapping keys can never
+     * deadlock each other.
+     */
+    public <T> T executeWithLocks(Collection<String> keys, Supplier<T> supplier) {
+        int[] indices = new int[keys.size()];
+        int numberOfIndices = 0;
+
+        for (String key : keys) {
+            indices[numberOfIndices++] = indexOf(key);
+        }
+
+        Arrays.sort(indices);
+
+        int numberOfLocked = 0;
+
+        try {
+            for (int i = 0; i < indices.length; i++) {
+                if (i == 0 || indices[i] != indices[i - 1]) {
+                    acquire(stripes[indices[i]]);
+                    indices[numberOfLocked++] = indices[i];
+                }
+            }
+
+            return supplier.get();
+        } finally {
+            for (int i = numberOfLocked - 1; i >= 0; i--) {
+                stripes[indices[i]].unlock();
+            }
+        }
+    }
+
+    private void acquire(ReentrantLock lock) {
+        if (lock.tryLock()) {
+            uncontendedCounter.increment();
+            return;
+        }
+
+        long start = System.nanoTime();
+        lock.lock();
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        contendedCounter.increment();
+    }
+
+    private int indexOf(String key) {
+        int hash = key.hashCode();
+
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private double getQueueLength() {
+        int queueLength = 0;
+
+        for (ReentrantLock stripe : stripes) {
+            queueLength += stripe.getQueueLength();
+        }
+
+        return queueLength;
+    }
+}
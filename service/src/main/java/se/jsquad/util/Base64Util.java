@@ -28,12 +28,29 @@ import static se.jsquad.interceptor.RequestHeaderInterceptor.X_AUTHORIZATION_HEA
 public class Base64Util {
     public String decodeEncodedToken(final String encodedToken) {
         try {
-            return new String(Base64.getDecoder().decode(encodedToken), StandardCharsets.UTF_8)
-                .replaceAll("(\\r|\\n)", "");
+            return removeLineBreaks(new String(Base64.getDecoder().decode(encodedToken), StandardCharsets.UTF_8));
         } catch (Exception e) {
             var message = X_AUTHORIZATION_HEADER_NAME + " value must be a Base64 encoded string.";
             
             throw new Base64RuntimeException(message, e);
         }
     }
+    
+    private String removeLineBreaks(String decodedToken) {
+        if (decodedToken.indexOf('\r') == -1 && decodedToken.indexOf('\n') == -1) {
+            return decodedToken;
+        }
+        
+        var stringBuilder = new StringBuilder(decodedToken.length());
+        
+        for (int i = 0; i < decodedToken.length(); i++) {
+            char character = decodedToken.charAt(i);
+            
+            if (character != '\r' && character != '\n') {
+                stringBuilder.append(character);
+            }
+        }
+        
+        return stringBuilder.toString();
+    }
 }
@@ -23,22 +23,36 @@ import org.springframework.core.env.PropertySource;
 import org.springframework.stereotype.Component;
 import se.jsquad.exception.BasicAuthMapException;
 
-import java.util.Arrays;
+import javax.inject.Inject;
+import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Verifies client passwords against the SECURITY table through the {@link ClientCredentialStore}, and against the
+ * service.basic.auth.map for the clients the table has no credentials for. The map is parsed once into salted SHA-256
+ * hashes. A password is compared in constant time against every credential of the client, and unknown clients are
+ * compared against a dummy credential, so the time taken does not reveal which part of the credentials was wrong.
+ */
 @Component
 public class BasicAuthValidator {
     private static final String EXCEPTION_MESSAGE = "The basic auth client map with related clients is not " +
         "properly setup. The pattern is 'service.basic.auth.map.client1.token: 'password1,password2'.";
+    private static final int SALT_LENGTH = 16;
     
     private final Map<String, String> basicAuthMap;
+    private final Map<String, List<ClientCredential>> clientCredentialMap;
+    private final List<ClientCredential> unknownClientCredentialList;
+    private ClientCredentialStore clientCredentialStore;
     
     public BasicAuthValidator(final Environment environment) throws BasicAuthMapException {
-        basicAuthMap = new HashMap<>();
+        Map<String, String> basicAuthenticationMap = new HashMap<>();
     
-        setupBasicAuthenticationMap((ConfigurableEnvironment) environment);
+        setupBasicAuthenticationMap((ConfigurableEnvironment) environment, basicAuthenticationMap);
+        basicAuthMap = Map.copyOf(basicAuthenticationMap);
     
         if (basicAuthMap.isEmpty()) {
             throw new BasicAuthMapException(EXCEPTION_MESSAGE);
@@ -52,15 +66,67 @@ public class BasicAuthValidator {
                 }
             }
         }
+        
+        byte[] salt = new byte[SALT_LENGTH];
+        new SecureRandom().nextBytes(salt);
+        
+        Map<String, List<ClientCredential>> clientCredentials = new HashMap<>();
+        
+        for (Map.Entry<String, String> entry : basicAuthMap.entrySet()) {
+            List<ClientCredential> clientCredentialList = new ArrayList<>();
+            
+            for (String password : entry.getValue().split(",")) {
+                clientCredentialList.add(ClientCredential.of(salt, password));
+            }
+            
+            clientCredentials.put(entry.getKey(), List.copyOf(clientCredentialList));
+        }
+        
+        clientCredentialMap = Map.copyOf(clientCredentials);
+        unknownClientCredentialList = List.of(ClientCredential.of(salt, ""));
+    }
+    
+    @Inject
+    private void setClientCredentialStore(ClientCredentialStore clientCredentialStore) {
+        this.clientCredentialStore = clientCredentialStore;
     }
     
     public boolean doesBasicAuthNameAndPasswordExist(final String clientName, final String password) {
-        return basicAuthMap.containsKey(clientName + ".token")
-            && Arrays.asList(basicAuthMap.get(clientName + ".token").split(","))
-            .contains(password);
+        if (clientName == null || password == null) {
+            return false;
+        }
+        
+        List<ClientCredential> clientCredentialList = clientCredentialStore == null ? null : clientCredentialStore
+            .getClientCredentials(clientName).orElse(null);
+        
+        if (clientCredentialList == null) {
+            clientCredentialList = clientCredentialMap.get(clientName + ".token");
+        }
+        
+        boolean isKnownClient = clientCredentialList != null;
+        
+        if (!isKnownClient) {
+            clientCredentialList = unknownClientCredentialList;
+        }
+        
+        boolean isMatch = false;
+        
+        for (ClientCredential clientCredential : clientCredentialList) {
+            isMatch |= clientCredential.matches(password);
+        }
+        
+        return isKnownClient && isMatch;
+    }
+    
+    /**
+     * Changes whenever the stored credentials of the client change, so verifications made before no longer hold.
+     */
+    public long getCredentialVersion(final String clientName) {
+        return clientCredentialStore == null ? 0 : clientCredentialStore.getVersion(clientName);
     }
     
-    private void setupBasicAuthenticationMap(ConfigurableEnvironment environment) throws BasicAuthMapException {
+    private void setupBasicAuthenticationMap(ConfigurableEnvironment environment,
+                                             Map<String, String> basicAuthMap) throws BasicAuthMapException {
         for (PropertySource<?> propertySource : environment.getPropertySources()) {
             if (propertySource instanceof EnumerablePropertySource) {
                 for (String key : ((EnumerablePropertySource) propertySource).getPropertyNames()) {
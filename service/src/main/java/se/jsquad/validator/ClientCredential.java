@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.validator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * A salted SHA-256 hash of a client password that is compared in constant time.
+ */
+public class ClientCredential {
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final byte[] salt;
+    private final byte[] passwordHash;
+
+    public ClientCredential(byte[] salt, byte[] passwordHash) {
+        this.salt = salt.clone();
+        this.passwordHash = passwordHash.clone();
+    }
+
+    public static ClientCredential of(byte[] salt, String password) {
+        return new ClientCredential(salt, hash(salt, password));
+    }
+
+    public static byte[] hash(byte[] salt, String password) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(HASH_ALGORITHM);
+            messageDigest.update(salt);
+
+            return messageDigest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean matches(String password) {
+        return MessageDigest.isEqual(passwordHash, hash(salt, password));
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+
+        ClientCredential clientCredential = (ClientCredential) object;
+
+        return Arrays.equals(salt, clientCredential.salt) && Arrays.equals(passwordHash, clientCredential
+                .passwordHash);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(salt) + Arrays.hashCode(passwordHash);
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.validator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import se.jsquad.entity.security.SecurityAccess;
+import se.jsquad.property.AppPropertyConfiguration;
+import se.jsquad.repository.SecurityAccessRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of the client credentials in the SECURITY table. Loaded credentials are kept for
+ * app.auth.store.ttl.seconds and client names without credentials for app.auth.store.negative.ttl.seconds, at most
+ * app.auth.store.negative.cache.size of them, so repeated attempts with unknown client names do not reach the
+ * database. The cached clients are reloaded in one query in the background, which lets a rotated password take
+ * effect without a redeploy. Every client has a version of its own, which changes whenever its credentials are loaded
+ * for the first time, change or are removed. When the database fails, the client is not queried again for
+ * app.auth.store.failure.backoff.seconds and its stale credentials, if any, are used meanwhile.
+ */
+@Component
+public class ClientCredentialStore {
+    private Logger logger;
+    private SecurityAccessRepository securityAccessRepository;
+    private Duration ttl;
+    private Duration negativeTtl;
+    private Duration failureBackoff;
+    private Map<String, CachedClientCredentials> clientCredentialMap = new ConcurrentHashMap<>();
+    private Map<String, Instant> unknownClientNameMap;
+    private AtomicLong versionSequence = new AtomicLong();
+    private Counter cacheHitCounter;
+    private Counter negativeCacheHitCounter;
+    private Counter loadCounter;
+    private Timer refreshTimer;
+
+    public ClientCredentialStore(Logger logger, SecurityAccessRepository securityAccessRepository,
+                                 AppPropertyConfiguration appPropertyConfiguration, MeterRegistry meterRegistry) {
+        this.logger = logger;
+        this.securityAccessRepository = securityAccessRepository;
+
+        ttl = Duration.ofSeconds(appPropertyConfiguration.getAuthStoreTtlSeconds());
+        negativeTtl = Duration.ofSeconds(appPropertyConfiguration.getAuthStoreNegativeTtlSeconds());
+        failureBackoff = Duration.ofSeconds(appPropertyConfiguration.getAuthStoreFailureBackoffSeconds());
+
+        int negativeCacheSize = appPropertyConfiguration.getAuthStoreNegativeCacheSize();
+        unknownClientNameMap = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+                return size() > negativeCacheSize;
+            }
+        });
+
+        cacheHitCounter = createLookupCounter("hit", meterRegistry);
+        negativeCacheHitCounter = createLookupCounter("negative_hit", meterRegistry);
+        loadCounter = createLookupCounter("load", meterRegistry);
+        refreshTimer = Timer.builder("openbank.auth.store.refresh")
+                .description("Time spent reloading the cached client credentials")
+                .register(meterRegistry);
+        Gauge.builder("openbank.auth.store.size", clientCredentialMap, Map::size)
+                .description("Number of clients with cached credentials")
+                .register(meterRegistry);
+        Gauge.builder("openbank.auth.store.negative.size", unknownClientNameMap, Map::size)
+                .description("Number of cached client names without credentials")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the credentials of the client, or empty if the SECURITY table has none
+     */
+    public Optional<List<ClientCredential>> getClientCredentials(String clientName) {
+        Instant now = Instant.now();
+        CachedClientCredentials cachedClientCredentials = clientCredentialMap.get(clientName);
+
+        if (cachedClientCredentials != null && now.isBefore(cachedClientCredentials.expiresAt)) {
+            cacheHitCounter.increment();
+            return Optional.of(cachedClientCredentials.clientCredentialList);
+        }
+
+        Instant unknownUntil = unknownClientNameMap.get(clientName);
+
+        if (unknownUntil != null && now.isBefore(unknownUntil)) {
+            negativeCacheHitCounter.increment();
+            return Optional.empty();
+        }
+
+        loadCounter.increment();
+
+        List<ClientCredential> clientCredentialList;
+
+        try {
+            clientCredentialList = loadClientCredentials(Collections.singletonList(clientName))
+                    .getOrDefault(clientName, Collections.emptyList());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to load the credentials of client {}.", clientName, e);
+
+            if (cachedClientCredentials == null) {
+                // Answered like an unknown client name until the back-off ends
+                unknownClientNameMap.put(clientName, now.plus(failureBackoff));
+
+                return Optional.empty();
+            }
+
+            clientCredentialMap.put(clientName, new CachedClientCredentials(cachedClientCredentials
+                    .clientCredentialList, cachedClientCredentials.version, now.plus(failureBackoff)));
+
+            return Optional.of(cachedClientCredentials.clientCredentialList);
+        }
+
+        if (clientCredentialList.isEmpty()) {
+            removeClientCredentials(clientName);
+            unknownClientNameMap.put(clientName, now.plus(negativeTtl));
+
+            return Optional.empty();
+        }
+
+        putClientCredentials(clientName, clientCredentialList, now);
+
+        return Optional.of(clientCredentialList);
+    }
+
+    /**
+     * @return the version of the cached credentials of the client, 0 if none are cached
+     */
+    public long getVersion(String clientName) {
+        CachedClientCredentials cachedClientCredentials = clientCredentialMap.get(clientName);
+
+        return cachedClientCredentials == null ? 0 : cachedClientCredentials.version;
+    }
+
+    /**
+     * Reloads the credentials of all cached clients in one query and drops the clients that no longer have any.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.store.refresh.interval}",
+            initialDelayString = "${app.auth.store.refresh.interval}")
+    public void refresh() {
+        List<String> clientNameList = new ArrayList<>(clientCredentialMap.keySet());
+
+        if (clientNameList.isEmpty()) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        Map<String, List<ClientCredential>> clientCredentialListMap;
+
+        try {
+            clientCredentialListMap = refreshTimer.record(() -> loadClientCredentials(clientNameList));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh the credentials of {} clients.", clientNameList.size(), e);
+            return;
+        }
+
+        for (String clientName : clientNameList) {
+            List<ClientCredential> clientCredentialList = clientCredentialListMap.get(clientName);
+
+            if (clientCredentialList == null) {
+                removeClientCredentials(clientName);
+            } else {
+                putClientCredentials(clientName, clientCredentialList, now);
+            }
+        }
+
+        logger.debug("Refreshed the credentials of {} clients.", clientNameList.size());
+    }
+
+    private Map<String, List<ClientCredential>> loadClientCredentials(Collection<String> clientNames) {
+        Map<String, List<ClientCredential>> clientCredentialListMap = new HashMap<>();
+        Base64.Decoder decoder = Base64.getDecoder();
+
+        for (SecurityAccess securityAccess : securityAccessRepository.findSecurityAccessByClientNames(clientNames)) {
+            if (securityAccess.getPasswordSalt() == null || securityAccess.getPasswordHash() == null) {
+                continue;
+            }
+
+            clientCredentialListMap.computeIfAbsent(securityAccess.getClientName(), clientName -> new ArrayList<>())
+                    .add(new ClientCredential(decoder.decode(securityAccess.getPasswordSalt()), decoder
+                            .decode(securityAccess.getPasswordHash())));
+        }
+
+        clientCredentialListMap.replaceAll((clientName, clientCredentialList) -> List.copyOf(clientCredentialList));
+
+        return clientCredentialListMap;
+    }
+
+    private void putClientCredentials(String clientName, List<ClientCredential> clientCredentialList, Instant now) {
+        clientCredentialMap.compute(clientName, (name, previousClientCredentials) -> new CachedClientCredentials(
+                clientCredentialList, previousClientCredentials == null || !previousClientCredentials
+                .clientCredentialList.equals(clientCredentialList) ? versionSequence.incrementAndGet()
+                : previousClientCredentials.version, now.plus(ttl)));
+        unknownClientNameMap.remove(clientName);
+    }
+
+    private void removeClientCredentials(String clientName) {
+        clientCredentialMap.remove(clientName);
+    }
+
+    private static Counter createLookupCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("openbank.auth.store.lookup")
+                .description("Number of client credential lookups by where they were answered from")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static class CachedClientCredentials {
+        private final List<ClientCredential> clientCredentialList;
+        private final long version;
+        private final Instant expiresAt;
+
+        CachedClientCredentials(List<ClientCredential> clientCredentialList, long version, Instant expiresAt) {
+            this.clientCredentialList = clientCredentialList;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
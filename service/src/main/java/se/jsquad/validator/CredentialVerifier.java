@@ -0,0 +1,167 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.validator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import se.jsquad.exception.BasicAuthMapRuntimeException;
+import se.jsquad.property.AppPropertyConfiguration;
+import se.jsquad.util.Base64Util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static se.jsquad.interceptor.RequestHeaderInterceptor.X_AUTHORIZATION_HEADER_NAME;
+
+/**
+ * Verifies X-AUTHORIZATION header values and remembers the client name of the most recently verified ones. The cache
+ * is keyed by a SHA-256 digest of the header value, so neither the encoded nor the decoded credentials are kept, and
+ * holds at most app.auth.cache.size entries in least recently used order. Failed verifications are never cached, and
+ * an entry no longer counts once the {@link BasicAuthValidator#getCredentialVersion(String) credential version} of
+ * its client changed. Clients verified against the service.basic.auth.map are not asked about by the credential
+ * store while their entry is used, so every entry also expires after the shorter of app.auth.store.ttl.seconds and
+ * app.auth.store.negative.ttl.seconds, which lets credentials added to the SECURITY table replace the map password.
+ */
+@Component
+public class CredentialVerifier {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final Base64Util base64Util;
+    private final BasicAuthValidator basicAuthValidator;
+    private final Duration ttl;
+    private final Map<ByteBuffer, VerifiedCredentials> verifiedCredentialsMap;
+    private final Counter cacheHitCounter;
+    private final Counter cacheMissCounter;
+
+    public CredentialVerifier(Base64Util base64Util, BasicAuthValidator basicAuthValidator,
+                              AppPropertyConfiguration appPropertyConfiguration, MeterRegistry meterRegistry) {
+        this.base64Util = base64Util;
+        this.basicAuthValidator = basicAuthValidator;
+
+        ttl = Duration.ofSeconds(Math.min(appPropertyConfiguration.getAuthStoreTtlSeconds(), appPropertyConfiguration
+                .getAuthStoreNegativeTtlSeconds()));
+
+        int cacheSize = appPropertyConfiguration.getAuthCacheSize();
+        verifiedCredentialsMap = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, VerifiedCredentials> eldest) {
+                return size() > cacheSize;
+            }
+        });
+
+        cacheHitCounter = Counter.builder("openbank.auth.cache")
+                .description("Number of X-AUTHORIZATION header values verified from the cache or by hashing")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        cacheMissCounter = Counter.builder("openbank.auth.cache")
+                .description("Number of X-AUTHORIZATION header values verified from the cache or by hashing")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("openbank.auth.cache.size", verifiedCredentialsMap, Map::size)
+                .description("Number of verified X-AUTHORIZATION header values in the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the client name of the Base64 encoded 'name:password' header value
+     * @throws BasicAuthMapRuntimeException if the value is malformed or the credentials do not exist
+     */
+    public String verify(final String encodedCredentials) {
+        Instant now = Instant.now();
+        ByteBuffer digest = digest(encodedCredentials);
+        VerifiedCredentials verifiedCredentials = digest == null ? null : verifiedCredentialsMap.get(digest);
+
+        if (verifiedCredentials != null && now.isBefore(verifiedCredentials.expiresAt) && verifiedCredentials
+            .credentialVersion == basicAuthValidator.getCredentialVersion(verifiedCredentials.clientName)) {
+            cacheHitCounter.increment();
+            return verifiedCredentials.clientName;
+        }
+
+        cacheMissCounter.increment();
+
+        String decodedCredentials = base64Util.decodeEncodedToken(encodedCredentials);
+        int separatorIndex = decodedCredentials.lastIndexOf(':');
+
+        if (separatorIndex <= 0 || separatorIndex == decodedCredentials.length() - 1
+            || containsWhitespace(decodedCredentials)) {
+            throw new BasicAuthMapRuntimeException("The decoded Base64 " + X_AUTHORIZATION_HEADER_NAME + " header " +
+                "value must be of pattern 'name:password'");
+        }
+
+        String clientName = decodedCredentials.substring(0, separatorIndex);
+        // Read before the verification, a rotation during it must not be cached under the new version
+        long credentialVersion = basicAuthValidator.getCredentialVersion(clientName);
+
+        if (!basicAuthValidator.doesBasicAuthNameAndPasswordExist(clientName, decodedCredentials
+            .substring(separatorIndex + 1))) {
+            var message = String.format("The client name %s with provided password does not exist", clientName);
+            throw new BasicAuthMapRuntimeException(message);
+        }
+
+        verifiedCredentialsMap.put(digest, new VerifiedCredentials(clientName, credentialVersion, now.plus(ttl)));
+
+        return clientName;
+    }
+
+    public void clear() {
+        verifiedCredentialsMap.clear();
+    }
+
+    private boolean containsWhitespace(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isWhitespace(value.charAt(i))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private ByteBuffer digest(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance(DIGEST_ALGORITHM).digest(value
+                .getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class VerifiedCredentials {
+        private final String clientName;
+        private final long credentialVersion;
+        private final Instant expiresAt;
+
+        VerifiedCredentials(String clientName, long credentialVersion, Instant expiresAt) {
+            this.clientName = clientName;
+            this.credentialVersion = credentialVersion;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+alter table systemproperty
+    add column updated_at timestamp not null default now();
+
+alter table person
+    add column updated_at timestamp not null default now();
+
+alter table clienttype
+    add column updated_at timestamp not null default now();
+
+alter table account
+    add column updated_at timestamp not null default now();
+
+alter table systemproperty
+    alter column updated_at drop default;
+
+alter table person
+    alter column updated_at drop default;
+
+alter table clienttype
+    alter column updated_at drop default;
+
+alter table account
+    alter column updated_at drop default;
@@ -0,0 +1,23 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+create index concurrently if not exists systemproperty_updated_at_idx on systemproperty (updated_at);
+
+create index concurrently if not exists person_updated_at_idx on person (updated_at);
+
+create index concurrently if not exists clienttype_updated_at_idx on clienttype (updated_at);
+
+create index concurrently if not exists account_updated_at_idx on account (updated_at);
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- Account transactions become an append-only ledger: withdrawals are stored as negative amounts and every entry gets
+-- a sequence number within its account. The opening balance is what the balance was before the first entry, so
+-- that opening balance plus the sum of the entries always adds up to the balance.
+alter table accounttransaction
+    add column sequence_number bigint;
+
+update accounttransaction
+set amount = -amount
+where transactiontype = 1
+  and amount > 0;
+
+update accounttransaction t
+set sequence_number = l.sequence_number
+from (select id, row_number() over (partition by account_id order by occurred_at, id) as sequence_number
+      from accounttransaction) l
+where t.id = l.id;
+
+alter table accounttransaction
+    alter column sequence_number set not null;
+
+alter table account
+    add column ledger_sequence bigint not null default 0,
+    add column opening_balance bigint not null default 0;
+
+update account
+set balance = coalesce(balance, 0);
+
+update account a
+set ledger_sequence = l.ledger_sequence,
+    opening_balance = a.balance - l.ledger_balance
+from (select account_id, max(sequence_number) as ledger_sequence, sum(amount) as ledger_balance
+      from accounttransaction
+      group by account_id) l
+where a.id = l.account_id;
+
+update account
+set opening_balance = balance
+where ledger_sequence = 0;
+
+create table accountbalancesnapshot
+(
+    id              bigint    not null
+        constraint accountbalancesnapshot_pkey
+            primary key,
+    account_id      bigint    not null
+        constraint accountbalancesnapshot_account_fk
+            references account,
+    sequence_number bigint    not null,
+    balance         bigint    not null,
+    created_at      timestamp not null
+);
+
+create sequence accountbalancesnapshot_seq increment by 50;
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- accounttransaction becomes range partitioned by month on occurred_at, so that old history can be detached instead
+-- of bloating one heap and its indexes. Keys of a partitioned table must contain the partition key, hence occurred_at
+-- is part of the primary key and of the ledger sequence key.
+create or replace function create_accounttransaction_partition(partition_month date) returns text as
+$$
+declare
+    partition_start timestamp := date_trunc('month', partition_month);
+    partition_name  text      := 'accounttransaction_p' || to_char(partition_start, 'YYYYMM');
+begin
+    execute format('create table if not exists %I partition of accounttransaction for values from (%L) to (%L)',
+                   partition_name, partition_start, partition_start + interval '1 month');
+
+    return partition_name;
+end;
+$$ language plpgsql;
+
+alter table accounttransaction
+    rename to accounttransaction_unpartitioned;
+
+create table accounttransaction
+(
+    id              bigint    not null,
+    message         varchar(255),
+    transactiontype smallint,
+    account_id      bigint
+        constraint accounttransaction_account_fk
+            references account,
+    amount          bigint    not null,
+    occurred_at     timestamp not null,
+    sequence_number bigint    not null
+) partition by range (occurred_at);
+
+select create_accounttransaction_partition(partition_month::date)
+from generate_series((select date_trunc('month', coalesce(min(occurred_at), now()))
+                      from accounttransaction_unpartitioned),
+                     (select date_trunc('month', greatest(max(occurred_at), now())) + interval '3 months'
+                      from accounttransaction_unpartitioned),
+                     interval '1 month') partition_month;
+
+insert into accounttransaction (id, message, transactiontype, account_id, amount, occurred_at, sequence_number)
+select id, message, transactiontype, account_id, amount, occurred_at, sequence_number
+from accounttransaction_unpartitioned;
+
+drop table accounttransaction_unpartitioned;
+
+alter table accounttransaction
+    add constraint accounttransaction_pkey primary key (id, occurred_at);
+
+create index accounttransaction_account_occurred_at_idx
+    on accounttransaction (account_id, occurred_at, id);
+
+create unique index accounttransaction_account_sequence_idx
+    on accounttransaction (account_id, sequence_number, occurred_at);
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- Progress of restartable bulk loads, loaded_clients is committed in the same transaction as the rows it counts.
+create table bulkloadcheckpoint
+(
+    load_name      varchar(255) not null
+        constraint bulkloadcheckpoint_pkey
+            primary key,
+    loaded_clients bigint       not null,
+    updated_at     timestamp    not null
+);
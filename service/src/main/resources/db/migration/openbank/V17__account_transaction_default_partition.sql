@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- Rows outside every monthly partition, e.g. imported history, land in the default partition instead of failing the
+-- insert. Creating a monthly partition later moves its rows out of the default partition before the partition is
+-- attached. The bounds are UTC wall clock times, occurred_at is written in UTC.
+create table if not exists accounttransaction_default partition of accounttransaction default;
+
+create or replace function create_accounttransaction_partition(partition_name text, partition_start timestamp,
+                                                               partition_end timestamp) returns text as
+$$
+begin
+    if to_regclass(partition_name) is null then
+        execute format('create table %I (like accounttransaction including defaults including constraints)',
+                       partition_name);
+        execute format('with moved as (delete from accounttransaction_default where occurred_at >= %L and '
+                           || 'occurred_at < %L returning *) insert into %I select * from moved', partition_start,
+                       partition_end, partition_name);
+        execute format('alter table accounttransaction attach partition %I for values from (%L) to (%L)',
+                       partition_name, partition_start, partition_end);
+    end if;
+
+    return partition_name;
+end;
+$$ language plpgsql;
+
+create or replace function create_accounttransaction_partition(partition_month date) returns text as
+$$
+declare
+    partition_start timestamp := date_trunc('month', partition_month::timestamp);
+begin
+    return create_accounttransaction_partition('accounttransaction_p' || to_char(partition_start, 'YYYYMM'),
+                                               partition_start, partition_start + interval '1 month');
+end;
+$$ language plpgsql;
@@ -0,0 +1,22 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- Transfers and the history endpoints look an account up by its number, so the number has to identify one row.
+-- Indexes are built concurrently, keep transactional statements out of this file.
+create unique index concurrently if not exists account_account_number_uk
+    on account (account_number);
+
+drop index concurrently if exists account_account_number_idx;
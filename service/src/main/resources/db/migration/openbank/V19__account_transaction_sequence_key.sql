@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- Keys of the partitioned accounttransaction must contain occurred_at, so accounttransaction_account_sequence_idx does
+-- not keep two entries of one account from sharing a sequence number. The ledger sums and the balance snapshots rely
+-- on it, and not every writer goes through the optimistic lock of the account, hence the sequence key is kept in a
+-- table of its own that a row trigger fills on every insert, COPY included. Keys stay when their partition is
+-- detached, so a sequence number is never reused.
+create table accounttransaction_sequence
+(
+    account_id      bigint not null
+        constraint accounttransaction_sequence_account_fk
+            references account
+            on delete cascade,
+    sequence_number bigint not null,
+    constraint accounttransaction_sequence_pkey
+        primary key (account_id, sequence_number)
+);
+
+insert into accounttransaction_sequence (account_id, sequence_number)
+select account_id, sequence_number
+from accounttransaction
+where account_id is not null;
+
+create or replace function insert_accounttransaction_sequence() returns trigger as
+$$
+begin
+    if new.account_id is not null then
+        insert into accounttransaction_sequence (account_id, sequence_number)
+        values (new.account_id, new.sequence_number);
+    end if;
+
+    return null;
+end;
+$$ language plpgsql;
+
+create trigger accounttransaction_sequence_trg
+    after insert
+    on accounttransaction
+    for each row
+execute procedure insert_accounttransaction_sequence();
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- The person identification number is always twelve digits and is stored as a bigint key.
+alter table person
+    alter column personidentification type bigint using personidentification::bigint;
+
+-- Transaction types are stored by their TransactionType code, 0 = DEPOSIT and 1 = WITHDRAWAL.
+alter table accounttransaction
+    alter column transactiontype type smallint using case transactiontype
+                                                          when 'DEPOSIT' then 0
+                                                          when 'WITHDRAWAL' then 1
+        end;
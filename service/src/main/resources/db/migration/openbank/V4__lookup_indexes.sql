@@ -0,0 +1,29 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- Indexes are built concurrently so the migration does not block writes, Flyway runs this script outside of a
+-- transaction. Keep transactional statements out of this file.
+create unique index concurrently if not exists person_personidentification_uk
+    on person (personidentification);
+
+create index concurrently if not exists person_client_fk_idx
+    on person (client_fk);
+
+create index concurrently if not exists clienttype_client_fk_idx
+    on clienttype (client_fk);
+
+create index concurrently if not exists account_account_number_idx
+    on account (account_number);
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- Client accounts and account transactions are mapped by the account.client_id and accounttransaction.account_id
+-- foreign keys. Copy the associations from the join tables before they are dropped.
+update account
+set client_id = client_account.client_id
+from client_account
+where client_account.accountset_id = account.id
+  and account.client_id is distinct from client_account.client_id;
+
+update accounttransaction
+set account_id = account_accounttransaction.account_id
+from account_accounttransaction
+where account_accounttransaction.accounttransactionset_id = accounttransaction.id
+  and accounttransaction.account_id is distinct from account_accounttransaction.account_id;
+
+drop table client_account;
+
+drop table account_accounttransaction;
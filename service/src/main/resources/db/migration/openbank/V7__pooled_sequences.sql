@@ -0,0 +1,34 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+-- Pooled-lo identifier blocks, the increment must match openbank.jpa.sequenceAllocationSize.
+create sequence client_seq increment by 50;
+select setval('client_seq', (select coalesce(max(id), 0) + 1 from client), false);
+
+create sequence account_seq increment by 50;
+select setval('account_seq', (select coalesce(max(id), 0) + 1 from account), false);
+
+create sequence accounttransaction_seq increment by 50;
+select setval('accounttransaction_seq', (select coalesce(max(id), 0) + 1 from accounttransaction), false);
+
+create sequence person_seq increment by 50;
+select setval('person_seq', (select coalesce(max(id), 0) + 1 from person), false);
+
+create sequence clienttype_seq increment by 50;
+select setval('clienttype_seq', (select coalesce(max(id), 0) + 1 from clienttype), false);
+
+create sequence systemproperty_seq increment by 50;
+select setval('systemproperty_seq', (select coalesce(max(id), 0) + 1 from systemproperty), false);
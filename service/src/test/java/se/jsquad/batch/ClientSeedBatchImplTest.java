@@ -0,0 +1,164 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.batch;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import se.jsquad.AbstractSpringBootConfiguration;
+import se.jsquad.component.database.FlywayDatabaseMigration;
+import se.jsquad.entity.Account;
+import se.jsquad.entity.AccountTransaction;
+import se.jsquad.entity.Client;
+import se.jsquad.entity.RegularClient;
+import se.jsquad.generator.EntityGenerator;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = {"app.seed.chunk.size = 25", "app.seed.threads = 4"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ClientSeedBatchImplTest extends AbstractSpringBootConfiguration {
+    private static final Instant HISTORY_END = Instant.parse("2021-06-01T00:00:00Z");
+
+    @MockBean
+    private BrokerService brokerService;
+
+    @MockBean
+    private FlywayDatabaseMigration flywayDatabaseMigration;
+
+    @Autowired
+    private ClientSeedBatch clientSeedBatch;
+
+    @Autowired
+    private EntityGenerator entityGenerator;
+
+    @Autowired
+    @Qualifier("openBankJdbcTemplate")
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void removeSeededClients() {
+        List<Long> clientIdList = jdbcTemplate.queryForList("SELECT DISTINCT CLIENT_ID FROM ACCOUNT WHERE "
+                + "ACCOUNT_NUMBER LIKE '9%'", Long.class);
+
+        if (!clientIdList.isEmpty()) {
+            String clientIds = clientIdList.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+            jdbcTemplate.update("DELETE FROM ACCOUNTTRANSACTION WHERE ACCOUNT_ID IN (SELECT ID FROM ACCOUNT WHERE "
+                    + "CLIENT_ID IN (" + clientIds + "))");
+            jdbcTemplate.update("DELETE FROM ACCOUNT WHERE CLIENT_ID IN (" + clientIds + ")");
+            jdbcTemplate.update("DELETE FROM CLIENTTYPE WHERE CLIENT_FK IN (" + clientIds + ")");
+            jdbcTemplate.update("DELETE FROM PERSON WHERE CLIENT_FK IN (" + clientIds + ")");
+            jdbcTemplate.update("DELETE FROM CLIENT WHERE ID IN (" + clientIds + ")");
+        }
+
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testGeneratedClientsOnlyDependOnSeedAndIndex() {
+        // When
+        List<String> clientList = fingerprint(entityGenerator.generateClients(42, 0, 100, HISTORY_END));
+        List<String> chunkedClientList = fingerprint(Stream.concat(entityGenerator.generateClients(42, 0, 50,
+                HISTORY_END), entityGenerator.generateClients(42, 50, 100, HISTORY_END)));
+        List<String> otherSeedClientList = fingerprint(entityGenerator.generateClients(43, 0, 100, HISTORY_END));
+
+        // Then
+        assertEquals(clientList, chunkedClientList);
+        assertNotEquals(clientList, otherSeedClientList);
+    }
+
+    @Test
+    void testGeneratedClientsHaveRealisticDistribution() {
+        // When
+        List<Client> clientList = entityGenerator.generateClients(1, 0, 2000, HISTORY_END)
+                .collect(Collectors.toList());
+
+        // Then
+        long numberOfRegularClients = clientList.stream()
+                .filter(client -> client.getClientType() instanceof RegularClient).count();
+        long numberOfAccounts = clientList.stream().mapToLong(client -> client.getAccountSet().size()).sum();
+        long numberOfTransactions = clientList.stream().flatMap(client -> client.getAccountSet().stream())
+                .mapToLong(account -> account.getAccountTransactionSet().size()).sum();
+
+        assertTrue(numberOfRegularClients > 1500 && numberOfRegularClients < 1700);
+        assertTrue(numberOfAccounts > 3600 && numberOfAccounts < 4400);
+        assertTrue(numberOfTransactions / numberOfAccounts > 15 && numberOfTransactions / numberOfAccounts < 25);
+
+        for (Account account : clientList.get(0).getAccountSet()) {
+            for (AccountTransaction accountTransaction : account.getAccountTransactionSet()) {
+                assertTrue(accountTransaction.getOccurredAt().isBefore(HISTORY_END));
+                assertTrue(accountTransaction.getOccurredAt().isAfter(HISTORY_END.minus(366, ChronoUnit.DAYS)));
+            }
+        }
+    }
+
+    @Test
+    void testSeedClientsInParallelChunks() {
+        // Given
+        long numberOfAccounts = entityGenerator.generateClients(7, 0, 110, Instant.now())
+                .mapToLong(client -> client.getAccountSet().size()).sum();
+
+        // When
+        long numberOfSeededClients = clientSeedBatch.seedClients(7, 110);
+        long numberOfReseededClients = clientSeedBatch.seedClients(7, 110);
+
+        // Then
+        assertEquals(110, numberOfSeededClients);
+        assertEquals(0, numberOfReseededClients);
+        assertEquals(numberOfAccounts, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ACCOUNT WHERE "
+                + "ACCOUNT_NUMBER LIKE '9%'", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ACCOUNT a WHERE a.ACCOUNT_NUMBER LIKE "
+                + "'9%' AND (a.BALANCE < 0 OR a.BALANCE <> a.OPENING_BALANCE + (SELECT COALESCE(SUM(t.AMOUNT), 0) "
+                + "FROM ACCOUNTTRANSACTION t WHERE t.ACCOUNT_ID = a.ID))", Long.class));
+    }
+
+    private List<String> fingerprint(Stream<Client> clientStream) {
+        return clientStream.map(client -> client.getClientType().getClass().getSimpleName() + ":"
+                + client.getPerson().getPersonIdentification() + ":" + client.getPerson().getFirstName() + ":"
+                + client.getAccountSet().stream().sorted(Comparator.comparing(Account::getAccountNumber))
+                .map(account -> account.getAccountNumber() + "=" + account.getBalance() + "/"
+                        + account.getAccountTransactionSet().stream()
+                        .sorted(Comparator.comparing(AccountTransaction::getOccurredAt)
+                                .thenComparing(AccountTransaction::getAmount))
+                        .map(accountTransaction -> accountTransaction.getOccurredAt() + "@"
+                                + accountTransaction.getAmount())
+                        .collect(Collectors.joining(",")))
+                .collect(Collectors.joining(";")))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.business;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.activemq.broker.BrokerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.jsquad.AbstractSpringBootConfiguration;
+import se.jsquad.api.client.AccountTransferRequest;
+import se.jsquad.api.client.AccountTransferResponse;
+import se.jsquad.component.database.FlywayDatabaseMigration;
+import se.jsquad.entity.Account;
+import se.jsquad.entity.Client;
+import se.jsquad.entity.Person;
+import se.jsquad.entity.RegularClient;
+import se.jsquad.entity.TransactionType;
+import se.jsquad.exception.AccountNotFoundException;
+import se.jsquad.exception.BadRequestRuntimeException;
+import se.jsquad.exception.InsufficientFundsException;
+import se.jsquad.exception.TransferConflictException;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+import se.jsquad.property.AppPropertyConfiguration;
+import se.jsquad.repository.AccountLedgerRepository;
+import se.jsquad.repository.ClientFetchPlan;
+import se.jsquad.repository.ClientRepository;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@TestPropertySource(properties = {"app.transfer.max.attempts = 20"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AccountTransferTest extends AbstractSpringBootConfiguration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccountTransferTest.class);
+    private static final String PERSON_IDENTIFICATION = "196001010001";
+    private static final String ACCOUNT_NUMBER_PREFIX = "TRANSFER-";
+    private static final int NUMBER_OF_ACCOUNTS = 20;
+    private static final long INITIAL_BALANCE = 10000;
+    private static final int NUMBER_OF_TRANSFERS = 2000;
+    private static final int NUMBER_OF_THREADS = 8;
+    // Transfers on the same accounts queue on the account locks, so none should run out of retry attempts
+    private static final int MAX_TRANSFER_CONFLICTS = 0;
+
+    @MockBean
+    private BrokerService brokerService;
+
+    @MockBean
+    private FlywayDatabaseMigration flywayDatabaseMigration;
+
+    @Autowired
+    private OpenBankService openBankService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @SpyBean
+    private AccountLedgerRepository accountLedgerRepository;
+
+    @Autowired
+    private AppPropertyConfiguration appPropertyConfiguration;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("transactionTemplateOpenBank")
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("openBankJdbcTemplate")
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OpenBankPersistenceUnitProducer openBankPersistenceUnitProducer;
+
+    @BeforeEach
+    void createAccounts() {
+        Client client = new Client();
+        client.setClientType(new RegularClient());
+        client.getClientType().setClient(client);
+        ((RegularClient) client.getClientType()).setRating(Long.valueOf(100));
+
+        client.setPerson(new Person());
+        client.getPerson().setClient(client);
+        client.getPerson().setFirstName("Transfer");
+        client.getPerson().setLastName("Doe");
+        client.getPerson().setPersonIdentification(PERSON_IDENTIFICATION);
+        client.getPerson().setMail("transfer.doe@test.se");
+
+        client.setAccountSet(new HashSet<>());
+
+        for (int i = 0; i < NUMBER_OF_ACCOUNTS; i++) {
+            Account account = new Account();
+            account.setAccountNumber(ACCOUNT_NUMBER_PREFIX + i);
+            account.setBalance(INITIAL_BALANCE);
+            account.setClient(client);
+
+            client.getAccountSet().add(account);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> clientRepository.persistClient(client));
+    }
+
+    @AfterEach
+    void removeAccounts() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        Method method = OpenBankPersistenceUnitProducer.class.getDeclaredMethod("getEntityManager");
+        method.setAccessible(true);
+
+        EntityManager entityManager = (EntityManager) method.invoke(openBankPersistenceUnitProducer);
+
+        transactionTemplate.executeWithoutResult(status -> entityManager.remove(clientRepository
+                .getClientByPersonIdentification(PERSON_IDENTIFICATION, ClientFetchPlan.AGGREGATE)));
+    }
+
+    @Test
+    void testTransferMovesMoneyAndRecordsTransactionPair() {
+        // Given
+        AccountTransferRequest accountTransferRequest = createAccountTransferRequest(0, 1, 2500);
+
+        // When
+        AccountTransferResponse accountTransferResponse = openBankService.transfer(accountTransferRequest);
+
+        // Then
+        assertEquals(INITIAL_BALANCE - 2500, accountTransferResponse.getFromBalance());
+        assertEquals(INITIAL_BALANCE + 2500, accountTransferResponse.getToBalance());
+        assertEquals(INITIAL_BALANCE - 2500, getBalance(0));
+        assertEquals(INITIAL_BALANCE + 2500, getBalance(1));
+
+        assertEquals(1, countTransactions(0, TransactionType.WITHDRAWAL));
+        assertEquals(1, countTransactions(1, TransactionType.DEPOSIT));
+    }
+
+    @Test
+    void testTransferWithInsufficientFunds() {
+        // Given
+        AccountTransferRequest accountTransferRequest = createAccountTransferRequest(0, 1, INITIAL_BALANCE + 1);
+
+        // Then
+        assertThrows(InsufficientFundsException.class, () -> openBankService.transfer(accountTransferRequest));
+        assertEquals(INITIAL_BALANCE, getBalance(0));
+        assertEquals(INITIAL_BALANCE, getBalance(1));
+        assertEquals(0, countTransactions(0, TransactionType.WITHDRAWAL));
+    }
+
+    @Test
+    void testTransferWithBadContent() {
+        assertThrows(BadRequestRuntimeException.class, () -> openBankService.transfer(
+                createAccountTransferRequest(0, 0, 100)));
+        assertThrows(BadRequestRuntimeException.class, () -> openBankService.transfer(
+                createAccountTransferRequest(0, 1, 0)));
+
+        AccountTransferRequest accountTransferRequest = createAccountTransferRequest(0, 1, 100);
+        accountTransferRequest.setToAccountNumber("UNKNOWN");
+
+        assertThrows(AccountNotFoundException.class, () -> openBankService.transfer(accountTransferRequest));
+    }
+
+    @Test
+    void testTransferRetriesAfterConcurrentUpdate() {
+        // Given
+        double retries = getTransferRetries();
+        updateAccountConcurrently(0, 2);
+
+        // When
+        AccountTransferResponse accountTransferResponse = openBankService.transfer(createAccountTransferRequest(0,
+                1, 2500));
+
+        // Then
+        assertEquals(retries + 2, getTransferRetries());
+        assertEquals(INITIAL_BALANCE - 2500, accountTransferResponse.getFromBalance());
+        assertEquals(INITIAL_BALANCE - 2500, getBalance(0));
+        assertEquals(INITIAL_BALANCE + 2500, getBalance(1));
+        assertEquals(1, countTransactions(0, TransactionType.WITHDRAWAL));
+        assertEquals(1, countTransactions(1, TransactionType.DEPOSIT));
+    }
+
+    @Test
+    void testTransferGivesUpAfterMaxAttempts() {
+        // Given
+        double retries = getTransferRetries();
+        updateAccountConcurrently(0, Integer.MAX_VALUE);
+
+        // Then
+        assertThrows(TransferConflictException.class, () -> openBankService.transfer(createAccountTransferRequest(
+                0, 1, 2500)));
+        assertEquals(retries + appPropertyConfiguration.getTransferMaxAttempts() - 1, getTransferRetries());
+        assertEquals(INITIAL_BALANCE, getBalance(0));
+        assertEquals(INITIAL_BALANCE, getBalance(1));
+        assertEquals(0, countTransactions(0, TransactionType.WITHDRAWAL));
+    }
+
+    @Test
+    void testConcurrentTransfersConserveMoney() throws Exception {
+        // Given
+        ExecutorService executorService = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        List<Future<Boolean>> futureList = new ArrayList<>();
+        AtomicInteger transferConflicts = new AtomicInteger();
+
+        // When
+        long start = System.nanoTime();
+
+        for (int i = 0; i < NUMBER_OF_TRANSFERS; i++) {
+            futureList.add(executorService.submit(() -> {
+                int from = ThreadLocalRandom.current().nextInt(NUMBER_OF_ACCOUNTS);
+                int to = (from + 1 + ThreadLocalRandom.current().nextInt(NUMBER_OF_ACCOUNTS - 1))
+                        % NUMBER_OF_ACCOUNTS;
+
+                try {
+                    openBankService.transfer(createAccountTransferRequest(from, to, ThreadLocalRandom.current()
+                            .nextLong(1, 500)));
+                    return true;
+                } catch (InsufficientFundsException e) {
+                    return false;
+                } catch (TransferConflictException e) {
+                    transferConflicts.incrementAndGet();
+                    return false;
+                }
+            }));
+        }
+
+        int completedTransfers = 0;
+
+        for (Future<Boolean> future : futureList) {
+            if (future.get()) {
+                completedTransfers++;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        LOGGER.info("Completed {} of {} transfers on {} threads with {} conflicts, {} transfers/s",
+                completedTransfers, NUMBER_OF_TRANSFERS, NUMBER_OF_THREADS, transferConflicts.get(),
+                completedTransfers * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+
+        // Then
+        assertTrue(completedTransfers > 0);
+        assertTrue(transferConflicts.get() <= MAX_TRANSFER_CONFLICTS, transferConflicts.get()
+                + " transfers failed on concurrent updates");
+        assertEquals(INITIAL_BALANCE * NUMBER_OF_ACCOUNTS, jdbcTemplate.queryForObject("SELECT SUM(a.BALANCE) "
+                + "FROM ACCOUNT a WHERE a.ACCOUNT_NUMBER LIKE ?", Long.class, ACCOUNT_NUMBER_PREFIX + "%"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COALESCE(SUM(t.AMOUNT), 0) FROM ACCOUNTTRANSACTION t "
+                + "JOIN ACCOUNT a ON a.ID = t.ACCOUNT_ID WHERE a.ACCOUNT_NUMBER LIKE ?", Long.class,
+                ACCOUNT_NUMBER_PREFIX + "%"));
+        assertEquals(completedTransfers, countTransactions(TransactionType.WITHDRAWAL));
+        assertEquals(completedTransfers, countTransactions(TransactionType.DEPOSIT));
+
+        for (int i = 0; i < NUMBER_OF_ACCOUNTS; i++) {
+            assertTrue(getBalance(i) >= 0);
+            assertEquals(getBalance(i), INITIAL_BALANCE + sumAmounts(i));
+        }
+    }
+
+    /**
+     * Bumps the version of the account behind the back of the lock manager while a transfer reads its ledger, so
+     * that the given number of transfer attempts fail on the optimistic lock when they commit.
+     */
+    private void updateAccountConcurrently(int account, int conflicts) {
+        AtomicInteger remainingConflicts = new AtomicInteger(conflicts);
+
+        doAnswer(invocation -> {
+            Account ledgerAccount = invocation.getArgument(0);
+
+            if (ledgerAccount.getAccountNumber().equals(ACCOUNT_NUMBER_PREFIX + account)
+                    && remainingConflicts.getAndDecrement() > 0) {
+                jdbcTemplate.update("UPDATE ACCOUNT SET VERSION = VERSION + 1 WHERE ID = ?", ledgerAccount.getId());
+            }
+
+            return invocation.callRealMethod();
+        }).when(accountLedgerRepository).getLedgerBalance(any(Account.class));
+    }
+
+    private double getTransferRetries() {
+        return meterRegistry.get("openbank.transfer.retries").counter().count();
+    }
+
+    private AccountTransferRequest createAccountTransferRequest(int from, int to, long amount) {
+        AccountTransferRequest accountTransferRequest = new AccountTransferRequest();
+        accountTransferRequest.setFromAccountNumber(ACCOUNT_NUMBER_PREFIX + from);
+        accountTransferRequest.setToAccountNumber(ACCOUNT_NUMBER_PREFIX + to);
+        accountTransferRequest.setAmount(amount);
+
+        return accountTransferRequest;
+    }
+
+    private long getBalance(int account) {
+        return jdbcTemplate.queryForObject("SELECT BALANCE FROM ACCOUNT WHERE ACCOUNT_NUMBER = ?", Long.class,
+                ACCOUNT_NUMBER_PREFIX + account);
+    }
+
+    private long countTransactions(int account, TransactionType transactionType) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ACCOUNTTRANSACTION t JOIN ACCOUNT a ON a.ID = "
+                + "t.ACCOUNT_ID WHERE a.ACCOUNT_NUMBER = ? AND t.TRANSACTIONTYPE = ?", Long.class,
+                ACCOUNT_NUMBER_PREFIX + account, transactionType.getCode());
+    }
+
+    private long countTransactions(TransactionType transactionType) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ACCOUNTTRANSACTION t JOIN ACCOUNT a ON a.ID = "
+                + "t.ACCOUNT_ID WHERE a.ACCOUNT_NUMBER LIKE ? AND t.TRANSACTIONTYPE = ?", Long.class,
+                ACCOUNT_NUMBER_PREFIX + "%", transactionType.getCode());
+    }
+
+    private long sumAmounts(int account) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(t.AMOUNT), 0) FROM ACCOUNTTRANSACTION t JOIN "
+                + "ACCOUNT a ON a.ID = t.ACCOUNT_ID WHERE a.ACCOUNT_NUMBER = ?", Long.class,
+                ACCOUNT_NUMBER_PREFIX + account);
+    }
+}
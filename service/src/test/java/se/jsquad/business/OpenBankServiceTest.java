@@ -16,10 +16,14 @@
 
 package se.jsquad.business;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.activemq.broker.BrokerService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import se.jsquad.AbstractSpringBootConfiguration;
 import se.jsquad.api.client.AccountApi;
 import se.jsquad.api.client.AccountTransactionApi;
@@ -39,6 +43,9 @@ public class OpenBankServiceTest extends AbstractSpringBootConfiguration {
     @Autowired
     private OpenBankService openBankService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void testGetClientInformation() {
         // Given
@@ -65,4 +72,24 @@ public class OpenBankServiceTest extends AbstractSpringBootConfiguration {
         assertEquals("500$ in deposit", accountTransactionApi.getMessage());
         assertEquals(TransactionTypeApi.DEPOSIT, accountTransactionApi.getTransactionType());
     }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testGetClientInformationRunsInReadOnlyTransaction() {
+        // Given
+        double readOnlyCount = getTransactionCount("read-only");
+        double readWriteCount = getTransactionCount("read-write");
+
+        // When
+        openBankService.getClientInformationByPersonIdentification("191212121212");
+
+        // Then
+        assertEquals(readOnlyCount + 1, getTransactionCount("read-only"));
+        assertEquals(readWriteCount, getTransactionCount("read-write"));
+    }
+
+    private double getTransactionCount(String mode) {
+        return meterRegistry.find("openbank.transactions").tag("persistenceUnit", "openbank").tag("mode", mode)
+                .counters().stream().mapToDouble(Counter::count).sum();
+    }
 }
@@ -16,6 +16,7 @@
 
 package se.jsquad.business;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.activemq.broker.BrokerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,17 +27,18 @@ import se.jsquad.component.database.FlywayDatabaseMigration;
 import se.jsquad.entity.SystemProperty;
 import se.jsquad.producer.OpenBankPersistenceUnitProducer;
 import se.jsquad.property.AppPropertyConfiguration;
+import se.jsquad.repository.AccountTransactionPartitionRepository;
 import se.jsquad.repository.SystemPropertyRepository;
-import se.jsquad.thread.NumberOfLocks;
 
 import javax.persistence.EntityManager;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class StartupOpenBankServiceTest extends AbstractSpringBootConfiguration {
@@ -58,7 +60,11 @@ public class StartupOpenBankServiceTest extends AbstractSpringBootConfiguration
     @Autowired
     OpenBankPersistenceUnitProducer openBankPersistenceUnitProducer;
 
-    private boolean runningThreads = true;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    AccountTransactionPartitionRepository accountTransactionPartitionRepository;
 
     private EntityManager entityManager;
 
@@ -88,27 +94,53 @@ public class StartupOpenBankServiceTest extends AbstractSpringBootConfiguration
     }
 
     @Test
-    public void testConcurrentRefreshTheSecondaryLevelCache() {
-        List<Integer> numberOfLockList = new ArrayList<>();
-        var executorService = Executors.newFixedThreadPool(25);
+    public void testRefreshOfTheSecondaryLevelCacheIsMeasured() {
+        // Given
+        long numberOfRefreshes = meterRegistry.get("openbank.cache.refresh").timer().count();
+
+        // When
+        startupOpenBankService.refreshJpaCache();
 
-        executorService.execute(() -> {
-            while (runningThreads) {
-                numberOfLockList.add(NumberOfLocks.getCountNumberOfLocks());
-            }
-        });
+        // Then
+        assertEquals(numberOfRefreshes + 1, meterRegistry.get("openbank.cache.refresh").timer().count());
+        assertTrue(meterRegistry.get("openbank.cache.refresh.evicted").counter().count() >= 0);
+    }
 
+    @Test
+    public void testConcurrentRefreshTheSecondaryLevelCache() throws InterruptedException {
+        // Given
+        long numberOfRefreshes = meterRegistry.get("openbank.cache.refresh").timer().count();
+        double numberOfAcquisitions = meterRegistry.get("openbank.lock.acquisitions").tag("name", "batch")
+                .counters().stream().mapToDouble(counter -> counter.count()).sum();
+        var executorService = Executors.newFixedThreadPool(25);
 
+        // When
         for (int i = 0; i < 25; ++i) {
             executorService.execute(() -> startupOpenBankService.refreshJpaCache());
         }
-        runningThreads = false;
+
         executorService.shutdown();
 
-        while (!executorService.isTerminated()) {
-            // Loops until all threads are executed.
-        }
+        // Then
+        assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(numberOfRefreshes + 25, meterRegistry.get("openbank.cache.refresh").timer().count());
+        assertEquals(numberOfAcquisitions + 25, meterRegistry.get("openbank.lock.acquisitions").tag("name", "batch")
+                .counters().stream().mapToDouble(counter -> counter.count()).sum());
+        assertEquals(0, meterRegistry.get("openbank.lock.queued").tag("name", "batch").gauge().value());
+    }
 
-        assertTrue(numberOfLockList.stream().noneMatch(n -> n.intValue() < 0 || n.intValue() > 1));
+    @Test
+    public void testPartitionMaintenanceIsSkippedWithoutPartitioning() {
+        // Given
+        double numberOfAcquisitions = meterRegistry.get("openbank.lock.acquisitions").tag("name", "batch")
+                .counters().stream().mapToDouble(counter -> counter.count()).sum();
+
+        // When
+        startupOpenBankService.maintainAccountTransactionPartitions();
+
+        // Then
+        assertFalse(accountTransactionPartitionRepository.isPartitioned());
+        assertEquals(numberOfAcquisitions, meterRegistry.get("openbank.lock.acquisitions").tag("name", "batch")
+                .counters().stream().mapToDouble(counter -> counter.count()).sum());
     }
 }
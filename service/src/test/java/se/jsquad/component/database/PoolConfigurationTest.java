@@ -0,0 +1,84 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.activemq.broker.BrokerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import se.jsquad.AbstractSpringBootConfiguration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class PoolConfigurationTest extends AbstractSpringBootConfiguration {
+    @MockBean
+    private BrokerService brokerService;
+
+    @MockBean
+    private FlywayDatabaseMigration flywayDatabaseMigration;
+
+    @Autowired
+    @Qualifier("openBankDataSource")
+    private DataSource openBankDataSource;
+
+    @Autowired
+    @Qualifier("securityDataSource")
+    private DataSource securityDataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testPoolProfiles() {
+        // Given
+        HikariDataSource openBankHikariDataSource = (HikariDataSource) openBankDataSource;
+        HikariDataSource securityHikariDataSource = (HikariDataSource) securityDataSource;
+
+        // Then
+        assertEquals("openbank", openBankHikariDataSource.getPoolName());
+        assertEquals(5, openBankHikariDataSource.getMaximumPoolSize());
+        assertEquals(1, openBankHikariDataSource.getMinimumIdle());
+        assertEquals(1800000, openBankHikariDataSource.getMaxLifetime());
+
+        assertEquals("security", securityHikariDataSource.getPoolName());
+        assertEquals(2, securityHikariDataSource.getMaximumPoolSize());
+        assertEquals(1, securityHikariDataSource.getMinimumIdle());
+    }
+
+    @Test
+    public void testPoolMetrics() throws SQLException {
+        // When
+        try (Connection connection = openBankDataSource.getConnection()) {
+            assertNotNull(connection);
+        }
+
+        // Then
+        assertEquals(5, meterRegistry.get("hikaricp.connections.max").tag("pool", "openbank").gauge()
+            .value());
+        assertNotNull(meterRegistry.get("hikaricp.connections.pending").tag("pool", "openbank").gauge());
+        assertNotNull(meterRegistry.get("hikaricp.connections.acquire").tag("pool", "openbank").timer());
+        assertNotNull(meterRegistry.get("hikaricp.connections.usage").tag("pool", "openbank").timer());
+    }
+}
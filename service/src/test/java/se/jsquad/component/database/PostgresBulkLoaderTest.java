@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.database;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import se.jsquad.entity.Account;
+import se.jsquad.entity.AccountTransaction;
+import se.jsquad.entity.Client;
+import se.jsquad.entity.Person;
+import se.jsquad.entity.RegularClient;
+import se.jsquad.entity.TransactionType;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PostgresBulkLoaderTest {
+    @Test
+    void testCopyChunkNumbersLedgerAndQuotesText() {
+        // Given
+        Instant loadedAt = LocalDateTime.parse("2021-03-01T12:00:00").toInstant(ZoneOffset.UTC);
+        Instant deposited = LocalDateTime.parse("2021-01-10T08:30:00").toInstant(ZoneOffset.UTC);
+        Instant withdrawn = LocalDateTime.parse("2021-02-20T16:45:00").toInstant(ZoneOffset.UTC);
+        AtomicLong nextId = new AtomicLong(100);
+
+        Client client = new Client();
+        Person person = new Person();
+        RegularClient regularClient = new RegularClient();
+        Account account = new Account();
+
+        person.setPersonIdentification("191212121212");
+        person.setFirstName("John");
+        person.setLastName("Doe, \"Jr\"");
+        person.setMail("john.doe@test.se");
+        regularClient.setRating(500L);
+        account.setAccountNumber("1000");
+        account.setBalance(700L);
+        account.getAccountTransactionSet().add(createAccountTransaction(TransactionType.WITHDRAWAL, 300L, withdrawn,
+                ""));
+        account.getAccountTransactionSet().add(createAccountTransaction(TransactionType.DEPOSIT, 500L, deposited,
+                null));
+        client.setPerson(person);
+        client.setClientType(regularClient);
+        client.getAccountSet().add(account);
+
+        PostgresBulkLoader.CopyChunk copyChunk = new PostgresBulkLoader.CopyChunk(sequence ->
+                nextId.getAndIncrement(), loadedAt);
+
+        // When
+        copyChunk.add(client);
+
+        // Then
+        assertEquals("100\n", copyChunk.getClientRows());
+        assertEquals("101,\"191212121212\",\"John\",\"Doe, \"\"Jr\"\"\",\"john.doe@test.se\",100,"
+                + "\"2021-03-01 12:00:00.000000\"\n", copyChunk.getPersonRows());
+        assertEquals("\"REGULAR\",102,100,500,,,,\"2021-03-01 12:00:00.000000\"\n", copyChunk.getClientTypeRows());
+        assertEquals("103,\"1000\",700,100,\"2021-03-01 12:00:00.000000\",0,2,500\n", copyChunk.getAccountRows());
+        assertEquals("104,,0,103,500,\"2021-01-10 08:30:00.000000\",1\n"
+                + "105,\"\",1,103,-300,\"2021-02-20 16:45:00.000000\",2\n", copyChunk.getAccountTransactionRows());
+        assertEquals(Set.of(YearMonth.of(2021, 1), YearMonth.of(2021, 2)),
+                copyChunk.getAccountTransactionMonths());
+    }
+
+    @Test
+    void testBulkLoadRequiresPostgreSql() {
+        // Given
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:bulk_load", "sa", "");
+        PostgresBulkLoader postgresBulkLoader = new PostgresBulkLoader();
+
+        // When
+        boolean supported = postgresBulkLoader.isSupported(dataSource);
+
+        // Then
+        assertFalse(supported);
+        assertThrows(IllegalStateException.class, () -> postgresBulkLoader.loadClients(dataSource, "test",
+                Stream.of(new Client()), 10));
+    }
+
+    private AccountTransaction createAccountTransaction(TransactionType transactionType, Long amount,
+                                                        Instant occurredAt, String message) {
+        AccountTransaction accountTransaction = new AccountTransaction();
+
+        accountTransaction.setTransactionType(transactionType);
+        accountTransaction.setAmount(amount);
+        accountTransaction.setOccurredAt(occurredAt);
+        accountTransaction.setMessage(message);
+
+        return accountTransaction;
+    }
+}
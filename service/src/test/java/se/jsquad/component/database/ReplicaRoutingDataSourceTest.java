@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReplicaRoutingDataSourceTest {
+    private static final String SELECT_ORIGIN = "SELECT ORIGIN FROM ROUTING_ORIGIN";
+
+    private DataSource primaryDataSource;
+    private DataSource replicaDataSource;
+    private AtomicReference<String> correlationId;
+
+    @BeforeEach
+    void setupDatabases() {
+        primaryDataSource = createDatabase("routing_primary", "PRIMARY");
+        replicaDataSource = createDatabase("routing_replica", "REPLICA");
+        correlationId = new AtomicReference<>("");
+    }
+
+    @AfterEach
+    void dropDatabases() {
+        new JdbcTemplate(primaryDataSource).execute("DROP TABLE ROUTING_ORIGIN");
+        new JdbcTemplate(replicaDataSource).execute("DROP TABLE ROUTING_ORIGIN");
+    }
+
+    @Test
+    void testReadOnlyTransactionUsesReplica() {
+        // Given
+        TransactionTemplate transactionTemplate = createTransactionTemplate(List.of(replicaDataSource), Duration.ZERO);
+        JdbcTemplate jdbcTemplate = createJdbcTemplate(transactionTemplate);
+
+        // When
+        transactionTemplate.setReadOnly(true);
+        String readOnlyOrigin = transactionTemplate.execute(status -> jdbcTemplate.queryForObject(SELECT_ORIGIN,
+                String.class));
+
+        transactionTemplate.setReadOnly(false);
+        String readWriteOrigin = transactionTemplate.execute(status -> jdbcTemplate.queryForObject(SELECT_ORIGIN,
+                String.class));
+
+        // Then
+        assertEquals("REPLICA", readOnlyOrigin);
+        assertEquals("PRIMARY", readWriteOrigin);
+    }
+
+    @Test
+    void testUnreachableReplicaFallsBackToPrimary() {
+        // Given
+        DriverManagerDataSource unreachableDataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing_missing;IFEXISTS=TRUE", "sa", "");
+        TransactionTemplate transactionTemplate = createTransactionTemplate(List.of(unreachableDataSource),
+                Duration.ZERO);
+        JdbcTemplate jdbcTemplate = createJdbcTemplate(transactionTemplate);
+        transactionTemplate.setReadOnly(true);
+
+        // When
+        String origin = transactionTemplate.execute(status -> jdbcTemplate.queryForObject(SELECT_ORIGIN,
+                String.class));
+
+        // Then
+        assertEquals("PRIMARY", origin);
+    }
+
+    @Test
+    void testReadYourWritesWindowKeepsReadsOnPrimary() {
+        // Given
+        TransactionTemplate transactionTemplate = createTransactionTemplate(List.of(replicaDataSource),
+                Duration.ofMinutes(1));
+        JdbcTemplate jdbcTemplate = createJdbcTemplate(transactionTemplate);
+
+        correlationId.set("980fda45-2f14-44ab-939d-46020d028ef3");
+        transactionTemplate.execute(status -> jdbcTemplate.update("UPDATE ROUTING_ORIGIN SET ORIGIN = ?",
+                "WRITTEN"));
+
+        transactionTemplate.setReadOnly(true);
+
+        // When
+        String sameCorrelationOrigin = transactionTemplate.execute(status -> jdbcTemplate.queryForObject(
+                SELECT_ORIGIN, String.class));
+
+        correlationId.set("54ab8b83-0fa5-4c9c-8e3c-4a51d1a3d62f");
+        String otherCorrelationOrigin = transactionTemplate.execute(status -> jdbcTemplate.queryForObject(
+                SELECT_ORIGIN, String.class));
+
+        // Then
+        assertEquals("WRITTEN", sameCorrelationOrigin);
+        assertEquals("REPLICA", otherCorrelationOrigin);
+    }
+
+    @Test
+    void testConnectionWithCredentialsIsRouted() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource replicaRoutingDataSource = new ReplicaRoutingDataSource(primaryDataSource,
+                List.of(replicaDataSource), Duration.ZERO, correlationId::get);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(
+                primaryDataSource));
+        transactionTemplate.setReadOnly(true);
+
+        // When
+        String readOnlyOrigin = transactionTemplate.execute(status -> queryOrigin(replicaRoutingDataSource));
+        String origin = queryOrigin(replicaRoutingDataSource);
+
+        // Then
+        assertEquals("REPLICA", readOnlyOrigin);
+        assertEquals("PRIMARY", origin);
+    }
+
+    private String queryOrigin(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection("sa", "")) {
+            return new JdbcTemplate(new SingleConnectionDataSource(connection, true)).queryForObject(SELECT_ORIGIN,
+                    String.class);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private TransactionTemplate createTransactionTemplate(List<DataSource> replicaDataSourceList,
+                                                          Duration readYourWritesWindow) {
+        ReplicaRoutingDataSource replicaRoutingDataSource = new ReplicaRoutingDataSource(primaryDataSource,
+                replicaDataSourceList, readYourWritesWindow, correlationId::get);
+
+        return new TransactionTemplate(new DataSourceTransactionManager(new LazyConnectionDataSourceProxy(
+                replicaRoutingDataSource)));
+    }
+
+    private JdbcTemplate createJdbcTemplate(TransactionTemplate transactionTemplate) {
+        return new JdbcTemplate(((DataSourceTransactionManager) transactionTemplate.getTransactionManager())
+                .getDataSource());
+    }
+
+    private DataSource createDatabase(String name, String origin) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name
+                + ";DB_CLOSE_DELAY=-1", "sa", "");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE ROUTING_ORIGIN (ORIGIN VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO ROUTING_ORIGIN (ORIGIN) VALUES (?)", origin);
+
+        return dataSource;
+    }
+}
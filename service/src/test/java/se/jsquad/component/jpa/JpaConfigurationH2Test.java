@@ -26,6 +26,8 @@ import se.jsquad.AbstractSpringBootConfiguration;
 import se.jsquad.component.database.FlywayDatabaseMigration;
 import se.jsquad.configuration.ApplicationConfiguration;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class JpaConfigurationH2Test extends AbstractSpringBootConfiguration {
@@ -53,8 +55,13 @@ public class JpaConfigurationH2Test extends AbstractSpringBootConfiguration {
         assertEquals("validate", openBankJpaConfiguration.getEntityAction());
         assertEquals("create-drop", openBankJpaConfiguration.getDatabaseAction());
         assertEquals("true", openBankJpaConfiguration.getSecondaryLevelCache());
-        assertEquals("org.hibernate.cache.ehcache.EhCacheRegionFactory",
+        assertEquals("se.jsquad.component.jpa.OpenBankEhcacheRegionFactory",
                 openBankJpaConfiguration.getCacheRegionFactory());
+        assertEquals(1000, openBankJpaConfiguration.getCacheRegions().get("client").getMaxEntries());
+        assertEquals(Duration.ofMinutes(10), openBankJpaConfiguration.getCacheRegions().get("client")
+                .getTimeToLive());
+        assertEquals(5000, openBankJpaConfiguration.getCacheRegions().get("account-transaction")
+                .getMaxEntries());
     }
 
     @Test
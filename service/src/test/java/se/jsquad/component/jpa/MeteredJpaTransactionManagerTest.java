@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.jpa;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.activemq.broker.BrokerService;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.jsquad.AbstractSpringBootConfiguration;
+import se.jsquad.component.database.FlywayDatabaseMigration;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class MeteredJpaTransactionManagerTest extends AbstractSpringBootConfiguration {
+    @MockBean
+    private BrokerService brokerService;
+
+    @MockBean
+    private FlywayDatabaseMigration flywayDatabaseMigration;
+
+    @Autowired
+    @Qualifier("transactionManagerOpenBank")
+    private JpaTransactionManager transactionManager;
+
+    @Autowired
+    private OpenBankPersistenceUnitProducer openBankPersistenceUnitProducer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testReadOnlyTransactionUsesReadOnlySession() throws NoSuchMethodException,
+            InvocationTargetException, IllegalAccessException {
+        // Given
+        EntityManager entityManager = getEntityManager();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+
+            // Then
+            assertTrue(session.isDefaultReadOnly());
+            assertEquals(FlushMode.MANUAL, session.getHibernateFlushMode());
+            // The connection is held for the session, which lets the JPA dialect mark it read-only on begin
+            assertEquals(PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_HOLD, session.unwrap(
+                    SessionImplementor.class).getJdbcCoordinator().getLogicalConnection()
+                    .getConnectionHandlingMode());
+        });
+
+        transactionTemplate.setReadOnly(false);
+        transactionTemplate.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+
+            assertFalse(session.isDefaultReadOnly());
+            assertEquals(FlushMode.AUTO, session.getHibernateFlushMode());
+        });
+    }
+
+    @Test
+    void testTransactionsAreCountedByMode() {
+        // Given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        double readOnlyCount = getTransactionCount("read-only", "commit");
+        double readWriteCount = getTransactionCount("read-write", "commit");
+        double rollbackCount = getTransactionCount("read-write", "rollback");
+
+        // When
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> { });
+        transactionTemplate.executeWithoutResult(status -> { });
+
+        transactionTemplate.setReadOnly(false);
+        transactionTemplate.executeWithoutResult(status -> { });
+        transactionTemplate.executeWithoutResult(status -> status.setRollbackOnly());
+
+        // Then
+        assertEquals(readOnlyCount + 2, getTransactionCount("read-only", "commit"));
+        assertEquals(readWriteCount + 1, getTransactionCount("read-write", "commit"));
+        assertEquals(rollbackCount + 1, getTransactionCount("read-write", "rollback"));
+    }
+
+    private double getTransactionCount(String mode, String outcome) {
+        Counter counter = meterRegistry.find("openbank.transactions").tag("persistenceUnit", "openbank")
+                .tag("mode", mode).tag("outcome", outcome).counter();
+
+        return counter == null ? 0 : counter.count();
+    }
+
+    private EntityManager getEntityManager() throws NoSuchMethodException, InvocationTargetException,
+            IllegalAccessException {
+        Method method = OpenBankPersistenceUnitProducer.class.getDeclaredMethod("getEntityManager");
+        method.setAccessible(true);
+
+        return (EntityManager) method.invoke(openBankPersistenceUnitProducer);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.jpa;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.activemq.broker.BrokerService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import se.jsquad.AbstractSpringBootConfiguration;
+import se.jsquad.component.database.FlywayDatabaseMigration;
+import se.jsquad.entity.Client;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+import se.jsquad.repository.ClientFetchPlan;
+import se.jsquad.repository.ClientRepository;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SecondLevelCacheTest extends AbstractSpringBootConfiguration {
+    @MockBean
+    private BrokerService brokerService;
+
+    @MockBean
+    private FlywayDatabaseMigration flywayDatabaseMigration;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private OpenBankPersistenceUnitProducer openBankPersistenceUnitProducer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void enableAccessToEntityManager() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        Method method = OpenBankPersistenceUnitProducer.class.getDeclaredMethod("getEntityManager");
+        method.setAccessible(true);
+
+        entityManager = (EntityManager) method.invoke(openBankPersistenceUnitProducer);
+    }
+
+    @Test
+    void testClientAggregateIsReadFromDedicatedRegions() {
+        // Given
+        Long clientId = clientRepository.getClientByPersonIdentification("191212121212", ClientFetchPlan.SUMMARY)
+                .getId();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+
+        entityManager.find(Client.class, clientId).getAccountSet().size();
+        entityManager.clear();
+
+        CacheRegionStatistics clientRegionStatistics = statistics.getDomainDataRegionStatistics(Client
+                .CACHE_REGION);
+        CacheRegionStatistics accountSetRegionStatistics = statistics.getDomainDataRegionStatistics(Client
+                .ACCOUNT_SET_CACHE_REGION);
+        long clientHitCount = clientRegionStatistics.getHitCount();
+        long accountSetHitCount = accountSetRegionStatistics.getHitCount();
+
+        // When
+        Client client = entityManager.find(Client.class, clientId);
+        client.getAccountSet().size();
+
+        // Then
+        assertEquals(clientHitCount + 1, clientRegionStatistics.getHitCount());
+        assertEquals(accountSetHitCount + 1, accountSetRegionStatistics.getHitCount());
+        assertTrue(meterRegistry.get("cache.gets").tags("cache", Client.CACHE_REGION, "result", "hit")
+                .functionCounter().count() > 0);
+    }
+}
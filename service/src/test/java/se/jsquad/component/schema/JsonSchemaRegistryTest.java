@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.ValidationMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.springframework.web.method.HandlerMethod;
+import se.jsquad.api.client.AccountTransferRequest;
+import se.jsquad.api.client.ClientInformationRequest;
+import se.jsquad.validator.ValidateJsonSchema;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonSchemaRegistryTest {
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JsonSchemaRegistry jsonSchemaRegistry = new JsonSchemaRegistry(Mockito.mock(Logger.class), meterRegistry);
+
+    @Test
+    void testSchemaIsCompiledOnce() throws Exception {
+        // Given
+        JsonNode json = new ObjectMapper().readTree("{\"person\": {\"personIdentification\": "
+                + "\"191212121212\"}}");
+
+        // When
+        JsonSchema jsonSchema = jsonSchemaRegistry.getJsonSchema(ClientInformationRequest.class);
+        Set<ValidationMessage> validationMessages = jsonSchemaRegistry.validate(ClientInformationRequest.class, json);
+
+        // Then
+        assertSame(jsonSchema, jsonSchemaRegistry.getJsonSchema(ClientInformationRequest.class));
+        assertTrue(validationMessages.isEmpty());
+        assertEquals(1, meterRegistry.get("openbank.json.schema.compile").tag("schema",
+                "ClientInformationRequest").timer().count());
+        assertEquals(1, meterRegistry.get("openbank.json.schema.validation").tag("schema",
+                "ClientInformationRequest").timer().count());
+        assertEquals(1, meterRegistry.get("openbank.json.schema.compiled").gauge().value());
+    }
+
+    @Test
+    void testConcurrentLookupsShareOneSchema() throws Exception {
+        // Given
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Callable<JsonSchema>> callableList = IntStream.range(0, 32)
+                .mapToObj(i -> (Callable<JsonSchema>) () -> jsonSchemaRegistry.getJsonSchema(
+                        AccountTransferRequest.class))
+                .collect(Collectors.toList());
+
+        // When
+        List<Future<JsonSchema>> futureList;
+
+        try {
+            futureList = executorService.invokeAll(callableList);
+        } finally {
+            executorService.shutdown();
+        }
+
+        // Then
+        JsonSchema jsonSchema = jsonSchemaRegistry.getJsonSchema(AccountTransferRequest.class);
+
+        for (Future<JsonSchema> future : futureList) {
+            assertSame(jsonSchema, future.get());
+        }
+        assertEquals(1, meterRegistry.get("openbank.json.schema.compile").tag("schema",
+                "AccountTransferRequest").timer().count());
+    }
+
+    @Test
+    void testInvalidJsonReturnsValidationMessages() throws Exception {
+        // Given
+        JsonNode json = new ObjectMapper().readTree("{\"clientType\": null, \"person\": "
+                + "{\"personIdentification\": 191212121212}}");
+
+        // When
+        Set<ValidationMessage> validationMessages = jsonSchemaRegistry.validate(ClientInformationRequest.class, json);
+
+        // Then
+        assertTrue(validationMessages.stream().anyMatch(validationMessage -> validationMessage.getMessage()
+                .startsWith("$.clientType")));
+        assertTrue(validationMessages.stream().anyMatch(validationMessage -> validationMessage.getMessage()
+                .startsWith("$.person.personIdentification")));
+    }
+
+    @Test
+    void testWarmUpCompilesAnnotatedParameters() throws NoSuchMethodException {
+        // Given
+        HandlerMethod handlerMethod = new HandlerMethod(new TestController(), TestController.class.getMethod(
+                "getClientInformation", ClientInformationRequest.class, String.class));
+
+        // When
+        int numberOfSchemas = jsonSchemaRegistry.warmUp(Collections.singletonList(handlerMethod));
+
+        // Then
+        assertEquals(1, numberOfSchemas);
+        assertEquals(1, meterRegistry.get("openbank.json.schema.compile").tag("schema",
+                "ClientInformationRequest").timer().count());
+    }
+
+    public static class TestController {
+        public void getClientInformation(@ValidateJsonSchema(xsdClass = ClientInformationRequest.class)
+                                                 ClientInformationRequest clientInformationRequest,
+                                         String correlationId) {
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.schema;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import se.jsquad.api.client.ClientInformationRequest;
+import se.jsquad.api.client.PersonApi;
+import se.jsquad.exception.BadRequestRuntimeException;
+import se.jsquad.exception.PayloadTooLargeException;
+import se.jsquad.validator.ValidateJsonSchema;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonSchemaValidatingArgumentResolverTest {
+    private static final long MAX_BODY_BYTES = 1024;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private JsonSchemaValidatingArgumentResolver jsonSchemaValidatingArgumentResolver =
+            new JsonSchemaValidatingArgumentResolver(objectMapper, new JsonSchemaRegistry(Mockito.mock(Logger.class),
+                    new SimpleMeterRegistry()), MAX_BODY_BYTES);
+
+    @Test
+    void testBodyIsValidatedAndBoundFromTheInputStream() throws Exception {
+        // Given
+        MockHttpServletRequest mockHttpServletRequest = new MockHttpServletRequest();
+        mockHttpServletRequest.setContent(("{\"person\": {\"personIdentification\": \"191212121212\"}}")
+                .getBytes(StandardCharsets.UTF_8));
+
+        // When
+        Object argument = jsonSchemaValidatingArgumentResolver.resolveArgument(getMethodParameter(), null,
+                new ServletWebRequest(mockHttpServletRequest), null);
+
+        // Then
+        assertEquals(new ClientInformationRequest().withPerson(new PersonApi().withPersonIdentification(
+                "191212121212")), argument);
+    }
+
+    @Test
+    void testInvalidBodyIsRejected() {
+        // Given
+        MockHttpServletRequest mockHttpServletRequest = new MockHttpServletRequest();
+        mockHttpServletRequest.setContent("{\"clientType\": null}".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        BadRequestRuntimeException badRequestRuntimeException = assertThrows(BadRequestRuntimeException.class,
+                () -> jsonSchemaValidatingArgumentResolver.resolveArgument(getMethodParameter(), null,
+                        new ServletWebRequest(mockHttpServletRequest), null));
+
+        // Then
+        assertTrue(badRequestRuntimeException.getMessage().contains("$.clientType"));
+    }
+
+    @Test
+    void testBodyIsRejectedFromContentLengthBeforeReading() throws Exception {
+        // Given
+        MockHttpServletRequest mockHttpServletRequest = Mockito.spy(new MockHttpServletRequest());
+        Mockito.when(mockHttpServletRequest.getContentLengthLong()).thenReturn(MAX_BODY_BYTES + 1);
+
+        // When
+        assertThrows(PayloadTooLargeException.class, () -> jsonSchemaValidatingArgumentResolver.resolveArgument(
+                getMethodParameter(), null, new ServletWebRequest(mockHttpServletRequest), null));
+
+        // Then
+        Mockito.verify(mockHttpServletRequest, Mockito.never()).getInputStream();
+    }
+
+    @Test
+    void testBodyWithoutContentLengthIsRejectedWhenTheLimitIsPassed() throws Exception {
+        // Given
+        byte[] body = ("{\"person\": {\"firstName\": \"" + "a".repeat((int) MAX_BODY_BYTES) + "\"}}")
+                .getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest mockHttpServletRequest = Mockito.spy(new MockHttpServletRequest());
+        mockHttpServletRequest.setContent(body);
+        Mockito.when(mockHttpServletRequest.getContentLengthLong()).thenReturn(-1L);
+
+        // When
+        PayloadTooLargeException payloadTooLargeException = assertThrows(PayloadTooLargeException.class,
+                () -> jsonSchemaValidatingArgumentResolver.resolveArgument(getMethodParameter(), null,
+                        new ServletWebRequest(mockHttpServletRequest), null));
+
+        // Then
+        assertEquals("Request body exceeds the maximum size of 1024 bytes.", payloadTooLargeException.getMessage());
+    }
+
+    private MethodParameter getMethodParameter() throws NoSuchMethodException {
+        return new MethodParameter(TestController.class.getMethod("updateClientInformation",
+                ClientInformationRequest.class), 0);
+    }
+
+    public static class TestController {
+        public void updateClientInformation(@ValidateJsonSchema(xsdClass = ClientInformationRequest.class)
+                                                    ClientInformationRequest clientInformationRequest) {
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.startup;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import se.jsquad.AbstractSpringBootConfiguration;
+import se.jsquad.component.database.FlywayDatabaseMigration;
+import se.jsquad.repository.ClientFetchPlan;
+import se.jsquad.repository.ClientRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = {"app.startup.async = true",
+    "openbank.datasource.url = jdbc:h2:mem:asyncstartup_openbankdb;DB_CLOSE_ON_EXIT=FALSE",
+    "security.datasource.url = jdbc:h2:mem:asyncstartup_securitydb;DB_CLOSE_ON_EXIT=FALSE"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AsyncStartupPipelineTest extends AbstractSpringBootConfiguration {
+    @MockBean
+    private BrokerService brokerService;
+
+    @MockBean
+    private FlywayDatabaseMigration flywayDatabaseMigration;
+
+    @Autowired
+    private StartupPipeline startupPipeline;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Test
+    void testPersistenceUnitsAndSeedingRunAsStartupPhases() {
+        // When
+        startupPipeline.awaitPhase(StartupPipeline.OPENBANK_SEED_PHASE);
+        startupPipeline.awaitPhase(StartupPipeline.SECURITY_PERSISTENCE_UNIT_PHASE);
+
+        // Then
+        assertTrue(startupPipeline.isReady());
+        assertEquals(Status.UP, startupPipeline.health().getStatus());
+        assertTrue(startupPipeline.getPhaseDurations().keySet().containsAll(List.of(
+                StartupPipeline.OPENBANK_MIGRATION_PHASE, StartupPipeline.SECURITY_MIGRATION_PHASE,
+                StartupPipeline.OPENBANK_PERSISTENCE_UNIT_PHASE, StartupPipeline.SECURITY_PERSISTENCE_UNIT_PHASE,
+                StartupPipeline.OPENBANK_SEED_PHASE)));
+        assertNotNull(clientRepository.getClientByPersonIdentification("191212121212", ClientFetchPlan.SUMMARY));
+    }
+}
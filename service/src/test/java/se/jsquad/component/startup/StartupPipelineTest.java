@@ -0,0 +1,172 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.component.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Status;
+import se.jsquad.property.AppPropertyConfiguration;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StartupPipelineTest {
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StartupPipeline startupPipeline;
+
+    @AfterEach
+    void shutdownStartupPipeline() {
+        startupPipeline.shutdown();
+    }
+
+    @Test
+    void testIndependentPhasesRunInParallelBeforeTheirDependents() throws InterruptedException, ExecutionException,
+            TimeoutException {
+        // Given
+        startupPipeline = createStartupPipeline(true);
+
+        CountDownLatch bothMigrationsStarted = new CountDownLatch(2);
+        List<String> finishedPhaseList = new CopyOnWriteArrayList<>();
+
+        // When
+        startupPipeline.startPhase("first", true, () -> {
+            bothMigrationsStarted.countDown();
+            awaitLatch(bothMigrationsStarted);
+            finishedPhaseList.add("first");
+        });
+        startupPipeline.startPhase("second", true, () -> {
+            bothMigrationsStarted.countDown();
+            awaitLatch(bothMigrationsStarted);
+            finishedPhaseList.add("second");
+        });
+        CompletableFuture<Void> future = startupPipeline.startPhase("third", true, () -> finishedPhaseList
+                .add("third"), "first", "second");
+
+        future.get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(3, finishedPhaseList.size());
+        assertEquals("third", finishedPhaseList.get(2));
+        assertTrue(startupPipeline.isReady());
+        assertEquals(Status.UP, startupPipeline.health().getStatus());
+        assertEquals(3, startupPipeline.getPhaseDurations().size());
+        assertEquals(1, meterRegistry.get("openbank.startup.phase").tag("phase", "third")
+                .tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void testReadinessOnlyWaitsForRequiredPhases() {
+        // Given
+        startupPipeline = createStartupPipeline(true);
+
+        CountDownLatch requiredPhaseLatch = new CountDownLatch(1);
+        CountDownLatch backgroundPhaseLatch = new CountDownLatch(1);
+
+        // When
+        startupPipeline.startPhase("required", true, () -> awaitLatch(requiredPhaseLatch));
+        startupPipeline.startPhase("background", false, () -> awaitLatch(backgroundPhaseLatch));
+
+        // Then
+        assertFalse(startupPipeline.isReady());
+        assertEquals(Status.OUT_OF_SERVICE, startupPipeline.health().getStatus());
+
+        requiredPhaseLatch.countDown();
+        startupPipeline.awaitPhase("required");
+
+        assertTrue(startupPipeline.isReady());
+        assertEquals(Status.UP, startupPipeline.health().getStatus());
+
+        backgroundPhaseLatch.countDown();
+    }
+
+    @Test
+    void testFailedPhaseSkipsDependentsAndIsDown() {
+        // Given
+        startupPipeline = createStartupPipeline(true);
+
+        // When
+        startupPipeline.startPhase("migration", true, () -> {
+            throw new IllegalStateException("Migration failed");
+        });
+        startupPipeline.startPhase("seed", true, () -> {
+        }, "migration");
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> startupPipeline.awaitPhase("seed"));
+        assertFalse(startupPipeline.isReady());
+        assertEquals(Status.DOWN, startupPipeline.health().getStatus());
+        assertEquals(1, meterRegistry.get("openbank.startup.phase").tag("phase", "migration")
+                .tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void testSynchronousStartupRunsPhasesInlineAndThrowsFailures() {
+        // Given
+        startupPipeline = createStartupPipeline(false);
+
+        Thread callingThread = Thread.currentThread();
+        List<Thread> phaseThreadList = new CopyOnWriteArrayList<>();
+
+        // When
+        startupPipeline.startPhase("migration", true, () -> phaseThreadList.add(Thread.currentThread()));
+
+        // Then
+        assertEquals(List.of(callingThread), phaseThreadList);
+        assertTrue(startupPipeline.isReady());
+        assertNull(startupPipeline.getPhaseExecutor("persistence-unit", true, "migration"));
+        assertThrows(IllegalStateException.class, () -> startupPipeline.startPhase("seed", true, () -> {
+            throw new IllegalStateException("Seed failed");
+        }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private StartupPipeline createStartupPipeline(boolean async) {
+        AppPropertyConfiguration appPropertyConfiguration = Mockito.mock(AppPropertyConfiguration.class);
+        ObjectProvider<MeterRegistry> meterRegistryProvider = Mockito.mock(ObjectProvider.class);
+
+        Mockito.when(appPropertyConfiguration.getStartupAsync()).thenReturn(async);
+        Mockito.when(meterRegistryProvider.getIfAvailable()).thenReturn(meterRegistry);
+
+        return new StartupPipeline(appPropertyConfiguration, meterRegistryProvider);
+    }
+
+    private void awaitLatch(CountDownLatch countDownLatch) {
+        try {
+            if (!countDownLatch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Latch was not released in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.interceptor;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import se.jsquad.component.header.ContextHeader;
+import se.jsquad.property.AppPropertyConfiguration;
+
+import java.lang.reflect.Method;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MethodTraceSamplerTest {
+    @Test
+    void testIncludeAndExcludeLists() throws NoSuchMethodException {
+        // Given
+        MethodTraceSampler methodTraceSampler = createMethodTraceSampler(1.0, "se.jsquad",
+                "se.jsquad.interceptor.MethodTraceSamplerTest$Service.ping, se.jsquad.interceptor.MethodTraceSamp");
+        Method pingMethod = Service.class.getMethod("ping");
+        Method pongMethod = Service.class.getMethod("pong");
+
+        // When
+        MethodTraceSampler.MethodTrace pingMethodTrace = methodTraceSampler.getMethodTrace(Service.class, pingMethod);
+        MethodTraceSampler.MethodTrace pongMethodTrace = methodTraceSampler.getMethodTrace(Service.class, pongMethod);
+
+        // Then
+        assertFalse(pingMethodTrace.isEnabled());
+        assertTrue(pongMethodTrace.isEnabled());
+        assertEquals("pong", pongMethodTrace.getMethodName());
+        assertEquals(Service.class.getName(), pongMethodTrace.getLogger().getName());
+        assertSame(pongMethodTrace, methodTraceSampler.getMethodTrace(Service.class, pongMethod));
+        assertFalse(createMethodTraceSampler(1.0, "se.jsquad.business", "").getMethodTrace(Service.class,
+                pongMethod).isEnabled());
+    }
+
+    @Test
+    void testSampleRateBounds() {
+        // When & then
+        assertTrue(createMethodTraceSampler(1.0, "se.jsquad", "").isSampled());
+        assertFalse(createMethodTraceSampler(0.0, "se.jsquad", "").isSampled());
+    }
+
+    @Test
+    void testSamplingByCorrelationId() {
+        // Given
+        MethodTraceSampler methodTraceSampler = createMethodTraceSampler(0.25, "se.jsquad", "");
+
+        // When
+        long numberOfSampledRequests = IntStream.range(0, 10000)
+                .mapToObj(i -> UUID.nameUUIDFromBytes(Integer.toString(i).getBytes()).toString())
+                .filter(methodTraceSampler::isSampled)
+                .count();
+
+        // Then
+        assertTrue(numberOfSampledRequests > 2200 && numberOfSampledRequests < 2800,
+                "Failed to assert sample rate " + numberOfSampledRequests);
+        assertEquals(methodTraceSampler.isSampled("980fda45-2f14-44ab-939d-46020d028ef3"),
+                methodTraceSampler.isSampled("980fda45-2f14-44ab-939d-46020d028ef3"));
+    }
+
+    static MethodTraceSampler createMethodTraceSampler(double sampleRate, String include, String exclude) {
+        AppPropertyConfiguration appPropertyConfiguration = Mockito.mock(AppPropertyConfiguration.class);
+        Mockito.when(appPropertyConfiguration.getTraceSampleRate()).thenReturn(sampleRate);
+        Mockito.when(appPropertyConfiguration.getTraceInclude()).thenReturn(include);
+        Mockito.when(appPropertyConfiguration.getTraceExclude()).thenReturn(exclude);
+
+        return new MethodTraceSampler(Mockito.mock(ContextHeader.class), appPropertyConfiguration);
+    }
+
+    public static class Service {
+        public String ping() {
+            return "ping";
+        }
+
+        public String pong() {
+            return "pong";
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.interceptor;
+
+import ch.qos.logback.classic.Level;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import se.jsquad.component.header.ContextHeader;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the overhead of the method tracing advice with warm-up and measured iterations. The timed comparison is
+ * tagged benchmark and only runs with the benchmarks profile, the allocation check of the fast path is a unit test.
+ */
+public class MethodTracingInterceptorBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodTracingInterceptorBenchmarkTest.class);
+    private static final int WARM_UP_ITERATIONS = 200_000;
+    private static final int MEASURED_ITERATIONS = 1_000_000;
+
+    @Test
+    @Tag("benchmark")
+    void testAdviceOverhead() {
+        // Given
+        Counter counter = new Counter();
+        Counter plainCounter = new Counter();
+        Counter unsampledCounter = createProxy(counter, MethodTraceSamplerTest.createMethodTraceSampler(0.0,
+                "se.jsquad", ""));
+        Counter excludedCounter = createProxy(counter, MethodTraceSamplerTest.createMethodTraceSampler(1.0,
+                "se.jsquad", Counter.class.getName()));
+        Counter sampledCounter = createProxy(counter, MethodTraceSamplerTest.createMethodTraceSampler(1.0,
+                "se.jsquad", ""));
+
+        ch.qos.logback.classic.Logger counterLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(
+                Counter.class);
+        Level level = counterLogger.getLevel();
+        counterLogger.setLevel(Level.WARN);
+
+        // When
+        long plainNanos;
+        long unsampledNanos;
+        long excludedNanos;
+        long sampledNanos;
+
+        try {
+            plainNanos = measure(plainCounter::increment);
+            unsampledNanos = measure(unsampledCounter::increment);
+            excludedNanos = measure(excludedCounter::increment);
+            sampledNanos = measure(sampledCounter::increment);
+        } finally {
+            counterLogger.setLevel(level);
+        }
+
+        LOGGER.info("Method tracing over {} iterations, plain: {} ns/op, not sampled: {} ns/op, excluded: {} ns/op, "
+                        + "sampled with INFO disabled: {} ns/op", MEASURED_ITERATIONS, plainNanos / MEASURED_ITERATIONS,
+                unsampledNanos / MEASURED_ITERATIONS, excludedNanos / MEASURED_ITERATIONS,
+                sampledNanos / MEASURED_ITERATIONS);
+
+        // Then
+        assertEquals(3 * (WARM_UP_ITERATIONS + MEASURED_ITERATIONS), counter.count);
+    }
+
+    @Test
+    void testUnsampledCallsDoNotAllocate() throws Throwable {
+        // Given
+        MethodTracingInterceptor methodTracingInterceptor = new MethodTracingInterceptor(Mockito.mock(
+                ContextHeader.class), MethodTraceSamplerTest.createMethodTraceSampler(0.0, "se.jsquad", ""));
+        Counter counter = new Counter();
+        MethodInvocation methodInvocation = new CounterInvocation(counter);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            methodTracingInterceptor.invoke(methodInvocation);
+        }
+
+        // When
+        long allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            methodTracingInterceptor.invoke(methodInvocation);
+        }
+
+        allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBytes;
+
+        LOGGER.info("Not sampled method tracing allocated {} bytes over {} iterations", allocatedBytes,
+                MEASURED_ITERATIONS);
+
+        // Then
+        assertTrue(allocatedBytes < MEASURED_ITERATIONS, "Failed to assert an allocation free fast path, "
+                + allocatedBytes + " bytes allocated");
+        assertEquals(WARM_UP_ITERATIONS + MEASURED_ITERATIONS, counter.count);
+    }
+
+    private Counter createProxy(Counter counter, MethodTraceSampler methodTraceSampler) {
+        ProxyFactory proxyFactory = new ProxyFactory(counter);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new MethodTracingInterceptor(Mockito.mock(ContextHeader.class), methodTraceSampler));
+
+        return (Counter) proxyFactory.getProxy();
+    }
+
+    private long measure(IntSupplier call) {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            call.getAsInt();
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            call.getAsInt();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    public static class Counter {
+        private int count;
+
+        public int increment() {
+            return ++count;
+        }
+    }
+
+    private static class CounterInvocation implements MethodInvocation {
+        private static final Method INCREMENT_METHOD;
+
+        static {
+            try {
+                INCREMENT_METHOD = Counter.class.getMethod("increment");
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private final Counter counter;
+        private final Object[] arguments = new Object[0];
+
+        CounterInvocation(Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public Method getMethod() {
+            return INCREMENT_METHOD;
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return arguments;
+        }
+
+        @Override
+        public Object proceed() {
+            counter.increment();
+            return null;
+        }
+
+        @Override
+        public Object getThis() {
+            return counter;
+        }
+
+        @Override
+        public AccessibleObject getStaticPart() {
+            return INCREMENT_METHOD;
+        }
+    }
+}
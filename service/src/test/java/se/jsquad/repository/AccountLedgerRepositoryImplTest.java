@@ -0,0 +1,164 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import se.jsquad.AbstractSpringBootConfiguration;
+import se.jsquad.component.database.FlywayDatabaseMigration;
+import se.jsquad.entity.Account;
+import se.jsquad.entity.AccountBalanceSnapshot;
+import se.jsquad.entity.AccountTransaction;
+import se.jsquad.entity.TransactionType;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccountLedgerRepositoryImplTest extends AbstractSpringBootConfiguration {
+    @MockBean
+    private BrokerService brokerService;
+
+    @MockBean
+    private FlywayDatabaseMigration flywayDatabaseMigration;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountLedgerRepository accountLedgerRepository;
+
+    @Autowired
+    private AccountTransactionRepository accountTransactionRepository;
+
+    @Autowired
+    private OpenBankPersistenceUnitProducer openBankPersistenceUnitProducer;
+
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void enableAccessToEntityManager() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        Method method = OpenBankPersistenceUnitProducer.class.getDeclaredMethod("getEntityManager");
+        method.setAccessible(true);
+
+        entityManager = (EntityManager) method.invoke(openBankPersistenceUnitProducer);
+    }
+
+    @Test
+    void testImportedAccountOpensLedgerAtItsBalance() {
+        // Given
+        Account account = new Account();
+        account.setAccountNumber("6000");
+        account.setBalance(Long.valueOf(1000));
+        account.setAccountTransactionSet(new HashSet<>());
+
+        Instant occurredAt = Instant.parse("2021-01-01T00:00:00Z");
+
+        for (int i = 0; i < 4; i++) {
+            AccountTransaction accountTransaction = new AccountTransaction();
+            accountTransaction.setAccount(account);
+            accountTransaction.setAmount(Long.valueOf(100));
+            accountTransaction.setMessage("Transaction " + i);
+            accountTransaction.setTransactionType(i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL);
+            accountTransaction.setOccurredAt(occurredAt.minusSeconds(i));
+
+            account.getAccountTransactionSet().add(accountTransaction);
+        }
+
+        // When
+        entityManager.persist(account);
+        entityManager.flush();
+        entityManager.clear();
+
+        account = accountRepository.getAccountByAccountNumber("6000");
+
+        // Then
+        assertEquals(4, account.getLedgerSequence());
+        assertEquals(1000, account.getOpeningBalance());
+        assertEquals(1000, accountLedgerRepository.getLedgerBalance(account));
+
+        for (AccountTransaction accountTransaction : account.getAccountTransactionSet()) {
+            // The oldest transaction comes first in the ledger.
+            assertEquals(4 - accountTransaction.getSequenceNumber(), occurredAt.getEpochSecond()
+                    - accountTransaction.getOccurredAt().getEpochSecond());
+            assertEquals(accountTransaction.getTransactionType() == TransactionType.WITHDRAWAL ? -100 : 100,
+                    accountTransaction.getAmount());
+        }
+    }
+
+    @Test
+    void testCompactionRollsEntriesIntoSnapshot() {
+        // Given
+        Account account = new Account();
+        account.setAccountNumber("6001");
+        account.setBalance(Long.valueOf(500));
+
+        entityManager.persist(account);
+
+        appendTransactions(account, 25);
+
+        // When
+        List<Account> accountList = accountLedgerRepository.getAccountsDueForSnapshot(10, 100);
+        int numberOfSnapshots = accountLedgerRepository.compactLedger(10, 100);
+
+        // Then
+        assertTrue(accountList.contains(account));
+        assertEquals(accountList.size(), numberOfSnapshots);
+        assertFalse(accountLedgerRepository.getAccountsDueForSnapshot(10, 100).contains(account));
+
+        AccountBalanceSnapshot accountBalanceSnapshot = entityManager.createNamedQuery(AccountBalanceSnapshot
+                .LATEST_ACCOUNT_BALANCE_SNAPSHOT, AccountBalanceSnapshot.class)
+                .setParameter(AccountBalanceSnapshot.PARAM_ACCOUNT, account)
+                .setMaxResults(1)
+                .getSingleResult();
+
+        assertEquals(25, accountBalanceSnapshot.getSequenceNumber());
+        assertEquals(account.getBalance(), accountBalanceSnapshot.getBalance());
+        assertEquals(account.getBalance().longValue(), accountLedgerRepository.getLedgerBalance(account));
+
+        // When
+        appendTransactions(account, 5);
+
+        // Then
+        assertFalse(accountLedgerRepository.getAccountsDueForSnapshot(10, 100).contains(account));
+        assertEquals(30, account.getLedgerSequence());
+        assertEquals(account.getBalance().longValue(), accountLedgerRepository.getLedgerBalance(account));
+    }
+
+    private void appendTransactions(Account account, int numberOfTransactions) {
+        for (int i = 0; i < numberOfTransactions; i++) {
+            AccountTransaction accountTransaction = new AccountTransaction();
+            accountTransaction.setAmount(Long.valueOf(10 + i));
+            accountTransaction.setMessage("Transaction " + i);
+            accountTransaction.setTransactionType(i % 3 == 0 ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT);
+
+            account.appendTransaction(accountTransaction);
+            accountTransactionRepository.persistAccountTransaction(accountTransaction);
+        }
+    }
+}
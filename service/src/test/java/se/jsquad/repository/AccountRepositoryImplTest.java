@@ -19,35 +19,24 @@ package se.jsquad.repository;
 import org.apache.activemq.broker.BrokerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.junit.jupiter.api.parallel.Execution;
-import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.test.context.TestPropertySource;
-import org.springframework.test.context.junit.jupiter.SpringExtension;
+import se.jsquad.AbstractSpringBootConfiguration;
 import se.jsquad.component.database.FlywayDatabaseMigration;
-import se.jsquad.entity.SystemProperty;
+import se.jsquad.entity.Account;
 import se.jsquad.producer.OpenBankPersistenceUnitProducer;
 
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.HashSet;
 
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertTrue;
-
-@ExtendWith(SpringExtension.class)
-@SpringBootTest
-@TestPropertySource(locations = {"classpath:test/application.properties",
-        "classpath:activemq.properties",
-        "classpath:test/configuration/configuration_test.properties",
-        "classpath:test/configuration/openbank_jpa.properties",
-        "classpath:test/configuration/security_jpa.properties"},
-        properties = {"jasypt.encryptor.password = testencryption"})
-@Execution(ExecutionMode.SAME_THREAD)
-public class SystemPropertyRepositoryImplTest {
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AccountRepositoryImplTest extends AbstractSpringBootConfiguration {
     @MockBean
     private BrokerService brokerService;
 
@@ -55,7 +44,7 @@ public class SystemPropertyRepositoryImplTest {
     private FlywayDatabaseMigration flywayDatabaseMigration;
 
     @Autowired
-    private SystemPropertyRepository systemPropertyRepository;
+    private AccountRepository accountRepository;
 
     @Autowired
     private OpenBankPersistenceUnitProducer openBankPersistenceUnitProducer;
@@ -71,26 +60,41 @@ public class SystemPropertyRepositoryImplTest {
     }
 
     @Test
-    public void testClearFindAndRefreshSecondaryCacheLevel() {
+    void testGetAccountByAccountNumber() {
         // Given
-        SystemProperty systemProperty = systemPropertyRepository.findAllUniqueSystemProperties().iterator().next();
+        Account account = createAccount("7000");
 
-        // Then
-        assertTrue(entityManager.getEntityManagerFactory().getCache()
-                .contains(SystemProperty.class, systemProperty.getId()));
+        entityManager.persist(account);
+        entityManager.flush();
+        entityManager.clear();
 
         // When
-        systemPropertyRepository.clearSecondaryLevelCache();
+        Account foundAccount = accountRepository.getAccountByAccountNumber("7000");
 
         // Then
-        assertFalse(entityManager.getEntityManagerFactory().getCache().
-                contains(SystemProperty.class, systemProperty.getId()));
+        assertEquals(account.getId(), foundAccount.getId());
+        assertNull(accountRepository.getAccountByAccountNumber("7001"));
+    }
+
+    @Test
+    void testAccountNumberIsUnique() {
+        // Given
+        entityManager.persist(createAccount("7002"));
+        entityManager.flush();
 
         // When
-        systemPropertyRepository.refreshSecondaryLevelCache();
+        entityManager.persist(createAccount("7002"));
 
         // Then
-        assertTrue(entityManager.getEntityManagerFactory().getCache()
-                .contains(SystemProperty.class, systemProperty.getId()));
+        assertThrows(PersistenceException.class, () -> entityManager.flush());
+    }
+
+    private Account createAccount(String accountNumber) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setBalance(Long.valueOf(0));
+        account.setAccountTransactionSet(new HashSet<>());
+
+        return account;
     }
 }
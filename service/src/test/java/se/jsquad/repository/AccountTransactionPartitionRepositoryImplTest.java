@@ -0,0 +1,65 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+
+public class AccountTransactionPartitionRepositoryImplTest {
+    private JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    private AccountTransactionPartitionRepositoryImpl accountTransactionPartitionRepository =
+            new AccountTransactionPartitionRepositoryImpl(jdbcTemplate);
+
+    @Test
+    public void testPartitionBoundsAreUtcMonths() {
+        // Given
+        YearMonth month = YearMonth.of(2021, 12);
+
+        // When
+        accountTransactionPartitionRepository.createPartition(month);
+
+        // Then
+        Mockito.verify(jdbcTemplate).queryForObject(eq("SELECT create_accounttransaction_partition(?, ?, ?)"),
+                eq(String.class), eq("accounttransaction_p202112"),
+                eq(Timestamp.valueOf(LocalDateTime.of(2021, 12, 1, 0, 0))),
+                eq(Timestamp.valueOf(LocalDateTime.of(2022, 1, 1, 0, 0))));
+    }
+
+    @Test
+    public void testPartitionStartIsStatementStart() {
+        // Given
+        YearMonth month = YearMonth.of(2021, 3);
+
+        // When
+        LocalDateTime partitionStart = AccountTransactionPartitionRepositoryImpl.getPartitionStart(month);
+
+        // Then
+        assertEquals(Instant.parse("2021-03-01T00:00:00Z"), partitionStart.toInstant(ZoneOffset.UTC));
+        assertEquals("accounttransaction_p202103", AccountTransactionPartitionRepositoryImpl
+                .getPartitionName(month));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import se.jsquad.AbstractSpringBootConfiguration;
+import se.jsquad.component.database.FlywayDatabaseMigration;
+import se.jsquad.entity.Account;
+import se.jsquad.entity.AccountTransaction;
+import se.jsquad.entity.TransactionType;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccountTransactionRepositoryImplTest extends AbstractSpringBootConfiguration {
+    @MockBean
+    private BrokerService brokerService;
+
+    @MockBean
+    private FlywayDatabaseMigration flywayDatabaseMigration;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountTransactionRepository accountTransactionRepository;
+
+    @Autowired
+    private OpenBankPersistenceUnitProducer openBankPersistenceUnitProducer;
+
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void enableAccessToEntityManager() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        Method method = OpenBankPersistenceUnitProducer.class.getDeclaredMethod("getEntityManager");
+        method.setAccessible(true);
+
+        entityManager = (EntityManager) method.invoke(openBankPersistenceUnitProducer);
+    }
+
+    @Test
+    void testGetAccountTransactionPagesWithCursor() {
+        // Given
+        Account account = new Account();
+        account.setAccountNumber("5000");
+        account.setBalance(Long.valueOf(0));
+        account.setAccountTransactionSet(new HashSet<>());
+
+        Instant occurredAt = Instant.parse("2021-01-01T00:00:00Z");
+
+        for (int i = 0; i < 7; i++) {
+            AccountTransaction accountTransaction = new AccountTransaction();
+            accountTransaction.setAccount(account);
+            accountTransaction.setAmount(Long.valueOf(i));
+            accountTransaction.setMessage("Transaction " + i);
+            accountTransaction.setTransactionType(TransactionType.DEPOSIT);
+            // Every second transaction shares its time with the previous one to exercise the id tie breaker.
+            accountTransaction.setOccurredAt(occurredAt.plusSeconds(i / 2));
+
+            account.getAccountTransactionSet().add(accountTransaction);
+        }
+
+        entityManager.persist(account);
+        entityManager.flush();
+        entityManager.clear();
+
+        account = accountRepository.getAccountByAccountNumber("5000");
+
+        // When
+        List<AccountTransaction> accountTransactionList = new ArrayList<>();
+        List<AccountTransaction> page = accountTransactionRepository.getAccountTransactionPage(account, null, 3);
+
+        while (!page.isEmpty()) {
+            accountTransactionList.addAll(page);
+            page = accountTransactionRepository.getAccountTransactionPage(account, AccountTransactionCursor.of(
+                    page.get(page.size() - 1)), 3);
+        }
+
+        // Then
+        assertEquals(7, accountTransactionList.size());
+        assertEquals(7, new HashSet<>(accountTransactionList).size());
+
+        for (int i = 1; i < accountTransactionList.size(); i++) {
+            AccountTransaction previous = accountTransactionList.get(i - 1);
+            AccountTransaction current = accountTransactionList.get(i);
+
+            assertTrue(previous.getOccurredAt().isAfter(current.getOccurredAt())
+                    || (previous.getOccurredAt().equals(current.getOccurredAt())
+                    && previous.getId() > current.getId()));
+        }
+    }
+
+    @Test
+    void testGetAccountTransactionsBetweenIsBoundedByOccurrence() {
+        // Given
+        Account account = new Account();
+        account.setAccountNumber("5001");
+        account.setBalance(Long.valueOf(0));
+        account.setAccountTransactionSet(new HashSet<>());
+
+        Instant monthStart = Instant.parse("2021-02-01T00:00:00Z");
+        Instant monthEnd = Instant.parse("2021-03-01T00:00:00Z");
+
+        for (Instant occurredAt : List.of(monthStart.minusMillis(1), monthStart, monthEnd.minusMillis(1), monthEnd)) {
+            AccountTransaction accountTransaction = new AccountTransaction();
+            accountTransaction.setAccount(account);
+            accountTransaction.setAmount(Long.valueOf(100));
+            accountTransaction.setMessage("Transaction at " + occurredAt);
+            accountTransaction.setTransactionType(TransactionType.DEPOSIT);
+            accountTransaction.setOccurredAt(occurredAt);
+
+            account.getAccountTransactionSet().add(accountTransaction);
+        }
+
+        entityManager.persist(account);
+        entityManager.flush();
+        entityManager.clear();
+
+        account = accountRepository.getAccountByAccountNumber("5001");
+
+        // When
+        List<AccountTransaction> accountTransactionList = accountTransactionRepository
+                .getAccountTransactionsBetween(account, monthStart, monthEnd);
+
+        // Then
+        assertEquals(2, accountTransactionList.size());
+        assertEquals(monthStart, accountTransactionList.get(0).getOccurredAt());
+        assertEquals(monthEnd.minusMillis(1), accountTransactionList.get(1).getOccurredAt());
+    }
+
+    @Test
+    void testCursorRoundTrip() {
+        // Given
+        AccountTransactionCursor cursor = new AccountTransactionCursor(Instant.parse("2021-01-01T10:15:30.123456Z"),
+                Long.valueOf(42));
+
+        // When
+        AccountTransactionCursor decodedCursor = AccountTransactionCursor.decode(cursor.encode());
+
+        // Then
+        assertEquals(cursor.getOccurredAt(), decodedCursor.getOccurredAt());
+        assertEquals(cursor.getId(), decodedCursor.getId());
+    }
+
+    @Test
+    void testGetUnknownAccount() {
+        // When and then
+        assertNull(accountRepository.getAccountByAccountNumber("unknown"));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.activemq.broker.BrokerService;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.jsquad.AbstractSpringBootConfiguration;
+import se.jsquad.component.database.FlywayDatabaseMigration;
+import se.jsquad.entity.Client;
+import se.jsquad.entity.Person;
+import se.jsquad.entity.RegularClient;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = {"openbank.jpa.queryCache = true"})
+public class ClientQueryCacheTest extends AbstractSpringBootConfiguration {
+    @MockBean
+    private BrokerService brokerService;
+
+    @MockBean
+    private FlywayDatabaseMigration flywayDatabaseMigration;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private OpenBankPersistenceUnitProducer openBankPersistenceUnitProducer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("transactionManagerOpenBank")
+    private JpaTransactionManager transactionManager;
+
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void enableAccessToEntityManager() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        Method method = OpenBankPersistenceUnitProducer.class.getDeclaredMethod("getEntityManager");
+        method.setAccessible(true);
+
+        entityManager = (EntityManager) method.invoke(openBankPersistenceUnitProducer);
+    }
+
+    @Test
+    void testPersonIdentificationLookupIsServedFromQueryCache() {
+        // Given
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+
+        // Read-write cache entries are only visible to sessions started after they were put
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        transactionTemplate.executeWithoutResult(status -> clientRepository.getClientByPersonIdentification(
+                "191212121212", ClientFetchPlan.AGGREGATE));
+        statistics.clear();
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            Client client = clientRepository.getClientByPersonIdentification("191212121212",
+                    ClientFetchPlan.AGGREGATE);
+
+            // Then
+            assertEquals("191212121212", client.getPerson().getPersonIdentification());
+            assertTrue(Hibernate.isInitialized(client.getAccountSet()));
+            client.getAccountSet().forEach(account -> assertTrue(Hibernate.isInitialized(account
+                    .getAccountTransactionSet())));
+        });
+
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(0, statistics.getQueryExecutionCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+        // Only the mapped-by person and client type are resolved by their foreign key
+        assertTrue(statistics.getPrepareStatementCount() <= 2, "Cached client was loaded with "
+                + statistics.getPrepareStatementCount() + " statements");
+        assertTrue(meterRegistry.get("openbank.cache.query.hit.ratio").tag("cache", Client.ID_LOOKUP_CACHE_REGION)
+                .gauge().value() > 0);
+    }
+
+    @Test
+    void testClientMissingFromSecondLevelCacheIsLoadedWithEntityGraph() {
+        // Given
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        transactionTemplate.executeWithoutResult(status -> clientRepository.getClientByPersonIdentification(
+                "191212121212", ClientFetchPlan.AGGREGATE));
+        entityManager.getEntityManagerFactory().getCache().evict(Client.class);
+        statistics.clear();
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            Client client = clientRepository.getClientByPersonIdentification("191212121212",
+                    ClientFetchPlan.AGGREGATE);
+
+            // Then
+            assertTrue(Hibernate.isInitialized(client.getAccountSet()));
+            client.getAccountSet().forEach(account -> assertTrue(Hibernate.isInitialized(account
+                    .getAccountTransactionSet())));
+        });
+
+        assertEquals(1, statistics.getQueryExecutionCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 3, "Evicted client was loaded with "
+                + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void testPersonIdentificationLookupIsInvalidatedByWrites() {
+        // Given
+        String personIdentification = "197001010101";
+
+        assertNull(clientRepository.getClientByPersonIdentification(personIdentification,
+                ClientFetchPlan.SUMMARY));
+
+        Client client = new Client();
+        client.setClientType(new RegularClient());
+        client.getClientType().setClient(client);
+        ((RegularClient) client.getClientType()).setRating(Long.valueOf(100));
+
+        client.setPerson(new Person());
+        client.getPerson().setClient(client);
+        client.getPerson().setFirstName("Cache");
+        client.getPerson().setLastName("Doe");
+        client.getPerson().setPersonIdentification(personIdentification);
+        client.getPerson().setMail("cache.doe@test.se");
+
+        // When
+        clientRepository.persistClient(client);
+        entityManager.flush();
+
+        // Then
+        assertEquals(client.getId(), clientRepository.getClientByPersonIdentification(personIdentification,
+                ClientFetchPlan.SUMMARY).getId());
+    }
+}
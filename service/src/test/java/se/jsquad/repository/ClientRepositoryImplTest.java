@@ -17,6 +17,10 @@
 package se.jsquad.repository;
 
 import org.apache.activemq.broker.BrokerService;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -25,10 +29,21 @@ import se.jsquad.component.database.FlywayDatabaseMigration;
 import se.jsquad.entity.Account;
 import se.jsquad.entity.AccountTransaction;
 import se.jsquad.entity.Client;
+import se.jsquad.entity.Person;
 import se.jsquad.entity.RegularClient;
 import se.jsquad.entity.TransactionType;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ClientRepositoryImplTest extends AbstractSpringBootConfiguration {
     @MockBean
@@ -40,6 +55,19 @@ public class ClientRepositoryImplTest extends AbstractSpringBootConfiguration {
     @Autowired
     private ClientRepository clientRepository;
 
+    @Autowired
+    private OpenBankPersistenceUnitProducer openBankPersistenceUnitProducer;
+
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void enableAccessToEntityManager() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        Method method = OpenBankPersistenceUnitProducer.class.getDeclaredMethod("getEntityManager");
+        method.setAccessible(true);
+
+        entityManager = (EntityManager) method.invoke(openBankPersistenceUnitProducer);
+    }
+
     @Test
     void testGetClientInformation() {
         // Given
@@ -71,4 +99,119 @@ public class ClientRepositoryImplTest extends AbstractSpringBootConfiguration {
         assertEquals("500$ in deposit", accountTransaction.getMessage());
         assertEquals(TransactionType.DEPOSIT, accountTransaction.getTransactionType());
     }
+
+    @Test
+    void testGetClientAggregateWithBoundedNumberOfStatements() {
+        // Given
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        // When
+        Client client = clientRepository.getClientByPersonIdentification("191212121212",
+                ClientFetchPlan.AGGREGATE);
+
+        client.getAccountSet().forEach(account -> account.getAccountTransactionSet().size());
+
+        // Then
+        assertTrue(Hibernate.isInitialized(client.getAccountSet()));
+        assertTrue(statistics.getPrepareStatementCount() <= 2, "Client aggregate was loaded with "
+                + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void testGetClientSummaryDoesNotLoadAccounts() {
+        // Given
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        // When
+        Client client = clientRepository.getClientByPersonIdentification("191212121212", ClientFetchPlan.SUMMARY);
+
+        // Then
+        assertEquals("191212121212", client.getPerson().getPersonIdentification());
+        assertFalse(Hibernate.isInitialized(client.getAccountSet()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetClientWithMalformedPersonIdentification() {
+        // When and then
+        assertNull(clientRepository.getClientByPersonIdentification("19121212121X", ClientFetchPlan.AGGREGATE));
+        assertNull(clientRepository.getClientByPersonIdentification("1912121212", ClientFetchPlan.AGGREGATE));
+    }
+
+    @Test
+    void testPersistClientsAreWrittenInBatches() {
+        // Given
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            clientRepository.persistClient(createClient(i));
+        }
+
+        entityManager.flush();
+
+        // Then
+        assertEquals(120, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() < 20, "20 clients were persisted with "
+                + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void testPersistClientsFromStream() {
+        // Given
+        Client detachedClient = createClient(100);
+
+        // When
+        long numberOfClients = clientRepository.persistClients(IntStream.range(100, 120).mapToObj(index ->
+                index == 100 ? detachedClient : createClient(index)));
+
+        // Then
+        assertEquals(20, numberOfClients);
+        assertFalse(entityManager.contains(detachedClient));
+
+        Client client = clientRepository.getClientByPersonIdentification("198000000119");
+
+        assertEquals("batch.doe119@test.se", client.getPerson().getMail());
+        assertEquals(2, client.getAccountSet().iterator().next().getAccountTransactionSet().size());
+    }
+
+    private Client createClient(int index) {
+        Client client = new Client();
+        client.setClientType(new RegularClient());
+        client.getClientType().setClient(client);
+        ((RegularClient) client.getClientType()).setRating(Long.valueOf(100));
+
+        Account account = new Account();
+        account.setBalance(Long.valueOf(0));
+        account.setAccountNumber(String.valueOf(9000 + index));
+        account.setClient(client);
+        account.setAccountTransactionSet(new HashSet<>());
+
+        for (TransactionType transactionType : TransactionType.values()) {
+            AccountTransaction accountTransaction = new AccountTransaction();
+            accountTransaction.setMessage("100$ in " + transactionType.name().toLowerCase());
+            accountTransaction.setTransactionType(transactionType);
+            accountTransaction.setAccount(account);
+
+            account.getAccountTransactionSet().add(accountTransaction);
+        }
+
+        client.setAccountSet(new HashSet<>());
+        client.getAccountSet().add(account);
+
+        client.setPerson(new Person());
+        client.getPerson().setClient(client);
+        client.getPerson().setFirstName("Batch");
+        client.getPerson().setLastName("Doe");
+        client.getPerson().setPersonIdentification(String.format("1980%08d", index));
+        client.getPerson().setMail("batch.doe" + index + "@test.se");
+
+        return client;
+    }
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import se.jsquad.AbstractSpringBootConfiguration;
+import se.jsquad.adapter.ClientAdapter;
+import se.jsquad.api.client.AccountApi;
+import se.jsquad.api.client.ClientApi;
+import se.jsquad.api.client.TransactionTypeApi;
+import se.jsquad.api.client.TypeApi;
+import se.jsquad.component.database.FlywayDatabaseMigration;
+import se.jsquad.entity.Client;
+import se.jsquad.entity.Person;
+import se.jsquad.entity.RegularClient;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = {"openbank.client.repository = jdbc"})
+public class JdbcClientRepositoryImplTest extends AbstractSpringBootConfiguration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcClientRepositoryImplTest.class);
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    @MockBean
+    private BrokerService brokerService;
+
+    @MockBean
+    private FlywayDatabaseMigration flywayDatabaseMigration;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ClientAdapter clientAdapter;
+
+    @Autowired
+    private OpenBankPersistenceUnitProducer openBankPersistenceUnitProducer;
+
+    @Test
+    void testJdbcRepositoryIsSelectedByProperty() {
+        assertTrue(clientRepository instanceof JdbcClientRepositoryImpl);
+    }
+
+    @Test
+    void testGetClientApiByPersonIdentification() {
+        // Given
+        String personIdentification = "191212121212";
+
+        // When
+        ClientApi clientApi = clientRepository.getClientApiByPersonIdentification(personIdentification);
+
+        // Then
+        assertEquals(personIdentification, clientApi.getPerson().getPersonIdentification());
+        assertEquals("John", clientApi.getPerson().getFirstName());
+        assertEquals("Doe", clientApi.getPerson().getLastName());
+        assertEquals("john.doe@test.se", clientApi.getPerson().getMail());
+
+        assertEquals(TypeApi.REGULAR, clientApi.getClientType().getType());
+        assertEquals(500, clientApi.getClientType().getRating());
+
+        AccountApi accountApi = clientApi.getAccountList().get(0);
+
+        assertEquals("1000", accountApi.getAccountNumber());
+        assertEquals(500, accountApi.getBalance());
+        assertEquals("500$ in deposit", accountApi.getAccountTransactionList().get(0).getMessage());
+        assertEquals(TransactionTypeApi.DEPOSIT, accountApi.getAccountTransactionList().get(0)
+                .getTransactionType());
+    }
+
+    @Test
+    void testGetClientApiByUnknownPersonIdentification() {
+        assertNull(clientRepository.getClientApiByPersonIdentification("197001010101"));
+        assertNull(clientRepository.getClientApiByPersonIdentification("not-a-person"));
+    }
+
+    @Test
+    void testJdbcReadPathMatchesJpaReadPath() throws NoSuchMethodException, InvocationTargetException,
+            IllegalAccessException {
+        // Given
+        Supplier<ClientApi> jpaReadPath = createJpaReadPath("191212121212");
+
+        // When
+        ClientApi jdbcClientApi = clientRepository.getClientApiByPersonIdentification("191212121212");
+
+        // Then
+        assertEquals(sortAccounts(jpaReadPath.get()), sortAccounts(jdbcClientApi));
+    }
+
+    @Test
+    void testJdbcReadPathTakesPartInJpaTransaction() throws NoSuchMethodException, InvocationTargetException,
+            IllegalAccessException {
+        // Given
+        Client client = new Client();
+        client.setClientType(new RegularClient());
+        client.getClientType().setClient(client);
+        ((RegularClient) client.getClientType()).setRating(Long.valueOf(100));
+
+        client.setPerson(new Person());
+        client.getPerson().setClient(client);
+        client.getPerson().setFirstName("Jdbc");
+        client.getPerson().setLastName("Doe");
+        client.getPerson().setPersonIdentification("197002020202");
+        client.getPerson().setMail("jdbc.doe@test.se");
+
+        clientRepository.persistClient(client);
+        getEntityManager().flush();
+
+        // When
+        ClientApi clientApi = clientRepository.getClientApiByPersonIdentification("197002020202");
+
+        // Then
+        assertEquals("Jdbc", clientApi.getPerson().getFirstName());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testJdbcReadPathBenchmark() throws NoSuchMethodException, InvocationTargetException,
+            IllegalAccessException {
+        // Given
+        Supplier<ClientApi> jpaReadPath = createJpaReadPath("191212121212");
+        Supplier<ClientApi> jdbcReadPath = () -> clientRepository.getClientApiByPersonIdentification(
+                "191212121212");
+
+        // When
+        long jpaNanos = measure(jpaReadPath);
+        long jdbcNanos = measure(jdbcReadPath);
+
+        LOGGER.info("Client aggregate read over {} iterations, JPA: {} us/op, JDBC: {} us/op", MEASURED_ITERATIONS,
+                jpaNanos / MEASURED_ITERATIONS / 1000, jdbcNanos / MEASURED_ITERATIONS / 1000);
+
+        // Then
+        assertEquals(sortAccounts(jpaReadPath.get()), sortAccounts(jdbcReadPath.get()));
+    }
+
+    private Supplier<ClientApi> createJpaReadPath(String personIdentification) throws NoSuchMethodException,
+            InvocationTargetException, IllegalAccessException {
+        EntityManager entityManager = getEntityManager();
+
+        return () -> {
+            entityManager.clear();
+
+            return clientAdapter.translateClientToClientApi(clientRepository.getClientByPersonIdentification(
+                    personIdentification, ClientFetchPlan.AGGREGATE));
+        };
+    }
+
+    private long measure(Supplier<ClientApi> readPath) {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            readPath.get();
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            readPath.get();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private ClientApi sortAccounts(ClientApi clientApi) {
+        clientApi.getAccountList().sort(Comparator.comparing(AccountApi::getAccountNumber));
+
+        return clientApi;
+    }
+
+    private EntityManager getEntityManager() throws NoSuchMethodException, InvocationTargetException,
+            IllegalAccessException {
+        Method method = OpenBankPersistenceUnitProducer.class.getDeclaredMethod("getEntityManager");
+        method.setAccessible(true);
+
+        return (EntityManager) method.invoke(openBankPersistenceUnitProducer);
+    }
+}
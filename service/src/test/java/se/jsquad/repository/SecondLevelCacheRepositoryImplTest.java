@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.repository;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import se.jsquad.AbstractSpringBootConfiguration;
+import se.jsquad.component.database.FlywayDatabaseMigration;
+import se.jsquad.entity.Client;
+import se.jsquad.entity.Person;
+import se.jsquad.producer.OpenBankPersistenceUnitProducer;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SecondLevelCacheRepositoryImplTest extends AbstractSpringBootConfiguration {
+    @MockBean
+    private BrokerService brokerService;
+
+    @MockBean
+    private FlywayDatabaseMigration flywayDatabaseMigration;
+
+    @Autowired
+    private SecondLevelCacheRepository secondLevelCacheRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    @Qualifier("openBankJdbcTemplate")
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OpenBankPersistenceUnitProducer openBankPersistenceUnitProducer;
+
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void enableAccessToEntityManager() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        Method method = OpenBankPersistenceUnitProducer.class.getDeclaredMethod("getEntityManager");
+        method.setAccessible(true);
+
+        entityManager = (EntityManager) method.invoke(openBankPersistenceUnitProducer);
+    }
+
+    @Test
+    void testOnlyChangedEntriesAreEvicted() {
+        // Given
+        Client client = clientRepository.getClientByPersonIdentification("191212121212", ClientFetchPlan.SUMMARY);
+        Long clientId = client.getId();
+        Long personId = client.getPerson().getId();
+        entityManager.clear();
+
+        entityManager.find(Client.class, clientId);
+        entityManager.find(Person.class, personId);
+
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        assertTrue(cache.contains(Person.class, personId));
+
+        Instant changedSince = Instant.now().plus(1, ChronoUnit.HOURS);
+
+        // Written behind Hibernate's back, as another instance of the service would
+        jdbcTemplate.update("UPDATE PERSON SET UPDATED_AT = ? WHERE ID = ?",
+                Timestamp.from(changedSince.plus(1, ChronoUnit.HOURS)), personId);
+
+        // When
+        int numberOfEvictedEntries = secondLevelCacheRepository.evictEntriesChangedSince(changedSince);
+
+        // Then
+        assertEquals(1, numberOfEvictedEntries);
+        assertFalse(cache.contains(Person.class, personId));
+        assertTrue(cache.contains(Client.class, clientId));
+    }
+
+    @Test
+    void testNothingIsEvictedWithoutChanges() {
+        // When
+        int numberOfEvictedEntries = secondLevelCacheRepository.evictEntriesChangedSince(Instant.now()
+                .plus(1, ChronoUnit.HOURS));
+
+        // Then
+        assertEquals(0, numberOfEvictedEntries);
+    }
+}
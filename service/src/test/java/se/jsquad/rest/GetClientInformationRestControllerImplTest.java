@@ -333,7 +333,12 @@ class GetClientInformationRestControllerImplTest extends AbstractSpringBootConfi
     
         beanInfo = Introspector.getBeanInfo(AccountApi.class);
         propertyDescriptors = Arrays.asList(beanInfo.getPropertyDescriptors());
-        assertEquals(3, propertyDescriptors.size());
+        assertEquals(4, propertyDescriptors.size());
+    
+        assertTrue(propertyDescriptors.stream().anyMatch(propertyDescriptor -> propertyDescriptor
+            .getName().equals("accountNumber")
+            && propertyDescriptor.getReadMethod().getGenericReturnType().getTypeName()
+            .equals("java.lang.String")));
     
         assertTrue(propertyDescriptors.stream().anyMatch(propertyDescriptor -> propertyDescriptor
             .getName().equals("balance")
@@ -352,7 +357,17 @@ class GetClientInformationRestControllerImplTest extends AbstractSpringBootConfi
     
         beanInfo = Introspector.getBeanInfo(AccountTransactionApi.class);
         propertyDescriptors = Arrays.asList(beanInfo.getPropertyDescriptors());
-        assertEquals(3, propertyDescriptors.size());
+        assertEquals(5, propertyDescriptors.size());
+    
+        assertTrue(propertyDescriptors.stream().anyMatch(propertyDescriptor -> propertyDescriptor
+            .getName().equals("amount")
+            && propertyDescriptor.getReadMethod().getGenericReturnType().getTypeName()
+            .equals("java.lang.Long")));
+    
+        assertTrue(propertyDescriptors.stream().anyMatch(propertyDescriptor -> propertyDescriptor
+            .getName().equals("occurredAt")
+            && propertyDescriptor.getReadMethod().getGenericReturnType().getTypeName()
+            .equals("java.lang.String")));
     
         assertTrue(propertyDescriptors.stream().anyMatch(propertyDescriptor -> propertyDescriptor
             .getName().equals("message")
@@ -35,18 +35,33 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.reactive.function.client.WebClient;
 import se.jsquad.AbstractSpringBootConfiguration;
+import se.jsquad.api.client.AccountApi;
+import se.jsquad.api.client.AccountStatement;
+import se.jsquad.api.client.AccountTransactionHistory;
+import se.jsquad.api.client.AccountTransactionApi;
+import se.jsquad.api.client.AccountTransferRequest;
+import se.jsquad.api.client.ClientApi;
+import se.jsquad.api.client.ClientImportResponse;
 import se.jsquad.api.client.ClientInformationRequest;
+import se.jsquad.api.client.ClientTypeApi;
 import se.jsquad.api.client.PersonApi;
+import se.jsquad.api.client.TransactionTypeApi;
+import se.jsquad.api.client.TypeApi;
 import se.jsquad.component.database.FlywayDatabaseMigration;
 import se.jsquad.configuration.ApplicationConfiguration;
 
 import java.io.IOException;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.springframework.jms.support.JmsHeaders.CORRELATION_ID;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static se.jsquad.constant.ApiConstants.OPENBANK_BASE_PATH;
 import static se.jsquad.interceptor.RequestHeaderInterceptor.CORRELATION_ID_HEADER_NAME;
@@ -141,4 +156,217 @@ class GetClientInformationRestMvcTest extends AbstractSpringBootConfiguration {
                 "string expected, $.person.personIdentification: null found, string expected]",
             mvcResult.getResponse().getContentAsString());
     }
+
+    @Test
+    void testImportClients() throws Exception {
+        // Given
+        List<ClientApi> clientApiList = List.of(createClientApi("198001010001"), createClientApi("198001010002"));
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(post(OPENBANK_BASE_PATH + "/client/import")
+            .header(CORRELATION_ID_HEADER_NAME, CORRELATION_ID)
+            .header(X_AUTHORIZATION_HEADER_NAME, Base64.getEncoder()
+                .encodeToString((CLIENT_NAME + ":" + CLIENT_PASSWORD).getBytes()))
+            .contentType(MediaType.APPLICATION_JSON_VALUE)
+            .content(objectMapper.writeValueAsString(clientApiList))
+            .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        // Then
+        assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus(), "Failed to import clients " +
+            mvcResult.getResponse().getContentAsString());
+        assertEquals(2, objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+            ClientImportResponse.class).getImportedClients());
+    }
+
+    @Test
+    void testImportClientsWithoutJsonArray() throws Exception {
+        // Given
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(post(OPENBANK_BASE_PATH + "/client/import")
+            .header(CORRELATION_ID_HEADER_NAME, CORRELATION_ID)
+            .header(X_AUTHORIZATION_HEADER_NAME, Base64.getEncoder()
+                .encodeToString((CLIENT_NAME + ":" + CLIENT_PASSWORD).getBytes()))
+            .contentType(MediaType.APPLICATION_JSON_VALUE)
+            .content(objectMapper.writeValueAsString(createClientApi("198001010003")))
+            .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST.value(), mvcResult.getResponse().getStatus());
+        assertEquals("Expected a JSON array of ClientApi.", mvcResult.getResponse().getContentAsString());
+    }
+
+    @Test
+    void testImportClientsWithMalformedElement() throws Exception {
+        // Given
+        ClientApi malformedClientApi = createClientApi("198001010005");
+        malformedClientApi.getAccountList().get(0).getAccountTransactionList().get(0).setOccurredAt("yesterday");
+
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        for (ClientApi clientApi : List.of(createClientApi("1980010100X5"), malformedClientApi)) {
+            // When
+            MvcResult mvcResult = mockMvc.perform(post(OPENBANK_BASE_PATH + "/client/import")
+                .header(CORRELATION_ID_HEADER_NAME, CORRELATION_ID)
+                .header(X_AUTHORIZATION_HEADER_NAME, Base64.getEncoder()
+                    .encodeToString((CLIENT_NAME + ":" + CLIENT_PASSWORD).getBytes()))
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(objectMapper.writeValueAsString(List.of(createClientApi("198001010004"), clientApi)))
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+            // Then
+            assertEquals(HttpStatus.BAD_REQUEST.value(), mvcResult.getResponse().getStatus(), mvcResult
+                .getResponse().getContentAsString());
+        }
+    }
+
+    @Test
+    void testGetAccountTransactionHistory() throws Exception {
+        // Given
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get(OPENBANK_BASE_PATH + "/account/1000/transactions")
+            .param("size", "10")
+            .header(CORRELATION_ID_HEADER_NAME, CORRELATION_ID)
+            .header(X_AUTHORIZATION_HEADER_NAME, Base64.getEncoder()
+                .encodeToString((CLIENT_NAME + ":" + CLIENT_PASSWORD).getBytes()))
+            .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        // Then
+        assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus(), "Failed to get transaction " +
+            "history " + mvcResult.getResponse().getContentAsString());
+
+        AccountTransactionHistory accountTransactionHistory = objectMapper.readValue(mvcResult.getResponse()
+            .getContentAsString(), AccountTransactionHistory.class);
+
+        assertEquals(1, accountTransactionHistory.getAccountTransactionList().size());
+        assertEquals(500, accountTransactionHistory.getAccountTransactionList().get(0).getAmount());
+        assertNull(accountTransactionHistory.getNextCursor());
+    }
+
+    @Test
+    void testGetAccountStatement() throws Exception {
+        // Given
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get(OPENBANK_BASE_PATH + "/account/1000/statement/" + currentMonth)
+            .header(CORRELATION_ID_HEADER_NAME, CORRELATION_ID)
+            .header(X_AUTHORIZATION_HEADER_NAME, Base64.getEncoder()
+                .encodeToString((CLIENT_NAME + ":" + CLIENT_PASSWORD).getBytes()))
+            .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        MvcResult previousMonthResult = mockMvc.perform(get(OPENBANK_BASE_PATH + "/account/1000/statement/"
+            + currentMonth.minusMonths(1))
+            .header(CORRELATION_ID_HEADER_NAME, CORRELATION_ID)
+            .header(X_AUTHORIZATION_HEADER_NAME, Base64.getEncoder()
+                .encodeToString((CLIENT_NAME + ":" + CLIENT_PASSWORD).getBytes()))
+            .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        // Then
+        assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus(), "Failed to get statement "
+            + mvcResult.getResponse().getContentAsString());
+
+        AccountStatement accountStatement = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+            AccountStatement.class);
+
+        assertEquals("1000", accountStatement.getAccountNumber());
+        assertEquals(currentMonth.toString(), accountStatement.getMonth());
+        assertEquals(1, accountStatement.getAccountTransactionList().size());
+        assertEquals(500, accountStatement.getAccountTransactionList().get(0).getAmount());
+
+        assertEquals(HttpStatus.OK.value(), previousMonthResult.getResponse().getStatus());
+        assertEquals(0, objectMapper.readValue(previousMonthResult.getResponse().getContentAsString(),
+            AccountStatement.class).getAccountTransactionList().size());
+    }
+
+    @Test
+    void testGetAccountStatementWithInvalidMonth() throws Exception {
+        // Given
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get(OPENBANK_BASE_PATH + "/account/1000/statement/2021-13")
+            .header(CORRELATION_ID_HEADER_NAME, CORRELATION_ID)
+            .header(X_AUTHORIZATION_HEADER_NAME, Base64.getEncoder()
+                .encodeToString((CLIENT_NAME + ":" + CLIENT_PASSWORD).getBytes()))
+            .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST.value(), mvcResult.getResponse().getStatus());
+        assertEquals("Invalid month.", mvcResult.getResponse().getContentAsString());
+    }
+
+    @Test
+    void testGetAccountTransactionHistoryForUnknownAccount() throws Exception {
+        // Given
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get(OPENBANK_BASE_PATH + "/account/9999/transactions")
+            .header(CORRELATION_ID_HEADER_NAME, CORRELATION_ID)
+            .header(X_AUTHORIZATION_HEADER_NAME, Base64.getEncoder()
+                .encodeToString((CLIENT_NAME + ":" + CLIENT_PASSWORD).getBytes()))
+            .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND.value(), mvcResult.getResponse().getStatus());
+        assertEquals("Account not found.", mvcResult.getResponse().getContentAsString());
+    }
+
+    @Test
+    void testTransferToUnknownAccount() throws Exception {
+        // Given
+        AccountTransferRequest accountTransferRequest = new AccountTransferRequest().withFromAccountNumber("1000")
+            .withToAccountNumber("9999").withAmount(100).withMessage("Rent");
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(post(OPENBANK_BASE_PATH + "/account/transfer")
+            .header(CORRELATION_ID_HEADER_NAME, CORRELATION_ID)
+            .header(X_AUTHORIZATION_HEADER_NAME, Base64.getEncoder()
+                .encodeToString((CLIENT_NAME + ":" + CLIENT_PASSWORD).getBytes()))
+            .contentType(MediaType.APPLICATION_JSON_VALUE)
+            .content(objectMapper.writeValueAsString(accountTransferRequest))
+            .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND.value(), mvcResult.getResponse().getStatus());
+        assertEquals("Account not found.", mvcResult.getResponse().getContentAsString());
+    }
+
+    @Test
+    void testTransferWithBadContent() throws Exception {
+        // Given
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(post(OPENBANK_BASE_PATH + "/account/transfer")
+            .header(CORRELATION_ID_HEADER_NAME, CORRELATION_ID)
+            .header(X_AUTHORIZATION_HEADER_NAME, Base64.getEncoder()
+                .encodeToString((CLIENT_NAME + ":" + CLIENT_PASSWORD).getBytes()))
+            .contentType(MediaType.APPLICATION_JSON_VALUE)
+            .content(objectMapper.writeValueAsString(new AccountTransferRequest().withFromAccountNumber("1000")
+                .withToAccountNumber("1000").withAmount(100).withMessage("Rent")))
+            .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST.value(), mvcResult.getResponse().getStatus());
+        assertEquals("AccountTransferRequest payload contains bad content.", mvcResult.getResponse()
+            .getContentAsString());
+    }
+
+    private ClientApi createClientApi(String personIdentification) {
+        return new ClientApi()
+            .withPerson(new PersonApi().withPersonIdentification(personIdentification).withFirstName("Import")
+                .withLastName("Doe").withMail("import.doe@test.se"))
+            .withClientType(new ClientTypeApi().withType(TypeApi.REGULAR).withRating(100))
+            .withAccountList(new AccountApi().withBalance(100).withAccountTransactionList(
+                new AccountTransactionApi().withTransactionType(TransactionTypeApi.DEPOSIT)
+                    .withMessage("100$ in deposit")));
+    }
 }
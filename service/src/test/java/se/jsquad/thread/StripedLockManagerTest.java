@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.thread;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StripedLockManagerTest {
+    @Test
+    public void testNumberOfStripesIsRoundedUpToPowerOfTwo() {
+        // Given
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        // Then
+        assertEquals(1, new StripedLockManager("one", 0, meterRegistry).getNumberOfStripes());
+        assertEquals(1, new StripedLockManager("two", 1, meterRegistry).getNumberOfStripes());
+        assertEquals(64, new StripedLockManager("three", 64, meterRegistry).getNumberOfStripes());
+        assertEquals(128, new StripedLockManager("four", 65, meterRegistry).getNumberOfStripes());
+    }
+
+    @Test
+    public void testSameKeyIsMutuallyExclusive() throws InterruptedException {
+        // Given
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StripedLockManager stripedLockManager = new StripedLockManager("account", 16, meterRegistry);
+        AtomicInteger numberOfHolders = new AtomicInteger();
+        AtomicInteger maxNumberOfHolders = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            executorService.execute(() -> stripedLockManager.executeWithLock("1234", () -> {
+                maxNumberOfHolders.accumulateAndGet(numberOfHolders.incrementAndGet(), Math::max);
+                Thread.onSpinWait();
+                numberOfHolders.decrementAndGet();
+            }));
+        }
+
+        executorService.shutdown();
+
+        // Then
+        assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(1, maxNumberOfHolders.get());
+        assertEquals(200, meterRegistry.get("openbank.lock.acquisitions").counters().stream()
+                .mapToDouble(counter -> counter.count()).sum());
+    }
+
+    @Test
+    public void testContendedAcquisitionIsMeasured() throws InterruptedException {
+        // Given
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StripedLockManager stripedLockManager = new StripedLockManager("account", 16, meterRegistry);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> stripedLockManager.executeWithLock("1234", () -> {
+            locked.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        holder.start();
+        locked.await();
+
+        Thread waiter = new Thread(() -> stripedLockManager.executeWithLock("1234", () -> {
+        }));
+        waiter.start();
+
+        while (meterRegistry.get("openbank.lock.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        release.countDown();
+        holder.join();
+        waiter.join();
+
+        // Then
+        assertEquals(1, meterRegistry.get("openbank.lock.acquisitions").tag("contended", "true").counter().count());
+        assertEquals(1, meterRegistry.get("openbank.lock.acquisitions").tag("contended", "false").counter().count());
+        assertEquals(1, meterRegistry.get("openbank.lock.wait").timer().count());
+        assertEquals(0, meterRegistry.get("openbank.lock.queued").gauge().value());
+    }
+
+    @Test
+    public void testLockingKeysInOppositeOrderDoesNotDeadlock() throws InterruptedException {
+        // Given
+        StripedLockManager stripedLockManager = new StripedLockManager("account", 64, new SimpleMeterRegistry());
+        AtomicInteger numberOfExecutions = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            List<String> keys = i % 2 == 0 ? List.of("1111", "2222") : List.of("2222", "1111");
+
+            executorService.execute(() -> stripedLockManager.executeWithLocks(keys,
+                    numberOfExecutions::incrementAndGet));
+        }
+
+        executorService.shutdown();
+
+        // Then
+        assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(1000, numberOfExecutions.get());
+    }
+}
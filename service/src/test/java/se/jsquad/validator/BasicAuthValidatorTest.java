@@ -23,6 +23,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import se.jsquad.AbstractSpringBootConfiguration;
 import se.jsquad.component.database.FlywayDatabaseMigration;
+import se.jsquad.repository.SecurityAccessRepository;
 
 import java.util.Map;
 
@@ -34,6 +35,9 @@ class BasicAuthValidatorTest extends AbstractSpringBootConfiguration {
     @Autowired
     private BasicAuthValidator basicAuthValidator;
     
+    @Autowired
+    private SecurityAccessRepository securityAccessRepository;
+    
     @MockBean
     private FlywayDatabaseMigration flywayDatabaseMigration;
     
@@ -79,4 +83,20 @@ class BasicAuthValidatorTest extends AbstractSpringBootConfiguration {
         // When & then
         assertFalse(basicAuthValidator.doesBasicAuthNameAndPasswordExist(clientName, password));
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testClientNameAndPasswordFromTheSecurityTable() {
+        // Given
+        securityAccessRepository.persistSecurityAccess(ClientCredentialStoreTest.createSecurityAccess("client9",
+            "secret9"));
+        
+        try {
+            // When & then
+            assertTrue(basicAuthValidator.doesBasicAuthNameAndPasswordExist("client9", "secret9"));
+            assertFalse(basicAuthValidator.doesBasicAuthNameAndPasswordExist("client9", "password1"));
+            assertTrue(basicAuthValidator.doesBasicAuthNameAndPasswordExist("client1", "password1"));
+        } finally {
+            securityAccessRepository.removeSecurityAccessByClientName("client9");
+        }
+    }
+}
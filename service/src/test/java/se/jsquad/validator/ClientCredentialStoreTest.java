@@ -0,0 +1,186 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.validator;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import se.jsquad.entity.security.SecurityAccess;
+import se.jsquad.property.AppPropertyConfiguration;
+import se.jsquad.repository.SecurityAccessRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+
+public class ClientCredentialStoreTest {
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SecurityAccessRepository securityAccessRepository = Mockito.mock(SecurityAccessRepository.class);
+    private AppPropertyConfiguration appPropertyConfiguration = Mockito.mock(AppPropertyConfiguration.class);
+
+    @BeforeEach
+    void setupAppPropertyConfiguration() {
+        Mockito.when(appPropertyConfiguration.getAuthStoreTtlSeconds()).thenReturn(300);
+        Mockito.when(appPropertyConfiguration.getAuthStoreNegativeTtlSeconds()).thenReturn(60);
+        Mockito.when(appPropertyConfiguration.getAuthStoreNegativeCacheSize()).thenReturn(100);
+        Mockito.when(appPropertyConfiguration.getAuthStoreFailureBackoffSeconds()).thenReturn(5);
+    }
+
+    @Test
+    void testCredentialsAreReadThroughTheCache() {
+        // Given
+        Mockito.when(securityAccessRepository.findSecurityAccessByClientNames(List.of("client2")))
+                .thenReturn(List.of(createSecurityAccess("client2", "secret")));
+        ClientCredentialStore clientCredentialStore = createClientCredentialStore();
+
+        // When
+        Optional<List<ClientCredential>> clientCredentials = clientCredentialStore.getClientCredentials("client2");
+        clientCredentialStore.getClientCredentials("client2");
+
+        // Then
+        assertTrue(clientCredentials.isPresent());
+        assertTrue(clientCredentials.get().get(0).matches("secret"));
+        assertFalse(clientCredentials.get().get(0).matches("password"));
+        Mockito.verify(securityAccessRepository, Mockito.times(1)).findSecurityAccessByClientNames(anyCollection());
+        assertEquals(1, meterRegistry.get("openbank.auth.store.lookup").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void testUnknownClientNamesAreNegativelyCached() {
+        // Given
+        Mockito.when(securityAccessRepository.findSecurityAccessByClientNames(anyCollection()))
+                .thenReturn(Collections.emptyList());
+        ClientCredentialStore clientCredentialStore = createClientCredentialStore();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertTrue(clientCredentialStore.getClientCredentials("unknown").isEmpty());
+        }
+
+        // Then
+        Mockito.verify(securityAccessRepository, Mockito.times(1)).findSecurityAccessByClientNames(anyCollection());
+        assertEquals(9, meterRegistry.get("openbank.auth.store.lookup").tag("result", "negative_hit").counter()
+                .count());
+    }
+
+    @Test
+    void testRefreshPicksUpRotatedAndRemovedCredentials() {
+        // Given
+        Mockito.when(securityAccessRepository.findSecurityAccessByClientNames(List.of("client2")))
+                .thenReturn(List.of(createSecurityAccess("client2", "secret")));
+        Mockito.when(securityAccessRepository.findSecurityAccessByClientNames(List.of("client3")))
+                .thenReturn(List.of(createSecurityAccess("client3", "secret")));
+        ClientCredentialStore clientCredentialStore = createClientCredentialStore();
+        clientCredentialStore.getClientCredentials("client2");
+        clientCredentialStore.getClientCredentials("client3");
+        long version = clientCredentialStore.getVersion("client2");
+
+        Mockito.when(securityAccessRepository.findSecurityAccessByClientNames(anyCollection()))
+                .thenReturn(List.of(createSecurityAccess("client2", "rotated")));
+
+        // When
+        clientCredentialStore.refresh();
+
+        // Then
+        assertNotEquals(version, clientCredentialStore.getVersion("client2"));
+        assertEquals(0, clientCredentialStore.getVersion("client3"));
+        assertTrue(clientCredentialStore.getClientCredentials("client2").get().get(0).matches("rotated"));
+        assertEquals(1, meterRegistry.get("openbank.auth.store.size").gauge().value());
+        assertEquals(1, meterRegistry.get("openbank.auth.store.refresh").timer().count());
+    }
+
+    @Test
+    void testStaleCredentialsAreUsedWhenTheDatabaseFails() {
+        // Given
+        Mockito.when(appPropertyConfiguration.getAuthStoreTtlSeconds()).thenReturn(0);
+        Mockito.when(securityAccessRepository.findSecurityAccessByClientNames(List.of("client2")))
+                .thenReturn(List.of(createSecurityAccess("client2", "secret")))
+                .thenThrow(new IllegalStateException("The security database is down"));
+        ClientCredentialStore clientCredentialStore = createClientCredentialStore();
+        clientCredentialStore.getClientCredentials("client2");
+
+        // When
+        Optional<List<ClientCredential>> clientCredentials = clientCredentialStore.getClientCredentials("client2");
+
+        // Then
+        assertTrue(clientCredentials.get().get(0).matches("secret"));
+        Mockito.verify(securityAccessRepository, Mockito.times(2)).findSecurityAccessByClientNames(anyCollection());
+    }
+
+    @Test
+    void testVersionIsKeptPerClient() {
+        // Given
+        Mockito.when(securityAccessRepository.findSecurityAccessByClientNames(List.of("client2")))
+                .thenReturn(List.of(createSecurityAccess("client2", "secret")));
+        Mockito.when(securityAccessRepository.findSecurityAccessByClientNames(List.of("client3")))
+                .thenReturn(List.of(createSecurityAccess("client3", "secret")));
+        ClientCredentialStore clientCredentialStore = createClientCredentialStore();
+        clientCredentialStore.getClientCredentials("client2");
+        long version = clientCredentialStore.getVersion("client2");
+
+        // When
+        clientCredentialStore.getClientCredentials("client3");
+
+        // Then
+        assertNotEquals(0, version);
+        assertEquals(version, clientCredentialStore.getVersion("client2"));
+        assertNotEquals(version, clientCredentialStore.getVersion("client3"));
+    }
+
+    @Test
+    void testDatabaseFailuresAreBackedOff() {
+        // Given
+        Mockito.when(securityAccessRepository.findSecurityAccessByClientNames(anyCollection()))
+                .thenThrow(new IllegalStateException("The security database is down"));
+        ClientCredentialStore clientCredentialStore = createClientCredentialStore();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertTrue(clientCredentialStore.getClientCredentials("client2").isEmpty());
+        }
+
+        // Then
+        Mockito.verify(securityAccessRepository, Mockito.times(1)).findSecurityAccessByClientNames(anyCollection());
+    }
+
+    private ClientCredentialStore createClientCredentialStore() {
+        return new ClientCredentialStore(Mockito.mock(Logger.class), securityAccessRepository,
+                appPropertyConfiguration, meterRegistry);
+    }
+
+    static SecurityAccess createSecurityAccess(String clientName, String password) {
+        byte[] salt = (clientName + "-salt").getBytes(StandardCharsets.UTF_8);
+
+        SecurityAccess securityAccess = new SecurityAccess();
+        securityAccess.setClientName(clientName);
+        securityAccess.setPasswordSalt(Base64.getEncoder().encodeToString(salt));
+        securityAccess.setPasswordHash(Base64.getEncoder().encodeToString(ClientCredential.hash(salt, password)));
+
+        return securityAccess;
+    }
+}
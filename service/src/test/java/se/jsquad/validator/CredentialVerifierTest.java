@@ -0,0 +1,169 @@
+/*
+ * Copyright 2021 JSquad AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.jsquad.validator;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import se.jsquad.exception.BasicAuthMapException;
+import se.jsquad.exception.BasicAuthMapRuntimeException;
+import se.jsquad.property.AppPropertyConfiguration;
+import se.jsquad.repository.SecurityAccessRepository;
+import se.jsquad.util.Base64Util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+
+public class CredentialVerifierTest {
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AppPropertyConfiguration appPropertyConfiguration = Mockito.mock(AppPropertyConfiguration.class);
+    private BasicAuthValidator basicAuthValidator;
+    private CredentialVerifier credentialVerifier;
+
+    @BeforeEach
+    void createCredentialVerifier() throws BasicAuthMapException {
+        basicAuthValidator = Mockito.spy(new BasicAuthValidator(new MockEnvironment()
+                .withProperty("service.basic.auth.map.client1.token", "password1,password2")
+                .withProperty("service.basic.auth.map.client2.token", "password3")));
+
+        Mockito.when(appPropertyConfiguration.getAuthCacheSize()).thenReturn(2);
+        Mockito.when(appPropertyConfiguration.getAuthStoreTtlSeconds()).thenReturn(300);
+        Mockito.when(appPropertyConfiguration.getAuthStoreNegativeTtlSeconds()).thenReturn(60);
+        Mockito.when(appPropertyConfiguration.getAuthStoreNegativeCacheSize()).thenReturn(100);
+        Mockito.when(appPropertyConfiguration.getAuthStoreFailureBackoffSeconds()).thenReturn(5);
+
+        credentialVerifier = new CredentialVerifier(new Base64Util(), basicAuthValidator, appPropertyConfiguration,
+                meterRegistry);
+    }
+
+    @Test
+    void testVerifiedCredentialsAreCached() {
+        // Given
+        String encodedCredentials = encode("client1:password2");
+
+        // When
+        String clientName = credentialVerifier.verify(encodedCredentials);
+        String cachedClientName = credentialVerifier.verify(encodedCredentials);
+
+        // Then
+        assertEquals("client1", clientName);
+        assertEquals("client1", cachedClientName);
+        Mockito.verify(basicAuthValidator, Mockito.times(1)).doesBasicAuthNameAndPasswordExist("client1",
+                "password2");
+        assertEquals(1, meterRegistry.get("openbank.auth.cache").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("openbank.auth.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testFailedVerificationsAreNotCached() {
+        // Given
+        String encodedCredentials = encode("client1:password3");
+
+        // When
+        BasicAuthMapRuntimeException basicAuthMapRuntimeException = assertThrows(BasicAuthMapRuntimeException.class,
+                () -> credentialVerifier.verify(encodedCredentials));
+        assertThrows(BasicAuthMapRuntimeException.class, () -> credentialVerifier.verify(encodedCredentials));
+
+        // Then
+        assertEquals("The client name client1 with provided password does not exist",
+                basicAuthMapRuntimeException.getMessage());
+        assertEquals(0, meterRegistry.get("openbank.auth.cache.size").gauge().value());
+        Mockito.verify(basicAuthValidator, Mockito.times(2)).doesBasicAuthNameAndPasswordExist("client1",
+                "password3");
+    }
+
+    @Test
+    void testMalformedCredentialsAreRejected() {
+        // When & then
+        for (String credentials : new String[]{"client1", "client1:", ":password1", "client1: password1"}) {
+            assertThrows(BasicAuthMapRuntimeException.class, () -> credentialVerifier.verify(encode(credentials)),
+                    credentials);
+        }
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        // Given
+        credentialVerifier.verify(encode("client1:password1"));
+        credentialVerifier.verify(encode("client1:password2"));
+
+        // When
+        credentialVerifier.verify(encode("client2:password3"));
+        credentialVerifier.verify(encode("client1:password1"));
+
+        // Then
+        assertEquals(2, meterRegistry.get("openbank.auth.cache.size").gauge().value());
+        Mockito.verify(basicAuthValidator, Mockito.times(2)).doesBasicAuthNameAndPasswordExist("client1",
+                "password1");
+    }
+
+    @Test
+    void testCachedCredentialsAreInvalidatedPerClient() {
+        // Given
+        credentialVerifier.verify(encode("client1:password1"));
+        credentialVerifier.verify(encode("client2:password3"));
+
+        // When
+        Mockito.doReturn(1L).when(basicAuthValidator).getCredentialVersion("client2");
+        credentialVerifier.verify(encode("client1:password1"));
+        credentialVerifier.verify(encode("client2:password3"));
+
+        // Then
+        Mockito.verify(basicAuthValidator, Mockito.times(1)).doesBasicAuthNameAndPasswordExist("client1",
+                "password1");
+        Mockito.verify(basicAuthValidator, Mockito.times(2)).doesBasicAuthNameAndPasswordExist("client2",
+                "password3");
+    }
+
+    @Test
+    void testMapPasswordStopsWorkingOnceTheClientHasStoredCredentials() {
+        // Given
+        Mockito.when(appPropertyConfiguration.getAuthStoreNegativeTtlSeconds()).thenReturn(0);
+        SecurityAccessRepository securityAccessRepository = Mockito.mock(SecurityAccessRepository.class);
+        Mockito.when(securityAccessRepository.findSecurityAccessByClientNames(anyCollection()))
+                .thenReturn(Collections.emptyList());
+        ReflectionTestUtils.invokeMethod(basicAuthValidator, "setClientCredentialStore", new ClientCredentialStore(
+                Mockito.mock(Logger.class), securityAccessRepository, appPropertyConfiguration, meterRegistry));
+        credentialVerifier = new CredentialVerifier(new Base64Util(), basicAuthValidator, appPropertyConfiguration,
+                meterRegistry);
+        credentialVerifier.verify(encode("client1:password1"));
+
+        // When
+        Mockito.when(securityAccessRepository.findSecurityAccessByClientNames(anyCollection()))
+                .thenReturn(List.of(ClientCredentialStoreTest.createSecurityAccess("client1", "rotated")));
+
+        // Then
+        assertThrows(BasicAuthMapRuntimeException.class, () -> credentialVerifier.verify(encode(
+                "client1:password1")));
+        assertEquals("client1", credentialVerifier.verify(encode("client1:rotated")));
+    }
+
+    private String encode(String credentials) {
+        return Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+}